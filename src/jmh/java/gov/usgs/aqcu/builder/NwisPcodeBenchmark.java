@@ -0,0 +1,77 @@
+package gov.usgs.aqcu.builder;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gov.usgs.aqcu.model.nwis.ParameterRecord;
+import gov.usgs.aqcu.retrieval.NwisParameterIndexService;
+import gov.usgs.aqcu.retrieval.NwisRaService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * NWIS pcode lookup against loaded name and unit alias indexes the size of the NWIS-RA parameter lists. Run with:
+ * mvn -Pjmh test-compile exec:exec -Djmh.args=NwisPcode
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NwisPcodeBenchmark {
+	private static final int PARAMETERS = 2500;
+	private static final int UNITS_PER_PARAMETER = 3;
+
+	private ReportBuilderService service;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		List<ParameterRecord> names = new ArrayList<>();
+		List<ParameterRecord> units = new ArrayList<>();
+		for (int i = 0; i < PARAMETERS; i++) {
+			names.add(record("nwis" + i, "Parameter " + i, null));
+			for (int j = 0; j < UNITS_PER_PARAMETER; j++) {
+				units.add(record("nwis" + i, "unit" + j, String.format("%05d", i * UNITS_PER_PARAMETER + j)));
+			}
+		}
+		NwisRaService nwisRaService = mock(NwisRaService.class);
+		given(nwisRaService.getAqParameterNames()).willReturn(names);
+		given(nwisRaService.getAqParameterUnits()).willReturn(units);
+		service = TimeSeriesFixtures.reportBuilderService(new NwisParameterIndexService(nwisRaService, new SimpleMeterRegistry()));
+		service.getNwisPcode("Parameter 0", "unit0");
+	}
+
+	@Benchmark
+	public String getNwisPcode() {
+		return service.getNwisPcode("Parameter 1250", "unit2");
+	}
+
+	@Benchmark
+	public String getNwisPcodeUnknownUnit() {
+		return service.getNwisPcode("Parameter 1250", "furlongs");
+	}
+
+	protected ParameterRecord record(String name, String alias, String code) {
+		ParameterRecord record = new ParameterRecord();
+		record.setName(name);
+		record.setAlias(alias);
+		record.setCode(code);
+		return record;
+	}
+}
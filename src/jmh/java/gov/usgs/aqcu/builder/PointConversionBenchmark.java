@@ -0,0 +1,71 @@
+package gov.usgs.aqcu.builder;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import gov.usgs.aqcu.model.DvHydrographPoint;
+import gov.usgs.aqcu.model.DvHydrographPointList;
+import gov.usgs.aqcu.util.AqcuTimeUtils;
+import gov.usgs.aqcu.util.DoubleWithDisplayUtil;
+
+/**
+ * Conversion of instantaneous series of increasing size, against the common pool parallelStream conversion it
+ * replaced. Run with: mvn -Pjmh test-compile exec:exec -Djmh.args=PointConversion
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PointConversionBenchmark {
+	private static final ZoneOffset ZONE = ZoneOffset.of("-5");
+
+	@Param({"365", "1826", "5000", "10000", "20000", "35040", "175296"})
+	private int points;
+
+	private List<TimeSeriesPoint> timeSeriesPoints;
+	private PointConversionService service;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		timeSeriesPoints = TimeSeriesFixtures.points(points, Duration.ofMinutes(15));
+		service = new PointConversionService();
+	}
+
+	@Benchmark
+	public DvHydrographPointList convert() {
+		return service.convert(timeSeriesPoints, false, ZONE);
+	}
+
+	/**
+	 * The common pool parallelStream conversion this replaced, for reference.
+	 */
+	@Benchmark
+	public List<DvHydrographPoint> parallelStream() {
+		return timeSeriesPoints.parallelStream()
+				.filter(x -> x.getValue().getNumeric() != null)
+				.map(x -> new DvHydrographPoint()
+						.setTime(AqcuTimeUtils.getTemporal(x.getTimestamp(), false, ZONE))
+						.setValue(DoubleWithDisplayUtil.getRoundedValue(x.getValue())))
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,107 @@
+package gov.usgs.aqcu.builder;
+
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.google.gson.Gson;
+
+import gov.usgs.aqcu.config.WebMvcConfig;
+import gov.usgs.aqcu.model.DvHydrographPoint;
+import gov.usgs.aqcu.model.DvHydrographReport;
+import gov.usgs.aqcu.model.DvHydrographReportMetadata;
+import gov.usgs.aqcu.model.InstantRange;
+import gov.usgs.aqcu.model.TimeSeriesCorrectedData;
+import gov.usgs.aqcu.util.TimeSeriesUtils;
+
+/**
+ * Report building hot paths over the one year daily, five year daily and five year 15 minute fixtures, as a
+ * baseline for optimizations and a regression check. Run with:
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="ReportBuilder -rf json"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBuilderBenchmark {
+	private static final ZoneOffset ZONE = ZoneOffset.of("-5");
+	private static final String TITLE = "DV Hydrograph";
+
+	@Param({"ONE_YEAR_DAILY", "FIVE_YEAR_DAILY", "FIVE_YEAR_15_MINUTE"})
+	private TimeSeriesFixtures.Fixture fixture;
+
+	private TimeSeriesDataServiceResponse response;
+	private ReportBuilderService service;
+	private DvHydrographReport report;
+	private Gson gson;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		response = fixture.response();
+		service = TimeSeriesFixtures.reportBuilderService();
+		gson = new WebMvcConfig().gson();
+		report = report(service.createTimeSeriesCorrectedData(response, fixture.isDaily(), true, ZONE, TITLE, ReportMetrics.NO_SLOT));
+	}
+
+	@Benchmark
+	public List<DvHydrographPoint> createDvHydroPoints() {
+		return service.createDvHydroPoints(response.getPoints(), fixture.isDaily(), ZONE);
+	}
+
+	@Benchmark
+	public List<InstantRange> getEstimatedPeriods() {
+		return service.getEstimatedPeriods(response.getQualifiers());
+	}
+
+	@Benchmark
+	public TimeSeriesCorrectedData createTimeSeriesCorrectedData() {
+		return service.createTimeSeriesCorrectedData(response, fixture.isDaily(), true, ZONE, TITLE, ReportMetrics.NO_SLOT);
+	}
+
+	@Benchmark
+	public String serializeReport() {
+		return gson.toJson(report, DvHydrographReport.class);
+	}
+
+	/**
+	 * A report with the fixture in every series slot, the most a single report can hold.
+	 */
+	protected DvHydrographReport report(TimeSeriesCorrectedData series) {
+		DvHydrographReportMetadata metadata = new DvHydrographReportMetadata();
+		metadata.setTitle(TITLE);
+		metadata.setStationId(response.getLocationIdentifier());
+		metadata.setStationName("Benchmark River near Benchmark");
+		metadata.setPrimarySeriesLabel(response.getLabel());
+
+		DvHydrographReport report = new DvHydrographReport();
+		report.setReportMetadata(metadata);
+		report.setPrimarySeriesQualifiers(response.getQualifiers());
+		report.setPrimarySeriesApprovals(response.getApprovals());
+		report.setMaxMinData(TimeSeriesUtils.getMinMaxData(response.getPoints()));
+		report.setFirstStatDerived(series);
+		report.setSecondStatDerived(series);
+		report.setThirdStatDerived(series);
+		report.setFourthStatDerived(series);
+		report.setFirstReferenceTimeSeries(series);
+		report.setSecondReferenceTimeSeries(series);
+		report.setThirdReferenceTimeSeries(series);
+		report.setComparisonSeries(series);
+		return report;
+	}
+}
@@ -0,0 +1,181 @@
+package gov.usgs.aqcu.builder;
+
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Approval;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.GapTolerance;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalTimeRange;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import gov.usgs.aqcu.retrieval.FieldVisitDataCacheService;
+import gov.usgs.aqcu.retrieval.FieldVisitDescriptionService;
+import gov.usgs.aqcu.retrieval.InFlightRequestRegistry;
+import gov.usgs.aqcu.retrieval.LocationDescriptionCacheService;
+import gov.usgs.aqcu.retrieval.NwisParameterIndexService;
+import gov.usgs.aqcu.retrieval.NwisRaService;
+import gov.usgs.aqcu.retrieval.ParameterListService;
+import gov.usgs.aqcu.retrieval.ParameterMetadataCacheService;
+import gov.usgs.aqcu.retrieval.QualifierMetadataCacheService;
+import gov.usgs.aqcu.retrieval.TimeSeriesDataCacheService;
+import gov.usgs.aqcu.retrieval.TimeSeriesDescriptionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Synthetic Aquarius time series for the benchmarks. Values are seeded so every run sees the same series.
+ */
+public final class TimeSeriesFixtures {
+	public static final Instant WATER_YEAR_START = Instant.parse("2013-10-01T05:00:00Z");
+
+	private static final String[] QUALIFIERS = {"ESTIMATED", "ICE", "EQUIPMENT", "BACKWATER", "ESTIMATED", "PROVISIONAL"};
+
+	/**
+	 * Realistic Aquarius responses: a single year and five water years of daily values, and five water years of
+	 * 15 minute instantaneous values.
+	 */
+	public enum Fixture {
+		ONE_YEAR_DAILY(365, Duration.ofDays(1), true),
+		FIVE_YEAR_DAILY(1826, Duration.ofDays(1), true),
+		FIVE_YEAR_15_MINUTE(175296, Duration.ofMinutes(15), false);
+
+		private final int points;
+		private final Duration step;
+		private final boolean daily;
+
+		Fixture(int points, Duration step, boolean daily) {
+			this.points = points;
+			this.step = step;
+			this.daily = daily;
+		}
+
+		public TimeSeriesDataServiceResponse response() {
+			return TimeSeriesFixtures.response(points, step);
+		}
+		public boolean isDaily() {
+			return daily;
+		}
+	}
+
+	private TimeSeriesFixtures() {}
+
+	/**
+	 * A corrected data response over the points, with a qualifier about every ten days (a third of them
+	 * ESTIMATED), an approval per water year and a single gap tolerance.
+	 */
+	public static TimeSeriesDataServiceResponse response(int count, Duration step) {
+		Instant end = WATER_YEAR_START.plus(step.multipliedBy(count));
+		Random random = new Random(count);
+
+		ArrayList<Qualifier> qualifiers = new ArrayList<>();
+		int qualifierIndex = 0;
+		for (Instant start = WATER_YEAR_START; start.isBefore(end); start = start.plus(Duration.ofDays(10))) {
+			Qualifier qualifier = new Qualifier();
+			qualifier.setIdentifier(QUALIFIERS[qualifierIndex++ % QUALIFIERS.length]);
+			qualifier.setStartTime(start);
+			qualifier.setEndTime(start.plus(Duration.ofHours(1 + random.nextInt(96))));
+			qualifiers.add(qualifier);
+		}
+
+		ArrayList<Approval> approvals = new ArrayList<>();
+		for (Instant start = WATER_YEAR_START; start.isBefore(end); start = start.plus(Duration.ofDays(365))) {
+			Approval approval = new Approval();
+			approval.setApprovalLevel(1200);
+			approval.setLevelDescription("Approved");
+			approval.setStartTime(start);
+			approval.setEndTime(start.plus(Duration.ofDays(365)));
+			approvals.add(approval);
+		}
+
+		ArrayList<GapTolerance> gapTolerances = new ArrayList<>();
+		GapTolerance gapTolerance = new GapTolerance();
+		gapTolerance.setToleranceInMinutes(120D);
+		gapTolerance.setStartTime(WATER_YEAR_START);
+		gapTolerance.setEndTime(end);
+		gapTolerances.add(gapTolerance);
+
+		StatisticalTimeRange timeRange = new StatisticalTimeRange();
+		timeRange.setStartTime(new StatisticalDateTimeOffset().setDateTimeOffset(WATER_YEAR_START).setRepresentsEndOfTimePeriod(false));
+		timeRange.setEndTime(new StatisticalDateTimeOffset().setDateTimeOffset(end).setRepresentsEndOfTimePeriod(false));
+
+		TimeSeriesDataServiceResponse response = new TimeSeriesDataServiceResponse();
+		response.setUniqueId("a1b2c3");
+		response.setParameter("Discharge");
+		response.setLabel("Discharge.ft^3/s@01014000");
+		response.setLocationIdentifier("01014000");
+		response.setUnit("ft^3/s");
+		response.setNumPoints((long) count);
+		response.setPoints(points(count, step));
+		response.setQualifiers(qualifiers);
+		response.setApprovals(approvals);
+		response.setGapTolerances(gapTolerances);
+		response.setTimeRange(timeRange);
+		return response;
+	}
+
+	/**
+	 * A report builder with the real gap building, point conversion and metrics the benchmarked methods use, and
+	 * Mockito mocks for the retrieval services, which the benchmarks never call.
+	 */
+	public static ReportBuilderService reportBuilderService() {
+		return reportBuilderService(mock(NwisParameterIndexService.class));
+	}
+
+	/**
+	 * As {@link #reportBuilderService()}, with the given NWIS parameter index.
+	 */
+	public static ReportBuilderService reportBuilderService(NwisParameterIndexService nwisParameterIndexService) {
+		DataGapListBuilderService dataGapListBuilderService = new DataGapListBuilderService();
+		FieldVisitDataCacheService fieldVisitDataCacheService = mock(FieldVisitDataCacheService.class);
+		FieldVisitDescriptionService fieldVisitDescriptionService = mock(FieldVisitDescriptionService.class);
+		FieldVisitMeasurementsBuilderService fieldVisitMeasurementsBuilderService = mock(FieldVisitMeasurementsBuilderService.class);
+		InFlightRequestRegistry inFlightRequestRegistry = mock(InFlightRequestRegistry.class);
+		LocationDescriptionCacheService locationDescriptionCacheService = mock(LocationDescriptionCacheService.class);
+		NwisRaService nwisRaService = mock(NwisRaService.class);
+		ParameterListService parameterListService = mock(ParameterListService.class);
+		ParameterMetadataCacheService parameterMetadataCacheService = mock(ParameterMetadataCacheService.class);
+		PointConversionService pointConversionService = new PointConversionService();
+		QualifierMetadataCacheService qualifierMetadataCacheService = mock(QualifierMetadataCacheService.class);
+		ReportMetrics reportMetrics = new ReportMetrics(new SimpleMeterRegistry());
+		TimeSeriesDataCacheService timeSeriesDataCacheService = mock(TimeSeriesDataCacheService.class);
+		TimeSeriesDescriptionService timeSeriesDescriptionService = mock(TimeSeriesDescriptionService.class);
+		Executor reportBuilderExecutor = Runnable::run;
+		Executor fieldVisitDataExecutor = Runnable::run;
+		return new ReportBuilderService(dataGapListBuilderService, fieldVisitDataCacheService, fieldVisitDescriptionService,
+				fieldVisitMeasurementsBuilderService, inFlightRequestRegistry, locationDescriptionCacheService, nwisRaService,
+				nwisParameterIndexService, parameterListService, parameterMetadataCacheService, pointConversionService,
+				qualifierMetadataCacheService, reportMetrics, timeSeriesDataCacheService, timeSeriesDescriptionService,
+				reportBuilderExecutor, fieldVisitDataExecutor);
+	}
+
+	/**
+	 * Consecutive points starting at the 2014 water year, roughly one in a thousand without a numeric value.
+	 */
+	public static ArrayList<TimeSeriesPoint> points(int count, Duration step) {
+		Random random = new Random(count);
+		ArrayList<TimeSeriesPoint> points = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			DoubleWithDisplay value;
+			if (random.nextInt(1000) == 0) {
+				value = new DoubleWithDisplay().setDisplay("EQP");
+			} else {
+				double numeric = Math.round(random.nextDouble() * 100000D) / 100D;
+				value = new DoubleWithDisplay().setNumeric(numeric).setDisplay(String.valueOf(numeric));
+			}
+			points.add(new TimeSeriesPoint()
+					.setTimestamp(new StatisticalDateTimeOffset()
+							.setDateTimeOffset(WATER_YEAR_START.plus(step.multipliedBy(i)))
+							.setRepresentsEndOfTimePeriod(false))
+					.setValue(value));
+		}
+		return points;
+	}
+}
@@ -0,0 +1,76 @@
+package gov.usgs.aqcu.loadtest;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap and garbage collection over the measured period. The application and the load clients share the JVM, so
+ * the figures include the (small) client overhead.
+ */
+public class JvmMonitor {
+	private static final long SAMPLE_MILLIS = 100;
+	private static final double MB = 1024 * 1024;
+
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+	private final Map<String, long[]> gcStart = new LinkedHashMap<>();
+	private final Map<String, long[]> gcEnd = new LinkedHashMap<>();
+	private ScheduledExecutorService sampler;
+	private volatile long maxHeapUsed;
+	private long heapSamples;
+	private long heapTotal;
+
+	public synchronized void start() {
+		gcStart.clear();
+		gcStart.putAll(collections());
+		maxHeapUsed = 0;
+		heapSamples = 0;
+		heapTotal = 0;
+		sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "jvm-monitor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		sampler.scheduleAtFixedRate(this::sample, 0, SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	public synchronized void stop() {
+		sampler.shutdownNow();
+		gcEnd.clear();
+		gcEnd.putAll(collections());
+	}
+
+	public synchronized void report(PrintStream out, double seconds) {
+		out.printf("Heap: max used %.1f MB, mean used %.1f MB, committed %.1f MB, max %.1f MB%n", maxHeapUsed / MB,
+				heapSamples == 0 ? 0 : heapTotal / heapSamples / MB, memory.getHeapMemoryUsage().getCommitted() / MB,
+				memory.getHeapMemoryUsage().getMax() / MB);
+		for (Map.Entry<String, long[]> collector : gcEnd.entrySet()) {
+			long[] start = gcStart.getOrDefault(collector.getKey(), new long[2]);
+			long collections = collector.getValue()[0] - start[0];
+			long millis = collector.getValue()[1] - start[1];
+			out.printf("GC %s: %d collections, %d ms (%.2f%% of wall time)%n", collector.getKey(), collections, millis,
+					seconds == 0 ? 0 : millis / (seconds * 10));
+		}
+	}
+
+	protected synchronized void sample() {
+		long used = memory.getHeapMemoryUsage().getUsed();
+		maxHeapUsed = Math.max(maxHeapUsed, used);
+		heapTotal += used;
+		heapSamples++;
+	}
+
+	protected static Map<String, long[]> collections() {
+		Map<String, long[]> collections = new LinkedHashMap<>();
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			collections.put(collector.getName(), new long[] {collector.getCollectionCount(), collector.getCollectionTime()});
+		}
+		return collections;
+	}
+}
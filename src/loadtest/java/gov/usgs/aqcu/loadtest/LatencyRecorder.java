@@ -0,0 +1,51 @@
+package gov.usgs.aqcu.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Response times of one scenario over the measured period.
+ */
+public class LatencyRecorder {
+	private long[] latencyNanos = new long[1024];
+	private int count;
+	private int errors;
+
+	public synchronized void record(long nanos, boolean success) {
+		if (count == latencyNanos.length) {
+			latencyNanos = Arrays.copyOf(latencyNanos, count * 2);
+		}
+		latencyNanos[count++] = nanos;
+		if (!success) {
+			errors++;
+		}
+	}
+
+	public synchronized int getCount() {
+		return count;
+	}
+	public synchronized int getErrors() {
+		return errors;
+	}
+
+	/**
+	 * Nearest rank percentile, in milliseconds, or 0 when nothing was recorded.
+	 */
+	public synchronized double percentileMillis(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		long[] sorted = Arrays.copyOf(latencyNanos, count);
+		Arrays.sort(sorted);
+		int rank = (int) Math.ceil(percentile / 100 * count);
+		return sorted[Math.max(rank, 1) - 1] / 1e6;
+	}
+
+	public synchronized void add(LatencyRecorder other) {
+		synchronized (other) {
+			for (int i = 0; i < other.count; i++) {
+				record(other.latencyNanos[i], true);
+			}
+			errors += other.errors;
+		}
+	}
+}
@@ -0,0 +1,328 @@
+package gov.usgs.aqcu.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import gov.usgs.aqcu.Application;
+
+/**
+ * End to end load test. Starts stub AQUARIUS, NWIS-RA and JavaToR servers replaying recorded responses (see
+ * {@link StubServer}) and a stub Water Auth, starts the application against them on a random port without SSL, and
+ * sends the report requests in the scenarios file from a fixed number of concurrent clients. After a warmup it
+ * reports throughput, p50/p99/max latency and errors per scenario, heap use and garbage collection.
+ * <p>
+ * Run with: mvn -Ploadtest test-compile exec:exec -Dloadtest.args="..." where the arguments are any of:
+ * <ul>
+ * <li>--loadtest.concurrency=10 - concurrent clients</li>
+ * <li>--loadtest.warmupSeconds=30 and --loadtest.durationSeconds=120</li>
+ * <li>--loadtest.scenarios=path - one request per line, "name path?query"; defaults to scenarios.txt on the
+ * classpath</li>
+ * <li>--loadtest.recordings=src/loadtest/recordings - with aquarius, nwisRa and javaToR subdirectories; the checked
+ * in recordings are synthetic (see {@link SyntheticRecordings}) and match the default scenarios</li>
+ * <li>--loadtest.aquariusLatencyMillis=200, --loadtest.nwisRaLatencyMillis=100, --loadtest.javaToRLatencyMillis=500
+ * and --loadtest.latencyJitterMillis=0 - stub response latency</li>
+ * <li>--loadtest.aquariusUpstream=url, --loadtest.nwisRaUpstream=url, --loadtest.javaToRUpstream=url - record from
+ * the real services instead of replaying: every combination of each scenario is requested once and the responses
+ * are written to the recordings (pass the real --aquariusServiceUser and --aquariusServicePassword as well)</li>
+ * </ul>
+ * All arguments are also passed to the application, so pools can be tuned per run, e.g. --hystrixThreadPoolSize=20
+ * or --reportBuilderThreadPoolSize=40.
+ */
+public class LoadTestRunner {
+	private static final Logger LOG = LoggerFactory.getLogger(LoadTestRunner.class);
+	private static final String PREFIX = "--loadtest.";
+	private static final String[] POOL_SETTINGS = {"hystrix.threadpool.default.coreSize",
+			"hystrix.threadpool.default.maxQueueSize", "reportBuilder.executor.coreSize", "reportBuilder.executor.maxSize",
+			"reportRequest.executor.poolSize", "fieldVisitData.executor.poolSize", "timeSeriesData.executor.poolSize",
+			"reportStreaming.executor.poolSize"};
+
+	private final Map<String, String> settings;
+	private final PrintStream out;
+
+	public LoadTestRunner(Map<String, String> settings, PrintStream out) {
+		this.settings = settings;
+		this.out = out;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> settings = new HashMap<>();
+		for (String arg : args) {
+			if (arg.startsWith(PREFIX) && arg.contains("=")) {
+				settings.put(arg.substring(PREFIX.length(), arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+			}
+		}
+		new LoadTestRunner(settings, System.out).run(args);
+		System.exit(0);
+	}
+
+	public void run(String[] args) throws Exception {
+		Path recordings = Paths.get(setting("recordings", "src/loadtest/recordings"));
+		long jitter = Long.parseLong(setting("latencyJitterMillis", "0"));
+		StubServer aquarius = new StubServer("aquarius", recordings.resolve("aquarius"),
+				Long.parseLong(setting("aquariusLatencyMillis", "200")), jitter, settings.get("aquariusUpstream")).start();
+		StubServer nwisRa = new StubServer("nwisRa", recordings.resolve("nwisRa"),
+				Long.parseLong(setting("nwisRaLatencyMillis", "100")), jitter, settings.get("nwisRaUpstream")).start();
+		StubServer javaToR = new StubServer("javaToR", recordings.resolve("javaToR"),
+				Long.parseLong(setting("javaToRLatencyMillis", "500")), jitter, settings.get("javaToRUpstream")).start();
+		StubAuthorizationServer authorization = new StubAuthorizationServer().start();
+
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("serverPort", "0");
+		properties.put("server.ssl.enabled", "false");
+		properties.put("security.require-ssl", "false");
+		properties.put("keystoreLocation", "");
+		properties.put("keystorePassword", "");
+		properties.put("aquariusServiceEndpoint", aquarius.getEndpoint());
+		properties.put("aquariusServiceUser", "loadtest");
+		properties.put("aquariusServicePassword", "loadtest");
+		properties.put("nwisRaServiceEndpoint", nwisRa.getEndpoint());
+		properties.put("javaToRServiceEndpoint", javaToR.getEndpoint());
+		properties.put("simsBaseUrl", "http://localhost/sims");
+		properties.put("waterdataBaseUrl", "http://localhost/waterdata");
+		properties.put("oauthResourceId", "loadtest");
+		properties.put("oauthResourceTokenKeyUri", authorization.getTokenKeyUri());
+
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class).properties(properties).run(args);
+		try {
+			Environment environment = context.getEnvironment();
+			String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+			String token = authorization.createToken("loadtest", environment.getProperty("security.oauth2.resource.id"), Duration.ofDays(1));
+			List<Scenario> scenarios = scenarios();
+
+			if (aquarius.isRecording() || nwisRa.isRecording() || javaToR.isRecording()) {
+				for (Scenario scenario : scenarios) {
+					for (String path : scenario.paths()) {
+						out.printf("Recorded %s %s: HTTP %d%n", scenario.name, path, send(baseUrl + path, token));
+					}
+				}
+				return;
+			}
+
+			int concurrency = Integer.parseInt(setting("concurrency", "10"));
+			long warmupSeconds = Long.parseLong(setting("warmupSeconds", "30"));
+			long durationSeconds = Long.parseLong(setting("durationSeconds", "120"));
+			out.printf("Load test: %d scenarios, %d clients, %d s warmup, %d s measured%n", scenarios.size(), concurrency,
+					warmupSeconds, durationSeconds);
+			for (String setting : POOL_SETTINGS) {
+				out.printf("  %s=%s%n", setting, environment.getProperty(setting));
+			}
+
+			drive(baseUrl, token, scenarios, concurrency, TimeUnit.SECONDS.toNanos(warmupSeconds), null);
+			JvmMonitor monitor = new JvmMonitor();
+			monitor.start();
+			long start = System.nanoTime();
+			drive(baseUrl, token, scenarios, concurrency, TimeUnit.SECONDS.toNanos(durationSeconds), monitor);
+			double seconds = (System.nanoTime() - start) / 1e9;
+			monitor.stop();
+
+			report(scenarios, seconds);
+			monitor.report(out, seconds);
+			for (StubServer stub : new StubServer[] {aquarius, nwisRa, javaToR}) {
+				out.printf("Stub %s: %d requests, %d without a recording%n", stub.getName(), stub.getRequests(), stub.getMisses());
+			}
+		} finally {
+			context.close();
+			aquarius.stop();
+			nwisRa.stop();
+			javaToR.stop();
+			authorization.stop();
+		}
+	}
+
+	/**
+	 * Sends the scenarios round robin from every client until the duration has passed, recording response times
+	 * only when measuring.
+	 */
+	protected void drive(String baseUrl, String token, List<Scenario> scenarios, int concurrency, long durationNanos,
+			JvmMonitor monitor) throws InterruptedException {
+		long deadline = System.nanoTime() + durationNanos;
+		AtomicLong next = new AtomicLong();
+		ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+		for (int i = 0; i < concurrency; i++) {
+			clients.execute(() -> {
+				while (System.nanoTime() < deadline) {
+					Scenario scenario = scenarios.get((int) (next.getAndIncrement() % scenarios.size()));
+					long requestStart = System.nanoTime();
+					int status = send(baseUrl + scenario.path(ThreadLocalRandom.current()), token);
+					if (monitor != null) {
+						scenario.latency.record(System.nanoTime() - requestStart, status == HttpURLConnection.HTTP_OK);
+					}
+				}
+			});
+		}
+		clients.shutdown();
+		clients.awaitTermination(durationNanos + TimeUnit.MINUTES.toNanos(15), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Requests the url and reads the whole response, returning the status or -1 when the request failed.
+	 */
+	protected int send(String url, String token) {
+		try {
+			HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+			connection.setRequestProperty("Authorization", "Bearer " + token);
+			connection.setConnectTimeout(10000);
+			connection.setReadTimeout((int) TimeUnit.MINUTES.toMillis(15));
+			int status = connection.getResponseCode();
+			InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+			if (in != null) {
+				try (InputStream body = in) {
+					StubServer.drain(body);
+				}
+			}
+			return status;
+		} catch (IOException e) {
+			LOG.warn("Request failed: " + url, e);
+			return -1;
+		}
+	}
+
+	protected void report(List<Scenario> scenarios, double seconds) {
+		Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+		for (Scenario scenario : scenarios) {
+			recorders.put(scenario.name, scenario.latency);
+		}
+		LatencyRecorder total = new LatencyRecorder();
+		out.printf("%-20s %8s %7s %9s %10s %10s %10s%n", "scenario", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms");
+		for (Map.Entry<String, LatencyRecorder> recorder : recorders.entrySet()) {
+			line(recorder.getKey(), recorder.getValue(), seconds);
+			total.add(recorder.getValue());
+		}
+		line("total", total, seconds);
+	}
+
+	protected void line(String name, LatencyRecorder latency, double seconds) {
+		out.printf("%-20s %8d %7d %9.2f %10.1f %10.1f %10.1f%n", name, latency.getCount(), latency.getErrors(),
+				latency.getCount() / seconds, latency.percentileMillis(50), latency.percentileMillis(99),
+				latency.percentileMillis(100));
+	}
+
+	/**
+	 * The scenarios file: one request per line as a name and a path with query string; blank lines and lines
+	 * starting with # are ignored. A scenario listed more than once is sent proportionally more often. The path may
+	 * hold choices, {a|b|c}, and integer ranges, {2016..2019}, picked at random for every request so that the load
+	 * reaches uncached series and windows; when recording every combination is requested once.
+	 */
+	protected List<Scenario> scenarios() throws IOException {
+		String file = settings.get("scenarios");
+		InputStream in = file == null ? LoadTestRunner.class.getResourceAsStream("/scenarios.txt") : Files.newInputStream(Paths.get(file));
+		if (in == null) {
+			throw new IllegalStateException("No scenarios.txt on the classpath; pass --loadtest.scenarios");
+		}
+		Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+		List<Scenario> scenarios = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] scenario = line.trim().split("\\s+", 2);
+				if (scenario.length == 2 && !scenario[0].startsWith("#")) {
+					scenarios.add(new Scenario(scenario[0], scenario[1], recorders.computeIfAbsent(scenario[0], x -> new LatencyRecorder())));
+				}
+			}
+		}
+		if (scenarios.isEmpty()) {
+			throw new IllegalStateException("No scenarios in " + (file == null ? "scenarios.txt" : file));
+		}
+		return scenarios;
+	}
+
+	protected String setting(String name, String defaultValue) {
+		return settings.getOrDefault(name, defaultValue);
+	}
+
+	protected static class Scenario {
+		private static final Pattern CHOICE = Pattern.compile("\\{([^{}]*)\\}");
+		private static final Pattern RANGE = Pattern.compile("(-?\\d+)\\.\\.(-?\\d+)");
+
+		private final String name;
+		private final List<String> parts = new ArrayList<>();
+		private final List<List<String>> choices = new ArrayList<>();
+		private final LatencyRecorder latency;
+
+		protected Scenario(String name, String path, LatencyRecorder latency) {
+			this.name = name;
+			this.latency = latency;
+			Matcher matcher = CHOICE.matcher(path);
+			int end = 0;
+			while (matcher.find()) {
+				parts.add(path.substring(end, matcher.start()));
+				choices.add(choices(matcher.group(1)));
+				end = matcher.end();
+			}
+			parts.add(path.substring(end));
+		}
+
+		/**
+		 * The path with a random pick from every choice.
+		 */
+		protected String path(Random random) {
+			StringBuilder path = new StringBuilder(parts.get(0));
+			for (int i = 0; i < choices.size(); i++) {
+				List<String> choice = choices.get(i);
+				path.append(choice.get(random.nextInt(choice.size()))).append(parts.get(i + 1));
+			}
+			return path.toString();
+		}
+
+		/**
+		 * Every combination of the choices.
+		 */
+		protected List<String> paths() {
+			List<String> paths = Collections.singletonList(parts.get(0));
+			for (int i = 0; i < choices.size(); i++) {
+				List<String> expanded = new ArrayList<>();
+				for (String path : paths) {
+					for (String choice : choices.get(i)) {
+						expanded.add(path + choice + parts.get(i + 1));
+					}
+				}
+				paths = expanded;
+			}
+			return paths;
+		}
+
+		private static List<String> choices(String choice) {
+			Matcher range = RANGE.matcher(choice);
+			if (range.matches()) {
+				List<String> choices = new ArrayList<>();
+				for (int i = Integer.parseInt(range.group(1)); i <= Integer.parseInt(range.group(2)); i++) {
+					choices.add(Integer.toString(i));
+				}
+				return choices;
+			}
+			return Arrays.asList(choice.split("\\|", -1));
+		}
+	}
+}
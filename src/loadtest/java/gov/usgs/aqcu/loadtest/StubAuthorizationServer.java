@@ -0,0 +1,85 @@
+package gov.usgs.aqcu.loadtest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.interfaces.RSAPrivateKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.security.jwt.JwtHelper;
+import org.springframework.security.jwt.crypto.sign.RsaSigner;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Stand-in for Water Auth: serves the public half of a generated RSA key from /oauth/token_key, where the resource
+ * server reads it at startup, and signs access tokens for the load test clients with the private half.
+ */
+public class StubAuthorizationServer {
+	public static final String TOKEN_KEY_PATH = "/oauth/token_key";
+
+	private final Gson gson = new Gson();
+	private KeyPair keyPair;
+	private HttpServer server;
+
+	public StubAuthorizationServer start() throws IOException, NoSuchAlgorithmException {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		keyPair = generator.generateKeyPair();
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext(TOKEN_KEY_PATH, this::tokenKey);
+		server.start();
+		return this;
+	}
+
+	public void stop() {
+		if (server != null) {
+			server.stop(0);
+		}
+	}
+
+	public String getTokenKeyUri() {
+		return "http://localhost:" + server.getAddress().getPort() + TOKEN_KEY_PATH;
+	}
+
+	/**
+	 * A signed access token for the user, accepted by a resource server with the given resource id.
+	 */
+	public String createToken(String user, String resourceId, Duration validity) {
+		Map<String, Object> claims = new LinkedHashMap<>();
+		claims.put("user_name", user);
+		claims.put("client_id", "loadtest");
+		claims.put("aud", Collections.singletonList(resourceId));
+		claims.put("scope", Collections.singletonList("read"));
+		claims.put("authorities", Collections.singletonList("ROLE_USER"));
+		claims.put("exp", Instant.now().plus(validity).getEpochSecond());
+		return JwtHelper.encode(gson.toJson(claims), new RsaSigner((RSAPrivateKey) keyPair.getPrivate())).getEncoded();
+	}
+
+	protected void tokenKey(HttpExchange exchange) throws IOException {
+		Map<String, String> tokenKey = new LinkedHashMap<>();
+		tokenKey.put("alg", "SHA256withRSA");
+		tokenKey.put("value", "-----BEGIN PUBLIC KEY-----\n"
+				+ Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(keyPair.getPublic().getEncoded())
+				+ "\n-----END PUBLIC KEY-----");
+		byte[] body = gson.toJson(tokenKey).getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+		exchange.close();
+	}
+}
@@ -0,0 +1,306 @@
+package gov.usgs.aqcu.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand-in for a downstream HTTP service. In replay mode it answers from recorded responses after a
+ * configurable latency; in record mode it proxies to the real service and records what it returns.
+ * <p>
+ * A recording is a .response body and a .properties file (status and contentType) under a directory named by the
+ * request path. The exact request (method and query string) is recorded under a hash of both, and the first
+ * response for a path is also recorded as default, which answers any request for that path without an exact
+ * recording (session POSTs, rendering requests). Recordings may be edited or written by hand: a hand written
+ * recording whose properties hold a match regular expression answers any request for its path whose decoded query
+ * string contains a match (recordings are tried in file name order), and a default recording also answers the
+ * paths below its directory that have no recording of their own.
+ */
+public class StubServer {
+	private static final Logger LOG = LoggerFactory.getLogger(StubServer.class);
+	private static final String DEFAULT_RECORDING = "default";
+	private static final String DEFAULT_CONTENT_TYPE = "application/json";
+	private static final String RESPONSE_SUFFIX = ".response";
+	private static final String PROPERTIES_SUFFIX = ".properties";
+
+	private final String name;
+	private final Path recordings;
+	private final long latencyMillis;
+	private final long latencyJitterMillis;
+	private final String upstream;
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final Map<Path, Map<Path, Pattern>> matchingRecordings = new ConcurrentHashMap<>();
+	private HttpServer server;
+	private ExecutorService executor;
+
+	/**
+	 * @param upstream base URL of the real service to record from, or null to replay
+	 */
+	public StubServer(String name, Path recordings, long latencyMillis, long latencyJitterMillis, String upstream) {
+		this.name = name;
+		this.recordings = recordings;
+		this.latencyMillis = latencyMillis;
+		this.latencyJitterMillis = latencyJitterMillis;
+		this.upstream = upstream;
+	}
+
+	public StubServer start() throws IOException {
+		executor = Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, name + "-stub");
+			thread.setDaemon(true);
+			return thread;
+		});
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		server.createContext("/", this::handle);
+		server.setExecutor(executor);
+		server.start();
+		LOG.info("{} stub {} at {}", name, isRecording() ? "recording from " + upstream : "replaying " + recordings, getEndpoint());
+		return this;
+	}
+
+	public void stop() {
+		if (server != null) {
+			server.stop(0);
+			executor.shutdownNow();
+		}
+	}
+
+	public String getEndpoint() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+	public String getName() {
+		return name;
+	}
+	public boolean isRecording() {
+		return upstream != null;
+	}
+	public long getRequests() {
+		return requests.get();
+	}
+	/**
+	 * Requests answered with 404 because there was no recording for them.
+	 */
+	public long getMisses() {
+		return misses.get();
+	}
+
+	protected void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		try {
+			Recording recording = isRecording() ? record(exchange) : replay(exchange);
+			exchange.getResponseHeaders().set("Content-Type", recording.contentType);
+			exchange.sendResponseHeaders(recording.status, recording.body.length == 0 ? -1 : recording.body.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(recording.body);
+			}
+		} catch (Exception e) {
+			LOG.warn(name + " stub failed on " + exchange.getRequestURI(), e);
+			exchange.sendResponseHeaders(500, -1);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	protected Recording replay(HttpExchange exchange) throws IOException, InterruptedException {
+		drain(exchange.getRequestBody());
+		long jitter = latencyJitterMillis > 0 ? ThreadLocalRandom.current().nextLong(latencyJitterMillis + 1) : 0;
+		Thread.sleep(latencyMillis + jitter);
+
+		Path directory = directory(exchange);
+		Path exact = directory.resolve(requestHash(exchange));
+		if (Files.exists(recordingBody(exact))) {
+			return read(exact);
+		}
+		String query = exchange.getRequestURI().getRawQuery() == null ? ""
+				: URLDecoder.decode(exchange.getRequestURI().getRawQuery(), StandardCharsets.UTF_8.name());
+		for (Map.Entry<Path, Pattern> matching : matching(directory).entrySet()) {
+			if (matching.getValue().matcher(query).find()) {
+				return read(matching.getKey());
+			}
+		}
+		for (Path parent = directory; parent != null && parent.startsWith(recordings); parent = parent.getParent()) {
+			Path fallback = parent.resolve(DEFAULT_RECORDING);
+			if (Files.exists(recordingBody(fallback))) {
+				return read(fallback);
+			}
+		}
+		misses.incrementAndGet();
+		LOG.warn("{} stub has no recording for {} {}", name, exchange.getRequestMethod(), exchange.getRequestURI());
+		return new Recording(404, "text/plain", ("No recording in " + directory).getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * The recordings of the directory with a match expression, in file name order. Read once per directory.
+	 */
+	protected Map<Path, Pattern> matching(Path directory) throws IOException {
+		Map<Path, Pattern> matching = matchingRecordings.get(directory);
+		if (matching == null) {
+			matching = new LinkedHashMap<>();
+			if (Files.isDirectory(directory)) {
+				List<Path> files;
+				try (Stream<Path> list = Files.list(directory)) {
+					files = list.filter(x -> x.getFileName().toString().endsWith(PROPERTIES_SUFFIX)).sorted().collect(Collectors.toList());
+				}
+				for (Path file : files) {
+					String match = properties(file).getProperty("match");
+					if (match != null) {
+						String name = file.getFileName().toString();
+						matching.put(file.resolveSibling(name.substring(0, name.length() - PROPERTIES_SUFFIX.length())),
+								Pattern.compile(match));
+					}
+				}
+			}
+			matchingRecordings.putIfAbsent(directory, matching);
+		}
+		return matching;
+	}
+
+	protected Recording record(HttpExchange exchange) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(upstream + exchange.getRequestURI()).openConnection();
+		connection.setRequestMethod(exchange.getRequestMethod());
+		for (Map.Entry<String, List<String>> header : exchange.getRequestHeaders().entrySet()) {
+			if (!header.getKey().equalsIgnoreCase("Host") && !header.getKey().equalsIgnoreCase("Content-Length")
+					&& !header.getKey().equalsIgnoreCase("Connection")) {
+				connection.setRequestProperty(header.getKey(), String.join(",", header.getValue()));
+			}
+		}
+		byte[] requestBody = drain(exchange.getRequestBody());
+		if (requestBody.length > 0) {
+			connection.setDoOutput(true);
+			try (OutputStream out = connection.getOutputStream()) {
+				out.write(requestBody);
+			}
+		}
+
+		int status = connection.getResponseCode();
+		InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+		byte[] body = in == null ? new byte[0] : drain(in);
+		String contentType = connection.getContentType() == null ? DEFAULT_CONTENT_TYPE : connection.getContentType();
+		Recording recording = new Recording(status, contentType, body);
+
+		Path directory = directory(exchange);
+		Files.createDirectories(directory);
+		write(directory.resolve(requestHash(exchange)), recording);
+		if (!Files.exists(recordingBody(directory.resolve(DEFAULT_RECORDING)))) {
+			write(directory.resolve(DEFAULT_RECORDING), recording);
+		}
+		return recording;
+	}
+
+	/**
+	 * Recording directory for the request path, one directory per path segment. Segments are restricted to file
+	 * name safe characters so a request cannot reach outside the recordings.
+	 */
+	protected Path directory(HttpExchange exchange) {
+		Path directory = recordings;
+		for (String segment : exchange.getRequestURI().getPath().split("/")) {
+			if (!segment.isEmpty()) {
+				String safe = segment.replaceAll("[^A-Za-z0-9._-]", "_");
+				directory = directory.resolve(safe.matches("\\.+") ? "_" : safe);
+			}
+		}
+		return directory;
+	}
+
+	protected static String requestHash(HttpExchange exchange) {
+		String request = exchange.getRequestMethod() + " " + (exchange.getRequestURI().getRawQuery() == null ? "" : exchange.getRequestURI().getRawQuery());
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+			StringBuilder hash = new StringBuilder();
+			for (int i = 0; i < 8; i++) {
+				hash.append(String.format("%02x", digest[i]));
+			}
+			return hash.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	protected static Recording read(Path recording) throws IOException {
+		Properties properties = properties(recordingProperties(recording));
+		return new Recording(Integer.parseInt(properties.getProperty("status", "200")),
+				properties.getProperty("contentType", DEFAULT_CONTENT_TYPE), Files.readAllBytes(recordingBody(recording)));
+	}
+
+	protected static Properties properties(Path propertiesFile) throws IOException {
+		Properties properties = new Properties();
+		if (Files.exists(propertiesFile)) {
+			try (Reader reader = Files.newBufferedReader(propertiesFile, StandardCharsets.UTF_8)) {
+				properties.load(reader);
+			}
+		}
+		return properties;
+	}
+
+	protected static void write(Path recording, Recording response) throws IOException {
+		Files.write(recordingBody(recording), response.body);
+		Properties properties = new Properties();
+		properties.setProperty("status", String.valueOf(response.status));
+		properties.setProperty("contentType", response.contentType);
+		try (Writer writer = Files.newBufferedWriter(recordingProperties(recording), StandardCharsets.UTF_8)) {
+			properties.store(writer, null);
+		}
+	}
+
+	protected static Path recordingBody(Path recording) {
+		return recording.resolveSibling(recording.getFileName() + RESPONSE_SUFFIX);
+	}
+
+	protected static Path recordingProperties(Path recording) {
+		return recording.resolveSibling(recording.getFileName() + PROPERTIES_SUFFIX);
+	}
+
+	protected static byte[] drain(InputStream in) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			out.write(buffer, 0, read);
+		}
+		return out.toByteArray();
+	}
+
+	protected static class Recording {
+		private final int status;
+		private final String contentType;
+		private final byte[] body;
+
+		protected Recording(int status, String contentType, byte[] body) {
+			this.status = status;
+			this.contentType = contentType;
+			this.body = body;
+		}
+	}
+}
@@ -0,0 +1,382 @@
+package gov.usgs.aqcu.loadtest;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.interfaces.RSAPublicKey;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Writes the synthetic recordings checked in under src/loadtest/recordings: the AQUARIUS Publish v2 responses for
+ * the time series in scenarios.txt and a JavaToR rendering, so that the load test runs without access to the real
+ * services. Every water year of every series has its own recording, matched by the series and the start of the
+ * requested window, and a per series fallback answers the windows that are not water years, so scenarios that
+ * vary the series and windows reach uncached data. The values are a seeded seasonal curve, so the output only
+ * changes when this class does. NWIS-RA is not part of the set: the scenarios that would call it exclude discrete
+ * data; record it from the real service with --loadtest.nwisRaUpstream instead.
+ * <p>
+ * Run from the project directory with the load test classpath, optionally passing the recordings directory.
+ */
+public class SyntheticRecordings {
+	private static final String PUBLISH = "aquarius/AQUARIUS/Publish/v2";
+	private static final String JSON = "application/json";
+	private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSSxxx");
+	private static final String LAST_MODIFIED = "2019-10-15T08:00:00.0000000-05:00";
+
+	private static final Site DV_SITE = new Site("01014000", "St. John River below Fish River at Fort Kent, Maine", -5);
+	private static final Site DV_SITE_2 = new Site("01013500", "Fish River near Fort Kent, Maine", -5);
+	private static final Site GW_SITE = new Site("454745068335201", "AR 27 Ashland, Maine", -5);
+
+	private static final List<Series> SERIES = Arrays.asList(
+			new Series("a4b7dc4b5bd24a61a6e8e2f0bd16b5b3", DV_SITE, "Discharge", "ft^3/s", "Mean", 2016, 2019, 9000, 8000),
+			new Series("e4ddc5cd2bea41a7b2e4e79d0d1b8a3d", DV_SITE, "Discharge", "ft^3/s", "Max", 2016, 2019, 11000, 9500),
+			new Series("3f9c2b1e6d8a4f0b9c7e5d3a1b2c4d6e", DV_SITE_2, "Discharge", "ft^3/s", "Mean", 2016, 2019, 1500, 1300),
+			new Series("8e1d4c7b2a5f4e3d9c6b0a1f2e3d4c5b", DV_SITE_2, "Discharge", "ft^3/s", "Min", 2016, 2019, 1100, 1000),
+			new Series("0d3c5f4c8f0e4b52a19a3b9f6f4d2e71", GW_SITE, "WaterLevel, BelowLSD", "ft", "Mean", 2015, 2019, 12, 3),
+			new Series("7c1f2e9a4b3d4c5e8f6a1b2c3d4e5f60", GW_SITE, "WaterLevel, BelowLSD", "ft", "Max", 2015, 2019, 13, 3));
+
+	private final Path recordings;
+	private final Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+
+	public SyntheticRecordings(Path recordings) {
+		this.recordings = recordings;
+	}
+
+	public static void main(String[] args) throws Exception {
+		new SyntheticRecordings(Paths.get(args.length > 0 ? args[0] : "src/loadtest/recordings")).write();
+	}
+
+	public void write() throws IOException, NoSuchAlgorithmException {
+		writeSession();
+		writeLists();
+		for (int i = 0; i < SERIES.size(); i += 2) {
+			writeDescriptions(SERIES.get(i), SERIES.get(i + 1));
+		}
+		for (Series series : SERIES) {
+			writeCorrectedData(series);
+		}
+		record("javaToR", "default", null, "text/html",
+				"<html><body><h1>Synthetic report</h1><p>Rendered by the load test JavaToR stub.</p></body></html>\n");
+	}
+
+	protected void writeSession() throws IOException, NoSuchAlgorithmException {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		SecureRandom random = SecureRandom.getInstance("SHA1PRNG");
+		random.setSeed(1L);
+		generator.initialize(2048, random);
+		RSAPublicKey key = (RSAPublicKey) generator.generateKeyPair().getPublic();
+		Map<String, Object> publicKey = new LinkedHashMap<>();
+		publicKey.put("KeySize", key.getModulus().bitLength());
+		publicKey.put("Xml", "<RSAKeyValue><Modulus>" + base64(key.getModulus()) + "</Modulus><Exponent>"
+				+ base64(key.getPublicExponent()) + "</Exponent></RSAKeyValue>");
+		publicKey.put("Base64", Base64.getEncoder().encodeToString(key.getEncoded()));
+		record(PUBLISH + "/session", "publickey/default", null, JSON, gson.toJson(publicKey));
+		record(PUBLISH + "/session", "default", null, "text/plain", "synthetic-session-token");
+		record("aquarius/AQUARIUS/apps/v1/version", "default", null, JSON, gson.toJson(map("ApiVersion", "19.4.0")));
+	}
+
+	protected void writeLists() throws IOException {
+		for (Site site : Arrays.asList(DV_SITE, DV_SITE_2, GW_SITE)) {
+			Map<String, Object> location = new LinkedHashMap<>();
+			location.put("Name", site.name);
+			location.put("Identifier", site.identifier);
+			location.put("UniqueId", uniqueId("location", site.identifier));
+			location.put("IsExternalLocation", false);
+			location.put("PrimaryFolder", "USGS.ME");
+			location.put("SecondaryFolders", list());
+			location.put("LastModified", LAST_MODIFIED);
+			location.put("Tags", list());
+			record(PUBLISH + "/GetLocationDescriptionList", site.identifier, "LocationIdentifier=" + Pattern.quote(site.identifier),
+					JSON, gson.toJson(map("LocationDescriptions", list(location))));
+		}
+
+		List<Map<String, Object>> parameters = new ArrayList<>();
+		parameters.add(parameter("Discharge", "00060", "ft^3/s", "Volumetric Flow"));
+		parameters.add(parameter("WaterLevel, BelowLSD", "72019", "ft", "Length"));
+		record(PUBLISH + "/GetParameterList", "default", null, JSON, gson.toJson(map("Parameters", parameters)));
+
+		Map<String, Object> qualifier = new LinkedHashMap<>();
+		qualifier.put("Identifier", "ESTIMATED");
+		qualifier.put("Code", "e");
+		qualifier.put("DisplayName", "Estimated");
+		qualifier.put("UniqueId", uniqueId("qualifier", "ESTIMATED"));
+		qualifier.put("LastModified", LAST_MODIFIED);
+		qualifier.put("LastModifiedBy", "admin");
+		record(PUBLISH + "/GetQualifierList", "default", null, JSON,
+				gson.toJson(map("Qualifiers", list(qualifier))));
+
+		record(PUBLISH + "/GetFieldVisitDescriptionList", "default", null, JSON,
+				gson.toJson(map("FieldVisitDescriptions", list())));
+
+		Map<String, Object> changes = new LinkedHashMap<>();
+		changes.put("TokenExpired", false);
+		changes.put("NextToken", LAST_MODIFIED);
+		changes.put("TimeSeriesUniqueIds", list());
+		record(PUBLISH + "/GetTimeSeriesUniqueIdList", "default", null, JSON, gson.toJson(changes));
+	}
+
+	/**
+	 * The descriptions of a primary and a statistic series: both together, as a cold request asks for them, and
+	 * each alone, as a request asks when the other is cached.
+	 */
+	protected void writeDescriptions(Series primary, Series statistic) throws IOException {
+		String directory = PUBLISH + "/GetTimeSeriesDescriptionListByUniqueId";
+		record(directory, primary.uniqueId + "-" + statistic.uniqueId,
+				"^(?=.*" + primary.uniqueId + ")(?=.*" + statistic.uniqueId + ")", JSON, descriptions(primary, statistic));
+		record(directory, primary.uniqueId, "^(?=.*" + primary.uniqueId + ")(?!.*" + statistic.uniqueId + ")", JSON,
+				descriptions(primary));
+		record(directory, statistic.uniqueId, "^(?=.*" + statistic.uniqueId + ")(?!.*" + primary.uniqueId + ")", JSON,
+				descriptions(statistic));
+	}
+
+	/**
+	 * A recording for every water year of the series, matched by the start of the window, and a fallback holding
+	 * the two water years before the last for any other window (the windows in scenarios.txt that are not water
+	 * years fall in them).
+	 */
+	protected void writeCorrectedData(Series series) throws IOException {
+		String directory = PUBLISH + "/GetTimeSeriesCorrectedData";
+		for (int waterYear = series.firstWaterYear; waterYear <= series.lastWaterYear; waterYear++) {
+			record(directory, series.uniqueId + "-" + waterYear, "^(?=.*" + series.uniqueId + ")(?=.*QueryFrom=[^&]*"
+					+ (waterYear - 1) + "-10-01)", JSON, correctedData(series, waterYear, waterYear));
+		}
+		record(directory, series.uniqueId + "-any", series.uniqueId, JSON,
+				correctedData(series, series.lastWaterYear - 2, series.lastWaterYear - 1));
+	}
+
+	protected String descriptions(Series... series) {
+		List<Map<String, Object>> descriptions = new ArrayList<>();
+		for (Series x : series) {
+			Map<String, Object> description = new LinkedHashMap<>();
+			description.put("Identifier", x.identifier());
+			description.put("UniqueId", x.uniqueId);
+			description.put("LocationIdentifier", x.site.identifier);
+			description.put("Label", x.computation);
+			description.put("Parameter", x.parameter);
+			description.put("Unit", x.unit);
+			description.put("UtcOffset", (double) x.site.utcOffsetHours);
+			description.put("UtcOffsetIsoDuration", (x.site.utcOffsetHours < 0 ? "-PT" : "PT") + Math.abs(x.site.utcOffsetHours) + "H");
+			description.put("ComputationIdentifier", x.computation);
+			description.put("ComputationPeriodIdentifier", "Daily");
+			description.put("SubLocationIdentifier", "");
+			description.put("TimeSeriesType", "ProcessorDerived");
+			description.put("Publish", true);
+			description.put("Description", "Daily " + x.computation.toLowerCase() + " " + x.parameter);
+			description.put("LastModified", LAST_MODIFIED);
+			description.put("RawStartTime", timestamp(LocalDate.of(x.firstWaterYear - 1, 10, 1), x.site));
+			description.put("RawEndTime", timestamp(LocalDate.of(x.lastWaterYear, 10, 1), x.site));
+			description.put("CorrectedStartTime", timestamp(LocalDate.of(x.firstWaterYear - 1, 10, 1), x.site));
+			description.put("CorrectedEndTime", timestamp(LocalDate.of(x.lastWaterYear, 10, 1), x.site));
+			description.put("ExtendedAttributes", list());
+			description.put("Thresholds", list());
+			descriptions.add(description);
+		}
+		return gson.toJson(map("TimeSeriesDescriptions", descriptions));
+	}
+
+	/**
+	 * Daily values from the start of the first water year to the end of the last. The last water year is working
+	 * data and the earlier ones are approved, and every winter has two weeks of estimated values.
+	 */
+	protected String correctedData(Series series, int firstWaterYear, int lastWaterYear) {
+		LocalDate start = LocalDate.of(firstWaterYear - 1, 10, 1);
+		LocalDate end = LocalDate.of(lastWaterYear, 10, 1);
+		LocalDate working = LocalDate.of(Math.max(firstWaterYear, series.lastWaterYear) - 1, 10, 1);
+		Random random = new Random(series.uniqueId.hashCode() * 31L + firstWaterYear);
+
+		List<Map<String, Object>> points = new ArrayList<>();
+		for (LocalDate day = start; day.isBefore(end); day = day.plusDays(1)) {
+			double season = Math.cos(2 * Math.PI * (day.getDayOfYear() - 120) / 365.25);
+			double value = Math.max(0, series.mean + series.amplitude * season * (0.8 + 0.4 * random.nextDouble()));
+			double rounded = series.mean < 100 ? Math.round(value * 100) / 100.0 : Math.round(value);
+			Map<String, Object> numeric = new LinkedHashMap<>();
+			numeric.put("Numeric", rounded);
+			numeric.put("Display", series.mean < 100 ? String.format(Locale.ROOT, "%.2f", rounded) : String.valueOf((long) rounded));
+			Map<String, Object> point = new LinkedHashMap<>();
+			point.put("Timestamp", timestamp(day, series.site));
+			point.put("Value", numeric);
+			points.add(point);
+		}
+
+		LocalDate approved = working.isBefore(end) ? working : end;
+		List<Map<String, Object>> approvals = new ArrayList<>();
+		if (start.isBefore(approved)) {
+			approvals.add(approval(1200, "Approved", start, approved, series.site));
+		}
+		if (approved.isBefore(end)) {
+			approvals.add(approval(900, "Working", start.isAfter(approved) ? start : approved, end, series.site));
+		}
+
+		List<Map<String, Object>> qualifiers = new ArrayList<>();
+		for (int waterYear = firstWaterYear; waterYear <= lastWaterYear; waterYear++) {
+			Map<String, Object> qualifier = new LinkedHashMap<>();
+			qualifier.put("Identifier", "ESTIMATED");
+			qualifier.put("StartTime", timestamp(LocalDate.of(waterYear, 1, 10), series.site));
+			qualifier.put("EndTime", timestamp(LocalDate.of(waterYear, 1, 24), series.site));
+			qualifier.put("DateApplied", LAST_MODIFIED);
+			qualifier.put("User", "hydrographer");
+			qualifiers.add(qualifier);
+		}
+
+		Map<String, Object> gapTolerance = new LinkedHashMap<>();
+		gapTolerance.put("StartTime", timestamp(start, series.site));
+		gapTolerance.put("EndTime", timestamp(end, series.site));
+		gapTolerance.put("ToleranceInMinutes", 1440.0);
+		Map<String, Object> interpolationType = new LinkedHashMap<>();
+		interpolationType.put("StartTime", timestamp(start, series.site));
+		interpolationType.put("EndTime", timestamp(end, series.site));
+		interpolationType.put("Type", "PrecedingTotals");
+		Map<String, Object> timeRange = new LinkedHashMap<>();
+		timeRange.put("StartTime", timestamp(start, series.site));
+		timeRange.put("EndTime", timestamp(end, series.site));
+
+		Map<String, Object> response = new LinkedHashMap<>();
+		response.put("UniqueId", series.uniqueId);
+		response.put("Parameter", series.parameter);
+		response.put("Label", series.computation);
+		response.put("LocationIdentifier", series.site.identifier);
+		response.put("Unit", series.unit);
+		response.put("NumPoints", points.size());
+		response.put("TimeRange", timeRange);
+		response.put("Approvals", approvals);
+		response.put("Qualifiers", qualifiers);
+		response.put("Methods", list());
+		response.put("Grades", list());
+		response.put("GapTolerances", list(gapTolerance));
+		response.put("InterpolationTypes", list(interpolationType));
+		response.put("Notes", list());
+		response.put("Points", points);
+		return gson.toJson(response);
+	}
+
+	protected Map<String, Object> approval(int level, String description, LocalDate start, LocalDate end, Site site) {
+		Map<String, Object> approval = new LinkedHashMap<>();
+		approval.put("ApprovalLevel", level);
+		approval.put("DateAppliedUtc", "2019-10-15T13:00:00.0000000Z");
+		approval.put("User", "hydrographer");
+		approval.put("LevelDescription", description);
+		approval.put("Comment", "");
+		approval.put("StartTime", timestamp(start, site));
+		approval.put("EndTime", timestamp(end, site));
+		return approval;
+	}
+
+	protected Map<String, Object> parameter(String identifier, String parameterId, String unit, String unitGroup) {
+		Map<String, Object> parameter = new LinkedHashMap<>();
+		parameter.put("Identifier", identifier);
+		parameter.put("DisplayName", identifier);
+		parameter.put("ParameterId", parameterId);
+		parameter.put("UnitIdentifier", unit);
+		parameter.put("UnitGroupIdentifier", unitGroup);
+		parameter.put("Interpolation", "InstantaneousValues");
+		parameter.put("RoundingSpec", "DEF");
+		parameter.put("UniqueId", uniqueId("parameter", identifier));
+		parameter.put("LastModified", LAST_MODIFIED);
+		parameter.put("LastModifiedBy", "admin");
+		return parameter;
+	}
+
+	/**
+	 * Writes a recording in the layout StubServer reads, with a match expression when given.
+	 */
+	protected void record(String directory, String name, String match, String contentType, String body) throws IOException {
+		Path recording = recordings.resolve(directory).resolve(name);
+		Files.createDirectories(recording.getParent());
+		Files.write(StubServer.recordingBody(recording), body.getBytes(StandardCharsets.UTF_8));
+		StringBuilder properties = new StringBuilder()
+				.append("status=200\n")
+				.append("contentType=").append(contentType).append('\n');
+		if (match != null) {
+			properties.append("match=").append(match.replace("\\", "\\\\")).append('\n');
+		}
+		Files.write(StubServer.recordingProperties(recording), properties.toString().getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * A mutable list, which Gson serializes without reflecting on the JDK's immutable collections.
+	 */
+	protected static List<Object> list(Object... values) {
+		return new ArrayList<>(Arrays.asList(values));
+	}
+
+	protected static Map<String, Object> map(String key, Object value) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put(key, value);
+		return map;
+	}
+
+	protected static String timestamp(LocalDate day, Site site) {
+		return day.atStartOfDay().atOffset(ZoneOffset.ofHours(site.utcOffsetHours)).format(TIMESTAMP);
+	}
+
+	protected static String uniqueId(String kind, String identifier) {
+		return String.format("%032x", new BigInteger(1, (kind + ":" + identifier).getBytes(StandardCharsets.UTF_8)))
+				.substring(0, 32);
+	}
+
+	protected static String base64(BigInteger value) {
+		byte[] bytes = value.toByteArray();
+		return Base64.getEncoder().encodeToString(bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes);
+	}
+
+	protected static class Site {
+		private final String identifier;
+		private final String name;
+		private final int utcOffsetHours;
+
+		protected Site(String identifier, String name, int utcOffsetHours) {
+			this.identifier = identifier;
+			this.name = name;
+			this.utcOffsetHours = utcOffsetHours;
+		}
+	}
+
+	protected static class Series {
+		private final String uniqueId;
+		private final Site site;
+		private final String parameter;
+		private final String unit;
+		private final String computation;
+		private final int firstWaterYear;
+		private final int lastWaterYear;
+		private final double mean;
+		private final double amplitude;
+
+		protected Series(String uniqueId, Site site, String parameter, String unit, String computation, int firstWaterYear,
+				int lastWaterYear, double mean, double amplitude) {
+			this.uniqueId = uniqueId;
+			this.site = site;
+			this.parameter = parameter;
+			this.unit = unit;
+			this.computation = computation;
+			this.firstWaterYear = firstWaterYear;
+			this.lastWaterYear = lastWaterYear;
+			this.mean = mean;
+			this.amplitude = amplitude;
+		}
+
+		protected String identifier() {
+			return parameter + "." + unit + "." + computation + "@" + site.identifier;
+		}
+	}
+}
@@ -1,64 +1,40 @@
 package gov.usgs.aqcu;
 
+import java.util.concurrent.Executor;
+
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AnonymousAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.validation.annotation.Validated;
-import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.google.gson.Gson;
 
+import gov.usgs.aqcu.builder.ReportBatchService;
 import gov.usgs.aqcu.builder.ReportBuilderService;
-import gov.usgs.aqcu.client.JavaToRClient;
-import gov.usgs.aqcu.model.DvHydrographReport;
+import gov.usgs.aqcu.builder.ReportJobService;
+import gov.usgs.aqcu.builder.ReportMetrics;
+import gov.usgs.aqcu.builder.ReportRenderService;
 import gov.usgs.aqcu.parameter.DvHydrographRequestParameters;
 
 @RestController
 @RequestMapping("/dvhydro")
-public class DVHydroController {
-	public static final String UNKNOWN_USERNAME = "unknown";
-	private Gson gson;
-	private ReportBuilderService reportBuilderService;
-	private JavaToRClient javaToRClient;
+public class DVHydroController extends DvHydrographReportController<DvHydrographRequestParameters> {
+	private static final String REPORT_TYPE = "dvhydrograph";
+	private static final String REPORT_TITLE = "DV Hydrograph";
+	private static final String JOB_TYPE = "dvhydro";
 
 	@Autowired
 	public DVHydroController(
 			ReportBuilderService reportBuilderService,
-			JavaToRClient javaToRClient,
-			Gson gson) {
-		this.reportBuilderService = reportBuilderService;
-		this.javaToRClient = javaToRClient;
-		this.gson = gson;
-	}
-
-	@GetMapping(produces={MediaType.TEXT_HTML_VALUE})
-	public ResponseEntity<?> getReport(@Validated DvHydrographRequestParameters requestParameters) {
-		String requestingUser = getRequestingUser();
-		DvHydrographReport report = reportBuilderService.buildReport(requestParameters, requestingUser, "DV Hydrograph");
-		byte[] reportHtml = javaToRClient.render(requestingUser, "dvhydrograph", gson.toJson(report, DvHydrographReport.class));
-		return new ResponseEntity<byte[]>(reportHtml, new HttpHeaders(), HttpStatus.OK);
-	}
-
-	@GetMapping(value="/rawData", produces={MediaType.APPLICATION_JSON_VALUE})
-	public ResponseEntity<String> getReportRawData(@Validated DvHydrographRequestParameters requestParameters) {
-		DvHydrographReport report = reportBuilderService.buildReport(requestParameters, getRequestingUser(), "DV Hydrograph");
-		return new ResponseEntity<String>(gson.toJson(report), new HttpHeaders(), HttpStatus.OK);
-	}
-
-	String getRequestingUser() {
-		String username = UNKNOWN_USERNAME;
-		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-		if (null != authentication && !(authentication instanceof AnonymousAuthenticationToken)) {
-			username= authentication.getName();
-		}
-		return username;
+			ReportRenderService reportRenderService,
+			ReportJobService reportJobService,
+			ReportBatchService reportBatchService,
+			ReportMetrics reportMetrics,
+			Gson gson,
+			@Qualifier("reportRequestExecutor") Executor reportRequestExecutor,
+			@Value("${rawDataETag.maxAgeMinutes}") long rawDataMaxAgeMinutes) {
+		super(REPORT_TYPE, REPORT_TITLE, JOB_TYPE, reportBuilderService, reportRenderService, reportJobService,
+				reportBatchService, reportMetrics, gson, reportRequestExecutor, rawDataMaxAgeMinutes);
 	}
-
 }
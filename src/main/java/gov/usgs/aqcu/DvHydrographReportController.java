@@ -0,0 +1,197 @@
+package gov.usgs.aqcu;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescription;
+import com.google.gson.Gson;
+
+import gov.usgs.aqcu.builder.ETags;
+import gov.usgs.aqcu.builder.ReportBatchService;
+import gov.usgs.aqcu.builder.ReportBuilderService;
+import gov.usgs.aqcu.builder.ReportJobService;
+import gov.usgs.aqcu.builder.ReportMetrics;
+import gov.usgs.aqcu.builder.ReportRenderService;
+import gov.usgs.aqcu.model.DvHydrographReport;
+import gov.usgs.aqcu.model.RenderedReport;
+import gov.usgs.aqcu.parameter.DvHydrographRequestParameters;
+import gov.usgs.aqcu.serializer.NdjsonReportBatchWriter;
+import gov.usgs.aqcu.serializer.ReportJsonWriter;
+import gov.usgs.aqcu.serializer.ZipReportBatchWriter;
+
+/**
+ * Endpoints shared by the reports built as a {@link DvHydrographReport}: the rendered report and its raw data, each
+ * served directly with an ETag, as a job and as a batch. Subclasses map them under their own path and supply the
+ * report type rendered by JavaToR, the title used by the report and its metrics, and the job type.
+ */
+public abstract class DvHydrographReportController<P extends DvHydrographRequestParameters> {
+	public static final String UNKNOWN_USERNAME = RequestingUser.UNKNOWN_USERNAME;
+	private final String reportType;
+	private final String reportTitle;
+	private final String jobType;
+	private Gson gson;
+	private ReportBuilderService reportBuilderService;
+	private ReportRenderService reportRenderService;
+	private ReportJobService reportJobService;
+	private ReportBatchService reportBatchService;
+	private ReportMetrics reportMetrics;
+	private Executor reportRequestExecutor;
+	private long rawDataMaxAgeMinutes;
+
+	protected DvHydrographReportController(
+			String reportType,
+			String reportTitle,
+			String jobType,
+			ReportBuilderService reportBuilderService,
+			ReportRenderService reportRenderService,
+			ReportJobService reportJobService,
+			ReportBatchService reportBatchService,
+			ReportMetrics reportMetrics,
+			Gson gson,
+			Executor reportRequestExecutor,
+			long rawDataMaxAgeMinutes) {
+		this.reportType = reportType;
+		this.reportTitle = reportTitle;
+		this.jobType = jobType;
+		this.reportBuilderService = reportBuilderService;
+		this.reportRenderService = reportRenderService;
+		this.reportJobService = reportJobService;
+		this.reportBatchService = reportBatchService;
+		this.reportMetrics = reportMetrics;
+		this.gson = gson;
+		this.reportRequestExecutor = reportRequestExecutor;
+		this.rawDataMaxAgeMinutes = rawDataMaxAgeMinutes;
+	}
+
+	@GetMapping(produces={MediaType.TEXT_HTML_VALUE})
+	public CompletableFuture<ResponseEntity<?>> getReport(@Validated P requestParameters,
+			@RequestHeader(value=HttpHeaders.IF_NONE_MATCH, required=false) String ifNoneMatch) {
+		String requestingUser = getRequestingUser();
+		return CompletableFuture.supplyAsync(() -> {
+			Map<String, TimeSeriesDescription> timeSeriesDescriptions = reportBuilderService.getTimeSeriesDescriptions(requestParameters, reportTitle);
+			HttpHeaders headers = new HttpHeaders();
+			String eTag = reportBuilderService.getReportETag(requestParameters, timeSeriesDescriptions, reportType, requestingUser);
+			if (eTag != null) {
+				headers.setETag(eTag);
+				if (ETags.matches(ifNoneMatch, eTag)) {
+					return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+				}
+			}
+			RenderedReport reportHtml = renderReport(
+					reportBuilderService.buildReport(requestParameters, timeSeriesDescriptions, requestingUser, reportTitle),
+					requestingUser, eTag == null ? ifNoneMatch : null);
+			if (eTag == null) {
+				headers.setETag(reportHtml.getETag());
+			}
+			if (reportHtml.isNotModified()) {
+				return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+			}
+			return new ResponseEntity<byte[]>(reportHtml.getHtml(), headers, HttpStatus.OK);
+		}, reportRequestExecutor);
+	}
+
+	@PostMapping(value="/jobs", produces={MediaType.APPLICATION_JSON_VALUE})
+	public ResponseEntity<String> submitReportJob(@Validated P requestParameters) {
+		String requestingUser = getRequestingUser();
+		return ReportJobController.accepted(reportJobService.submit(jobType, requestingUser, MediaType.TEXT_HTML_VALUE,
+				() -> renderReport(reportBuilderService.buildReport(requestParameters, requestingUser, reportTitle), requestingUser, null)
+						.getHtml()), gson);
+	}
+
+	@PostMapping(value="/batch", consumes={MediaType.APPLICATION_JSON_VALUE}, produces={ZipReportBatchWriter.MEDIA_TYPE})
+	public WebAsyncTask<Void> getReportBatch(@RequestBody List<P> requestParameters,
+			HttpServletResponse response) {
+		reportBatchService.validate(requestParameters);
+		String requestingUser = getRequestingUser();
+		SecurityContext securityContext = SecurityContextHolder.getContext();
+		StreamingResponseBody reports = x -> {
+			ZipReportBatchWriter<P> zip = new ZipReportBatchWriter<>(requestParameters,
+					DvHydrographRequestParameters::getPrimaryTimeseriesIdentifier, x);
+			reportBatchService.run(requestParameters,
+					y -> renderReport(reportBuilderService.buildReport(y, requestingUser, reportTitle), requestingUser, null).getHtml(),
+					securityContext, zip);
+			zip.finish();
+		};
+		return reportBatchService.stream(response, ZipReportBatchWriter.MEDIA_TYPE, reports);
+	}
+
+	@GetMapping(value="/rawData", produces={MediaType.APPLICATION_JSON_VALUE})
+	public CompletableFuture<ResponseEntity<StreamingResponseBody>> getReportRawData(@Validated P requestParameters,
+			@RequestHeader(value=HttpHeaders.IF_NONE_MATCH, required=false) String ifNoneMatch) {
+		String requestingUser = getRequestingUser();
+		return CompletableFuture.supplyAsync(() -> {
+			Map<String, TimeSeriesDescription> timeSeriesDescriptions = reportBuilderService.getTimeSeriesDescriptions(requestParameters, reportTitle);
+			HttpHeaders headers = new HttpHeaders();
+			String eTag = reportBuilderService.getRawDataETag(requestParameters, timeSeriesDescriptions);
+			if (eTag != null) {
+				headers.setETag(eTag);
+				headers.setCacheControl(CacheControl.maxAge(rawDataMaxAgeMinutes, TimeUnit.MINUTES).cachePrivate());
+				if (ETags.matches(ifNoneMatch, eTag)) {
+					return new ResponseEntity<StreamingResponseBody>(headers, HttpStatus.NOT_MODIFIED);
+				}
+			}
+			DvHydrographReport report = reportBuilderService.buildReport(requestParameters, timeSeriesDescriptions, requestingUser, reportTitle);
+			StreamingResponseBody reportJson = x -> reportMetrics.recordPayloadSize(reportTitle, ReportMetrics.JSON_PAYLOAD,
+					reportMetrics.recordWrite(reportTitle, ReportMetrics.SERIALIZATION, ReportMetrics.NO_SLOT,
+							() -> ReportJsonWriter.write(gson, report, DvHydrographReport.class, x)));
+			headers.setContentType(MediaType.APPLICATION_JSON);
+			return new ResponseEntity<StreamingResponseBody>(reportJson, headers, HttpStatus.OK);
+		}, reportRequestExecutor);
+	}
+
+	@PostMapping(value="/rawData/jobs", produces={MediaType.APPLICATION_JSON_VALUE})
+	public ResponseEntity<String> submitReportRawDataJob(@Validated P requestParameters) {
+		String requestingUser = getRequestingUser();
+		return ReportJobController.accepted(reportJobService.submit(jobType + "/rawData", requestingUser, MediaType.APPLICATION_JSON_VALUE,
+				() -> ReportJsonWriter.toByteArray(gson, reportBuilderService.buildReport(requestParameters, requestingUser, reportTitle),
+						DvHydrographReport.class)), gson);
+	}
+
+	@PostMapping(value="/rawData/batch", consumes={MediaType.APPLICATION_JSON_VALUE}, produces={NdjsonReportBatchWriter.MEDIA_TYPE})
+	public WebAsyncTask<Void> getReportRawDataBatch(@RequestBody List<P> requestParameters,
+			HttpServletResponse response) {
+		reportBatchService.validate(requestParameters);
+		String requestingUser = getRequestingUser();
+		SecurityContext securityContext = SecurityContextHolder.getContext();
+		StreamingResponseBody reports = x -> reportBatchService.run(requestParameters,
+				y -> reportBuilderService.buildReport(y, requestingUser, reportTitle), securityContext,
+				new NdjsonReportBatchWriter<>(gson, DvHydrographReport.class, requestParameters, DvHydrographRequestParameters::getRequestKey, x));
+		return reportBatchService.stream(response, NdjsonReportBatchWriter.MEDIA_TYPE, reports);
+	}
+
+	protected RenderedReport renderReport(DvHydrographReport report, String requestingUser, String ifNoneMatch) {
+		String reportJson = reportMetrics.record(reportTitle, ReportMetrics.SERIALIZATION, ReportMetrics.NO_SLOT,
+				() -> gson.toJson(report, DvHydrographReport.class));
+		reportMetrics.recordPayloadSize(reportTitle, ReportMetrics.JSON_PAYLOAD, ReportMetrics.utf8Length(reportJson));
+		RenderedReport rendered = reportRenderService.render(reportTitle, requestingUser, reportType, reportJson, ifNoneMatch);
+		if (!rendered.isNotModified()) {
+			reportMetrics.recordPayloadSize(reportTitle, ReportMetrics.HTML_PAYLOAD, rendered.getHtml().length);
+		}
+		return rendered;
+	}
+
+	String getRequestingUser() {
+		return RequestingUser.getName();
+	}
+
+}
@@ -0,0 +1,27 @@
+package gov.usgs.aqcu;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+/**
+ * Answers requests rejected by a saturated executor (the report request, report streaming or report batch streaming
+ * executor) with 503, as report job submissions to a full queue are.
+ */
+@ControllerAdvice
+public class RejectedExecutionExceptionHandler {
+	private static final Logger LOG = LoggerFactory.getLogger(RejectedExecutionExceptionHandler.class);
+
+	@ExceptionHandler(RejectedExecutionException.class)
+	public void handleRejectedExecution(RejectedExecutionException e, HttpServletResponse response) throws IOException {
+		LOG.warn("Report request rejected: {}", e.getMessage());
+		response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Report request queue is full");
+	}
+}
@@ -0,0 +1,97 @@
+package gov.usgs.aqcu;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.google.gson.Gson;
+
+import gov.usgs.aqcu.builder.ReportJobService;
+import gov.usgs.aqcu.model.ReportJob;
+
+@RestController
+@RequestMapping("/jobs")
+public class ReportJobController {
+	private Gson gson;
+	private ReportJobService reportJobService;
+	private long maxWaitMillis;
+
+	@Autowired
+	public ReportJobController(ReportJobService reportJobService,
+			@Value("${reportJob.maxWaitMillis}") long maxWaitMillis,
+			Gson gson) {
+		this.reportJobService = reportJobService;
+		this.maxWaitMillis = maxWaitMillis;
+		this.gson = gson;
+	}
+
+	/**
+	 * Returns the status of the job. With a wait, the response is held until the job finishes or the wait
+	 * (capped at reportJob.maxWaitMillis) runs out, whichever comes first.
+	 */
+	@GetMapping(value="/{id}", produces={MediaType.APPLICATION_JSON_VALUE})
+	public DeferredResult<ResponseEntity<String>> getJob(@PathVariable("id") String id,
+			@RequestParam(value="waitMillis", defaultValue="0") long waitMillis) {
+		ReportJob job = reportJobService.get(id, RequestingUser.getName());
+		long timeout = Math.max(1, Math.min(waitMillis, maxWaitMillis));
+		DeferredResult<ResponseEntity<String>> result = new DeferredResult<>(timeout);
+		if (job == null) {
+			result.setResult(ResponseEntity.notFound().build());
+		} else if (job.isDone() || waitMillis <= 0) {
+			result.setResult(status(job, HttpStatus.OK, gson));
+		} else {
+			result.onTimeout(() -> result.setResult(status(job, HttpStatus.OK, gson)));
+			job.getCompletion().thenAccept(x -> result.setResult(status(x, HttpStatus.OK, gson)));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the rendered report once the job has completed; until then responds 202 with the job status.
+	 */
+	@GetMapping(value="/{id}/result")
+	public ResponseEntity<?> getJobResult(@PathVariable("id") String id) {
+		ReportJob job = reportJobService.get(id, RequestingUser.getName());
+		if (job == null) {
+			return ResponseEntity.notFound().build();
+		}
+		switch (job.getStatus()) {
+			case COMPLETE:
+				HttpHeaders headers = new HttpHeaders();
+				headers.setContentType(MediaType.parseMediaType(job.getContentType()));
+				return new ResponseEntity<byte[]>(job.getResult(), headers, HttpStatus.OK);
+			case FAILED:
+				return status(job, HttpStatus.INTERNAL_SERVER_ERROR, gson);
+			default:
+				return status(job, HttpStatus.ACCEPTED, gson);
+		}
+	}
+
+	/**
+	 * 202 response for a newly submitted job, pointing at its status.
+	 */
+	public static ResponseEntity<String> accepted(ReportJob job, Gson gson) {
+		return ResponseEntity
+				.accepted()
+				.location(ServletUriComponentsBuilder.fromCurrentContextPath().path("/jobs/{id}").buildAndExpand(job.getId()).toUri())
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(gson.toJson(job, ReportJob.class));
+	}
+
+	static ResponseEntity<String> status(ReportJob job, HttpStatus status, Gson gson) {
+		return ResponseEntity
+				.status(status)
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(gson.toJson(job, ReportJob.class));
+	}
+}
@@ -0,0 +1,23 @@
+package gov.usgs.aqcu;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+final class RequestingUser {
+	static final String UNKNOWN_USERNAME = "unknown";
+
+	private RequestingUser() {}
+
+	/**
+	 * Name of the authenticated user of the current SecurityContext, or {@link #UNKNOWN_USERNAME} when anonymous.
+	 */
+	static String getName() {
+		String username = UNKNOWN_USERNAME;
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (null != authentication && !(authentication instanceof AnonymousAuthenticationToken)) {
+			username = authentication.getName();
+		}
+		return username;
+	}
+}
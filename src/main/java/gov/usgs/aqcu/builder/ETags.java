@@ -0,0 +1,41 @@
+package gov.usgs.aqcu.builder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import org.apache.commons.lang3.StringUtils;
+
+public final class ETags {
+
+	private ETags() {}
+
+	/**
+	 * URL safe Base64 SHA-256 hash of the input, usable as a cache key, file name or (quoted) entity tag.
+	 */
+	public static String hash(String input) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest(input.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Whether an If-None-Match header matches the entity tag: it lists the tag (weak or strong) or is "*".
+	 */
+	public static boolean matches(String ifNoneMatch, String eTag) {
+		if (StringUtils.isBlank(ifNoneMatch) || eTag == null) {
+			return false;
+		}
+		for (String tag : ifNoneMatch.split(",")) {
+			String candidate = StringUtils.removeStart(tag.trim(), "W/");
+			if ("*".equals(candidate) || eTag.equals(candidate)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,26 @@
+package gov.usgs.aqcu.builder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public final class Futures {
+
+	private Futures() {}
+
+	/**
+	 * Waits for the future and rethrows the exception raised by the task itself, so callers see the same
+	 * exceptions they would have seen had the retrieval been made on the calling thread.
+	 */
+	public static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			} else if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+}
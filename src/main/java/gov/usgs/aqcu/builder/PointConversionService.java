@@ -0,0 +1,34 @@
+package gov.usgs.aqcu.builder;
+
+import java.time.ZoneOffset;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import gov.usgs.aqcu.model.DvHydrographPointList;
+import gov.usgs.aqcu.util.AqcuTimeUtils;
+import gov.usgs.aqcu.util.DoubleWithDisplayUtil;
+
+/**
+ * Converts Aquarius time series points to DV Hydrograph points on the calling thread.
+ */
+@Service
+public class PointConversionService {
+
+	/**
+	 * Points without a numeric value are skipped.
+	 */
+	public DvHydrographPointList convert(List<TimeSeriesPoint> timeSeriesPoints, boolean isDaily, ZoneOffset zoneOffset) {
+		DvHydrographPointList dvPoints = new DvHydrographPointList(isDaily, timeSeriesPoints.size());
+		for (TimeSeriesPoint x : timeSeriesPoints) {
+			if (x.getValue().getNumeric() != null) {
+				dvPoints.add(AqcuTimeUtils.getTemporal(x.getTimestamp(), isDaily, zoneOffset),
+						DoubleWithDisplayUtil.getRoundedValue(x.getValue()));
+			}
+		}
+		dvPoints.trimToSize();
+		return dvPoints;
+	}
+}
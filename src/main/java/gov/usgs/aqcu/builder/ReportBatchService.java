@@ -0,0 +1,261 @@
+package gov.usgs.aqcu.builder;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Builds the reports of a batch request on the report batch executor, whose pool size bounds how many reports are
+ * built at once across all batches, and hands each result to a writer as soon as it completes. Each batch keeps at
+ * most reportBatch.maxConcurrentReports reports in flight, so one large batch cannot fill the executor's queue
+ * ahead of the others, and reports not written within reportBatch.timeoutSeconds are written as timed out. Batch
+ * responses are written on their own report batch streaming executor, whose pool size bounds how many batches are
+ * written at once, so long running batches do not hold the threads streaming rawData responses.
+ */
+@Service
+public class ReportBatchService {
+	private static final Logger LOG = LoggerFactory.getLogger(ReportBatchService.class);
+	/** Time allowed on top of the batch timeout for writing the timed out reports and finishing the response. */
+	private static final long WRITE_GRACE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+	private Executor reportBatchExecutor;
+	private AsyncTaskExecutor reportBatchStreamingExecutor;
+	private Validator validator;
+	private int maxReports;
+	private int maxConcurrentReports;
+	private long timeoutSeconds;
+
+	@Autowired
+	public ReportBatchService(@Qualifier("reportBatchExecutor") Executor reportBatchExecutor,
+			@Qualifier("reportBatchStreamingExecutor") AsyncTaskExecutor reportBatchStreamingExecutor, Validator validator,
+			@Value("${reportBatch.maxReports}") int maxReports,
+			@Value("${reportBatch.maxConcurrentReports}") int maxConcurrentReports,
+			@Value("${reportBatch.timeoutSeconds}") long timeoutSeconds) {
+		this.reportBatchExecutor = reportBatchExecutor;
+		this.reportBatchStreamingExecutor = reportBatchStreamingExecutor;
+		this.validator = validator;
+		this.maxReports = maxReports;
+		this.maxConcurrentReports = maxConcurrentReports;
+		this.timeoutSeconds = timeoutSeconds;
+	}
+
+	public interface ResultWriter<T> {
+		/**
+		 * Called in completion order, on the thread running the batch, with either the result or the exception
+		 * raised building it.
+		 */
+		void write(int index, T result, Exception error) throws IOException;
+	}
+
+	/**
+	 * Responds 400 when the batch is empty, larger than reportBatch.maxReports or holds an invalid request, so a
+	 * batch is rejected before any report is built.
+	 */
+	public void validate(List<?> requests) {
+		if (requests == null || requests.isEmpty() || requests.size() > maxReports) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A batch must hold between 1 and " + maxReports + " reports");
+		}
+		for (int i = 0; i < requests.size(); i++) {
+			Set<ConstraintViolation<Object>> violations = validator.validate(requests.get(i));
+			if (!violations.isEmpty()) {
+				String message = violations.stream()
+						.map(x -> x.getPropertyPath() + " " + x.getMessage())
+						.sorted()
+						.collect(Collectors.joining(", "));
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Report " + i + " of batch is invalid: " + message);
+			}
+		}
+	}
+
+	/**
+	 * Responds 200 with the content type and streams the body on the report batch streaming executor. The async
+	 * request times out with the batch (reportBatch.timeoutSeconds) rather than with
+	 * spring.mvc.async.request-timeout. When it times out or fails (e.g. the client went away) the body's stream is
+	 * closed, so the writer stops at its next write instead of going on with a response nobody reads, and its
+	 * builds are cancelled.
+	 */
+	public WebAsyncTask<Void> stream(HttpServletResponse response, String contentType, StreamingResponseBody body) {
+		response.setStatus(HttpStatus.OK.value());
+		response.setContentType(contentType);
+		BodyOutputStream outputStream = new BodyOutputStream(response);
+		WebAsyncTask<Void> task = new WebAsyncTask<>(TimeUnit.SECONDS.toMillis(timeoutSeconds) + WRITE_GRACE_MILLIS,
+				reportBatchStreamingExecutor, () -> {
+					try {
+						body.writeTo(outputStream);
+						response.flushBuffer();
+					} finally {
+						outputStream.close();
+					}
+					return null;
+				});
+		task.onTimeout(() -> {
+			LOG.warn("Report batch response timed out, closing it");
+			outputStream.close();
+			return null;
+		});
+		task.onError(() -> {
+			LOG.warn("Report batch response failed, closing it");
+			outputStream.close();
+			return null;
+		});
+		return task;
+	}
+
+	/**
+	 * The response stream a batch is written to. Once closed, by the batch finishing or by its async request timing
+	 * out or failing, writes fail with an IOException, which ends the batch.
+	 */
+	protected static class BodyOutputStream extends FilterOutputStream {
+		private final HttpServletResponse response;
+		private boolean closed;
+
+		protected BodyOutputStream(HttpServletResponse response) {
+			super(null);
+			this.response = response;
+		}
+
+		@Override
+		public synchronized void write(int b) throws IOException {
+			stream().write(b);
+		}
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) throws IOException {
+			stream().write(b, off, len);
+		}
+
+		@Override
+		public synchronized void flush() throws IOException {
+			stream().flush();
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			if (!closed) {
+				closed = true;
+				if (out != null) {
+					out.close();
+				}
+			}
+		}
+
+		public synchronized boolean isClosed() {
+			return closed;
+		}
+
+		private OutputStream stream() throws IOException {
+			if (closed) {
+				throw new IOException("Report batch response is closed");
+			}
+			if (out == null) {
+				out = response.getOutputStream();
+			}
+			return out;
+		}
+	}
+
+	/**
+	 * Builds every request and writes the results as they complete. Builds run with the given security context,
+	 * that of the user who made the batch request, as the writer usually runs on a thread without one. Builds
+	 * still running when the batch returns, fails or times out are cancelled.
+	 */
+	public <P, T> void run(List<P> requests, Function<P, T> build, SecurityContext securityContext,
+			ResultWriter<T> writer) throws IOException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+		CompletionService<T> completionService = new ExecutorCompletionService<>(reportBatchExecutor);
+		Map<Future<T>, Integer> inFlight = new HashMap<>();
+		int submitted = 0;
+		try {
+			for (; submitted < Math.min(maxConcurrentReports, requests.size()); submitted++) {
+				submit(completionService, requests, submitted, build, securityContext, inFlight);
+			}
+
+			for (int i = 0; i < requests.size(); i++) {
+				Future<T> completed = poll(completionService, deadline);
+				if (completed == null) {
+					writeTimedOut(inFlight, submitted, requests.size(), writer);
+					return;
+				}
+				int index = inFlight.remove(completed);
+				if (submitted < requests.size()) {
+					submit(completionService, requests, submitted++, build, securityContext, inFlight);
+				}
+				write(index, completed, writer);
+			}
+		} finally {
+			inFlight.keySet().forEach(x -> x.cancel(true));
+		}
+	}
+
+	private <P, T> void submit(CompletionService<T> completionService, List<P> requests, int index,
+			Function<P, T> build, SecurityContext securityContext, Map<Future<T>, Integer> inFlight) {
+		P request = requests.get(index);
+		inFlight.put(completionService.submit(DelegatingSecurityContextCallable.create(() -> build.apply(request),
+				securityContext)), index);
+	}
+
+	private static <T> void write(int index, Future<T> completed, ResultWriter<T> writer) throws IOException {
+		try {
+			writer.write(index, completed.get(), null);
+		} catch (ExecutionException e) {
+			LOG.warn("Report " + index + " of batch failed", e.getCause());
+			writer.write(index, null, e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted writing report batch", e);
+		}
+	}
+
+	private <T> void writeTimedOut(Map<Future<T>, Integer> inFlight, int submitted, int size,
+			ResultWriter<T> writer) throws IOException {
+		SortedSet<Integer> timedOut = new TreeSet<>(inFlight.values());
+		IntStream.range(submitted, size).forEach(timedOut::add);
+		LOG.warn("{} reports of batch timed out after {} seconds", timedOut.size(), timeoutSeconds);
+		for (int index : timedOut) {
+			writer.write(index, null, new TimeoutException("Report batch timed out after " + timeoutSeconds + " seconds"));
+		}
+	}
+
+	private static <T> Future<T> poll(CompletionService<T> completionService, long deadline) throws IOException {
+		try {
+			return completionService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted building report batch", e);
+		}
+	}
+}
@@ -2,15 +2,19 @@ package gov.usgs.aqcu.builder;
 
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -18,7 +22,7 @@ import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Fiel
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.FieldVisitDescription;
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.LocationDescription;
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.ParameterMetadata;
-import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.QualifierMetadata;
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescription;
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
@@ -29,21 +33,26 @@ import gov.usgs.aqcu.model.DvHydrographReport;
 import gov.usgs.aqcu.model.DvHydrographReportMetadata;
 import gov.usgs.aqcu.model.FieldVisitMeasurement;
 import gov.usgs.aqcu.model.InstantRange;
+import gov.usgs.aqcu.model.MinMaxData;
 import gov.usgs.aqcu.model.TimeSeriesCorrectedData;
 import gov.usgs.aqcu.model.nwis.GroundWaterParameter;
-import gov.usgs.aqcu.model.nwis.ParameterRecord;
+import gov.usgs.aqcu.model.nwis.WaterLevelRecord;
+import gov.usgs.aqcu.model.nwis.WaterQualitySampleRecord;
 import gov.usgs.aqcu.parameter.DvHydrographRequestParameters;
-import gov.usgs.aqcu.retrieval.FieldVisitDataService;
+import gov.usgs.aqcu.retrieval.FieldVisitDataCacheService;
 import gov.usgs.aqcu.retrieval.FieldVisitDescriptionService;
-import gov.usgs.aqcu.retrieval.LocationDescriptionListService;
+import gov.usgs.aqcu.retrieval.InFlightRequestRegistry;
+import gov.usgs.aqcu.retrieval.LocationDescriptionCacheService;
+import gov.usgs.aqcu.retrieval.NwisParameterIndexService;
 import gov.usgs.aqcu.retrieval.NwisRaService;
 import gov.usgs.aqcu.retrieval.ParameterListService;
-import gov.usgs.aqcu.retrieval.QualifierLookupService;
-import gov.usgs.aqcu.retrieval.TimeSeriesDataService;
+import gov.usgs.aqcu.retrieval.ParameterMetadataCacheService;
+import gov.usgs.aqcu.retrieval.QualifierMetadataCacheService;
+import gov.usgs.aqcu.retrieval.TimeSeriesDataCacheService;
+import gov.usgs.aqcu.retrieval.TimeSeriesDataKey;
 import gov.usgs.aqcu.retrieval.TimeSeriesDescriptionService;
 import gov.usgs.aqcu.util.AqcuReportUtils;
 import gov.usgs.aqcu.util.AqcuTimeUtils;
-import gov.usgs.aqcu.util.DoubleWithDisplayUtil;
 import gov.usgs.aqcu.util.LogExecutionTime;
 import gov.usgs.aqcu.util.TimeSeriesUtils;
 
@@ -53,17 +62,25 @@ public class ReportBuilderService {
 	protected static final String ESTIMATED_QUALIFIER_VALUE = "ESTIMATED";
 	protected static final String VOLUMETRIC_FLOW_UNIT_GROUP_VALUE = "Volumetric Flow";
 	private static final String DISCHARGE_PARAMETER = "Discharge";
+	private static final String PRIMARY_SLOT = "primary";
 
 	private DataGapListBuilderService dataGapListBuilderService;
-	private FieldVisitDataService fieldVisitDataService;
+	private FieldVisitDataCacheService fieldVisitDataCacheService;
 	private FieldVisitMeasurementsBuilderService fieldVisitMeasurementsBuilderService;
 	private FieldVisitDescriptionService fieldVisitDescriptionService;
-	private LocationDescriptionListService locationDescriptionListService;
+	private InFlightRequestRegistry inFlightRequestRegistry;
+	private LocationDescriptionCacheService locationDescriptionCacheService;
 	private NwisRaService nwisRaService;
+	private NwisParameterIndexService nwisParameterIndexService;
 	private ParameterListService parameterListService;
-	private QualifierLookupService qualifierLookupService;
-	private TimeSeriesDataService timeSeriesDataService;
+	private ParameterMetadataCacheService parameterMetadataCacheService;
+	private PointConversionService pointConversionService;
+	private QualifierMetadataCacheService qualifierMetadataCacheService;
+	private ReportMetrics reportMetrics;
+	private TimeSeriesDataCacheService timeSeriesDataCacheService;
 	private TimeSeriesDescriptionService timeSeriesDescriptionService;
+	private Executor reportBuilderExecutor;
+	private Executor fieldVisitDataExecutor;
 
 	@Value("${sims.base.url}")
 	private String simsUrl;
@@ -72,34 +89,61 @@ public class ReportBuilderService {
 
 	@Autowired
 	public ReportBuilderService(DataGapListBuilderService dataGapListBuilderService,
-			FieldVisitDataService fieldVisitDataService, FieldVisitDescriptionService fieldVisitDescriptionService,
+			FieldVisitDataCacheService fieldVisitDataCacheService, FieldVisitDescriptionService fieldVisitDescriptionService,
 			FieldVisitMeasurementsBuilderService fieldVisitMeasurementsBuilderService, 
-			LocationDescriptionListService locationDescriptionListService, NwisRaService nwisRaService,
-			ParameterListService parameterListService, QualifierLookupService qualifierLookupService,
-			TimeSeriesDataService timeSeriesDataService, TimeSeriesDescriptionService timeSeriesDescriptionService
+			InFlightRequestRegistry inFlightRequestRegistry,
+			LocationDescriptionCacheService locationDescriptionCacheService, NwisRaService nwisRaService,
+			NwisParameterIndexService nwisParameterIndexService,
+			ParameterListService parameterListService, ParameterMetadataCacheService parameterMetadataCacheService,
+			PointConversionService pointConversionService,
+			QualifierMetadataCacheService qualifierMetadataCacheService, ReportMetrics reportMetrics,
+			TimeSeriesDataCacheService timeSeriesDataCacheService,
+			TimeSeriesDescriptionService timeSeriesDescriptionService,
+			@Qualifier("reportBuilderExecutor") Executor reportBuilderExecutor,
+			@Qualifier("fieldVisitDataExecutor") Executor fieldVisitDataExecutor
 	) {
 		this.dataGapListBuilderService = dataGapListBuilderService;
-		this.fieldVisitDataService = fieldVisitDataService;
+		this.fieldVisitDataCacheService = fieldVisitDataCacheService;
 		this.fieldVisitDescriptionService = fieldVisitDescriptionService;
 		this.fieldVisitMeasurementsBuilderService = fieldVisitMeasurementsBuilderService;
-		this.locationDescriptionListService = locationDescriptionListService;
+		this.inFlightRequestRegistry = inFlightRequestRegistry;
+		this.locationDescriptionCacheService = locationDescriptionCacheService;
 		this.nwisRaService = nwisRaService;
+		this.nwisParameterIndexService = nwisParameterIndexService;
 		this.parameterListService = parameterListService;
-		this.qualifierLookupService = qualifierLookupService;
-		this.timeSeriesDataService = timeSeriesDataService;
+		this.parameterMetadataCacheService = parameterMetadataCacheService;
+		this.pointConversionService = pointConversionService;
+		this.qualifierMetadataCacheService = qualifierMetadataCacheService;
+		this.reportMetrics = reportMetrics;
+		this.timeSeriesDataCacheService = timeSeriesDataCacheService;
 		this.timeSeriesDescriptionService = timeSeriesDescriptionService;
+		this.reportBuilderExecutor = reportBuilderExecutor;
+		this.fieldVisitDataExecutor = fieldVisitDataExecutor;
 	}
 
 	@LogExecutionTime
 	public DvHydrographReport buildReport(DvHydrographRequestParameters requestParameters, String requestingUser, String title) {
+		return buildReport(requestParameters, getTimeSeriesDescriptions(requestParameters, title), requestingUser, title);
+	}
+
+	/**
+	 * Builds the report from time series descriptions already retrieved for the request, e.g. to compute its ETag.
+	 * Each stage is timed through {@link ReportMetrics}, tagged with the title as the report.
+	 */
+	@LogExecutionTime
+	public DvHydrographReport buildReport(DvHydrographRequestParameters requestParameters,
+			Map<String, TimeSeriesDescription> timeSeriesDescriptions, String requestingUser, String title) {
+		return reportMetrics.record(title, ReportMetrics.BUILD, ReportMetrics.NO_SLOT,
+				() -> build(requestParameters, timeSeriesDescriptions, requestingUser, title));
+	}
+
+	protected DvHydrographReport build(DvHydrographRequestParameters requestParameters,
+			Map<String, TimeSeriesDescription> timeSeriesDescriptions, String requestingUser, String title) {
 		DvHydrographReport dvHydroReport = new DvHydrographReport();
 
-		LOG.debug("Get time series descriptions from Aquarius");
-		Map<String, TimeSeriesDescription> timeSeriesDescriptions = timeSeriesDescriptionService
-				.getTimeSeriesDescriptions(requestParameters);
-		
 		LOG.debug("Get time series descriptions from parameter list service");
-		Map<String, ParameterMetadata> parameterMetadata = parameterListService.getParameterMetadata();
+		CompletableFuture<Map<String, ParameterMetadata>> parameterMetadata = supplyAsync(() -> reportMetrics.record(title,
+				ReportMetrics.PARAMETER_METADATA, ReportMetrics.NO_SLOT, parameterMetadataCacheService::getParameterMetadata));
 
 		LOG.debug("Get primary time series description");
 		TimeSeriesDescription primarySeriesDescription = timeSeriesDescriptions.get(requestParameters.getPrimaryTimeseriesIdentifier());
@@ -107,147 +151,190 @@ public class ReportBuilderService {
 		String primarySeriesParameter = primarySeriesDescription.getParameter().toString();
 		GroundWaterParameter primarySeriesGwParam = GroundWaterParameter.getByDisplayName(primarySeriesParameter);
 		
-		LOG.debug("Get primary time series data");
-		TimeSeriesDataServiceResponse primarySeriesDataResponse = timeSeriesDataService.get(
-			requestParameters.getPrimaryTimeseriesIdentifier(), requestParameters, primarySeriesZoneOffset, 
-			TimeSeriesUtils.isDailyTimeSeries(primarySeriesDescription), false, true, null
-		);
-		
-		LOG.debug("Set report metadata");
-		dvHydroReport.setReportMetadata(createDvHydroMetadata(requestParameters, timeSeriesDescriptions,
-				primarySeriesDescription, primarySeriesDataResponse, requestingUser, primarySeriesGwParam, title));
-
-		LOG.debug("Get primary time series qualifiers");
-		dvHydroReport.setPrimarySeriesQualifiers(primarySeriesDataResponse.getQualifiers());
-		
-		LOG.debug("Get primary time series approvals");
-		dvHydroReport.setPrimarySeriesApprovals(primarySeriesDataResponse.getApprovals());
-		
-		LOG.debug("Get primary time series points");
-		if (primarySeriesDataResponse.getPoints() != null) {
-			dvHydroReport.setMaxMinData(TimeSeriesUtils.getMinMaxData(primarySeriesDataResponse.getPoints()));
-		}
-
-		if (StringUtils.isNotBlank(requestParameters.getFirstStatDerivedIdentifier())) {
-			LOG.debug("Set first stat-derived time series data");
-			dvHydroReport.setFirstStatDerived(buildTimeSeriesCorrectedData(timeSeriesDescriptions,
-					requestParameters.getFirstStatDerivedIdentifier(), requestParameters, parameterMetadata));
-		}
-
-		if (StringUtils.isNotBlank(requestParameters.getSecondStatDerivedIdentifier())) {
-			LOG.debug("Set second stat-derived time series data");
-			dvHydroReport.setSecondStatDerived(buildTimeSeriesCorrectedData(timeSeriesDescriptions,
-					requestParameters.getSecondStatDerivedIdentifier(), requestParameters, parameterMetadata));
-		}
+		LOG.debug("Get primary location description");
+		CompletableFuture<LocationDescription> locationDescription = supplyAsync(() -> reportMetrics.record(title,
+				ReportMetrics.LOCATION_DESCRIPTION, ReportMetrics.NO_SLOT,
+				() -> locationDescriptionCacheService.getByLocationIdentifier(primarySeriesDescription.getLocationIdentifier())));
 
-		if (StringUtils.isNotBlank(requestParameters.getThirdStatDerivedIdentifier())) {
-			LOG.debug("Set their stat-derived time series data");
-			dvHydroReport.setThirdStatDerived(buildTimeSeriesCorrectedData(timeSeriesDescriptions,
-					requestParameters.getThirdStatDerivedIdentifier(), requestParameters, parameterMetadata));
-		}
-
-		if (StringUtils.isNotBlank(requestParameters.getFourthStatDerivedIdentifier())) {
-			LOG.debug("Set fourth stat-derived time series data");
-			dvHydroReport.setFourthStatDerived(buildTimeSeriesCorrectedData(timeSeriesDescriptions,
-					requestParameters.getFourthStatDerivedIdentifier(), requestParameters, parameterMetadata));
+		LOG.debug("Get primary time series data");
+		TimeSeriesFetchPlan fetchPlan = new TimeSeriesFetchPlan();
+		CompletableFuture<TimeSeriesDataServiceResponse> primarySeriesDataResponse = getTimeSeriesData(fetchPlan,
+				primarySeriesDescription, requestParameters.getPrimaryTimeseriesIdentifier(), requestParameters,
+				primarySeriesZoneOffset, TimeSeriesUtils.isDailyTimeSeries(primarySeriesDescription), title, PRIMARY_SLOT);
+
+		CompletableFuture<MinMaxData> primarySeriesMinMax = primarySeriesDataResponse.thenApplyAsync(
+				x -> x.getPoints() != null ? reportMetrics.record(title, ReportMetrics.MIN_MAX, PRIMARY_SLOT,
+						() -> TimeSeriesUtils.getMinMaxData(x.getPoints())) : null, reportBuilderExecutor);
+
+		LOG.debug("Get primary time series qualifier metadata");
+		CompletableFuture<Map<String, QualifierMetadata>> qualifierMetadata = primarySeriesDataResponse.thenApplyAsync(
+				x -> reportMetrics.record(title, ReportMetrics.QUALIFIER_METADATA, PRIMARY_SLOT,
+						() -> qualifierMetadataCacheService.getByQualifierList(x.getQualifiers())), reportBuilderExecutor);
+
+		LOG.debug("Get report metadata");
+		CompletableFuture<DvHydrographReportMetadata> reportMetadata = locationDescription.thenCombineAsync(qualifierMetadata,
+				(location, qualifiers) -> reportMetrics.record(title, ReportMetrics.METADATA, ReportMetrics.NO_SLOT,
+						() -> createDvHydroMetadata(requestParameters, timeSeriesDescriptions, primarySeriesDescription,
+								location, qualifiers, requestingUser, primarySeriesGwParam, title)), reportBuilderExecutor);
+
+		CompletableFuture<List<WaterLevelRecord>> gwLevels = CompletableFuture.completedFuture(null);
+		CompletableFuture<List<FieldVisitMeasurement>> fieldVisitMeasurements = CompletableFuture.completedFuture(null);
+		CompletableFuture<List<WaterQualitySampleRecord>> waterQuality = CompletableFuture.completedFuture(null);
+		if (primarySeriesGwParam != null) {
+			if (!requestParameters.isExcludeDiscrete()) {
+				LOG.debug("Get gw level data from NWIS-RA");
+				gwLevels = locationDescription.thenApplyAsync(x -> reportMetrics.record(title, ReportMetrics.DISCRETE, "gwLevels",
+						() -> inFlightRequestRegistry.get("gwLevels", discreteDataKey(requestParameters, x.getIdentifier(),
+								primarySeriesGwParam, primarySeriesZoneOffset), () -> nwisRaService.getGwLevels(requestParameters,
+										x.getIdentifier(), primarySeriesGwParam, primarySeriesZoneOffset).getRecords())), reportBuilderExecutor);
+			}
+		} else if (DISCHARGE_PARAMETER.contentEquals(primarySeriesParameter)) {
+			LOG.debug("Get field visit measurements");
+			fieldVisitMeasurements = locationDescription.thenApplyAsync(x -> reportMetrics.record(title, ReportMetrics.DISCRETE,
+					"fieldVisitMeasurements", () -> getFieldVisitMeasurements(getFieldVisitData(requestParameters,
+							x.getIdentifier(), primarySeriesZoneOffset))), reportBuilderExecutor);
+		} else if (!requestParameters.isExcludeDiscrete()) {
+			String unit = primarySeriesDescription.getUnit();
+			waterQuality = locationDescription.thenApplyAsync(x -> reportMetrics.record(title, ReportMetrics.DISCRETE, "waterQuality", () -> {
+				String nwisPcode = getNwisPcode(primarySeriesParameter, unit);
+				List<WaterQualitySampleRecord> records = null;
+				if (nwisPcode != null) {
+					LOG.debug("Get qw data from NWIS-RA");
+					records = inFlightRequestRegistry.get("waterQuality", discreteDataKey(requestParameters, x.getIdentifier(),
+							nwisPcode, primarySeriesZoneOffset), () -> nwisRaService.getQwData(requestParameters, x.getIdentifier(),
+									nwisPcode, primarySeriesZoneOffset));
+				}
+				return records;
+			}), reportBuilderExecutor);
 		}
 
-		if (StringUtils.isNotBlank(requestParameters.getFirstReferenceIdentifier())) {
-			LOG.debug("Set first reference time series data");
-			dvHydroReport.setFirstReferenceTimeSeries(buildTimeSeriesCorrectedData(timeSeriesDescriptions,
-					requestParameters.getFirstReferenceIdentifier(), requestParameters, parameterMetadata));
-		}
+		LOG.debug("Get first stat-derived time series data");
+		CompletableFuture<TimeSeriesCorrectedData> firstStatDerived = buildTimeSeriesCorrectedDataAsync(fetchPlan, timeSeriesDescriptions,
+				requestParameters.getFirstStatDerivedIdentifier(), requestParameters, parameterMetadata,
+				title, "firstStatDerived");
+		LOG.debug("Get second stat-derived time series data");
+		CompletableFuture<TimeSeriesCorrectedData> secondStatDerived = buildTimeSeriesCorrectedDataAsync(fetchPlan, timeSeriesDescriptions,
+				requestParameters.getSecondStatDerivedIdentifier(), requestParameters, parameterMetadata,
+				title, "secondStatDerived");
+		LOG.debug("Get third stat-derived time series data");
+		CompletableFuture<TimeSeriesCorrectedData> thirdStatDerived = buildTimeSeriesCorrectedDataAsync(fetchPlan, timeSeriesDescriptions,
+				requestParameters.getThirdStatDerivedIdentifier(), requestParameters, parameterMetadata,
+				title, "thirdStatDerived");
+		LOG.debug("Get fourth stat-derived time series data");
+		CompletableFuture<TimeSeriesCorrectedData> fourthStatDerived = buildTimeSeriesCorrectedDataAsync(fetchPlan, timeSeriesDescriptions,
+				requestParameters.getFourthStatDerivedIdentifier(), requestParameters, parameterMetadata,
+				title, "fourthStatDerived");
+		LOG.debug("Get first reference time series data");
+		CompletableFuture<TimeSeriesCorrectedData> firstReference = buildTimeSeriesCorrectedDataAsync(fetchPlan, timeSeriesDescriptions,
+				requestParameters.getFirstReferenceIdentifier(), requestParameters, parameterMetadata,
+				title, "firstReference");
+		LOG.debug("Get second reference time series data");
+		CompletableFuture<TimeSeriesCorrectedData> secondReference = buildTimeSeriesCorrectedDataAsync(fetchPlan, timeSeriesDescriptions,
+				requestParameters.getSecondReferenceIdentifier(), requestParameters, parameterMetadata,
+				title, "secondReference");
+		LOG.debug("Get third reference time series data");
+		CompletableFuture<TimeSeriesCorrectedData> thirdReference = buildTimeSeriesCorrectedDataAsync(fetchPlan, timeSeriesDescriptions,
+				requestParameters.getThirdReferenceIdentifier(), requestParameters, parameterMetadata,
+				title, "thirdReference");
+		LOG.debug("Get comparison time series data");
+		CompletableFuture<TimeSeriesCorrectedData> comparison = buildTimeSeriesCorrectedDataAsync(fetchPlan, timeSeriesDescriptions,
+				requestParameters.getComparisonTimeseriesIdentifier(), requestParameters, parameterMetadata,
+				title, "comparison");
 
-		if (StringUtils.isNotBlank(requestParameters.getSecondReferenceIdentifier())) {
-			LOG.debug("Set second reference time series data");
-			dvHydroReport.setSecondReferenceTimeSeries(buildTimeSeriesCorrectedData(timeSeriesDescriptions,
-					requestParameters.getSecondReferenceIdentifier(), requestParameters, parameterMetadata));
-		}
+		LOG.debug("Set report metadata");
+		dvHydroReport.setReportMetadata(Futures.join(reportMetadata));
 
-		if (StringUtils.isNotBlank(requestParameters.getThirdReferenceIdentifier())) {
-			LOG.debug("Set third reference time series data");
-			dvHydroReport.setThirdReferenceTimeSeries(buildTimeSeriesCorrectedData(timeSeriesDescriptions,
-					requestParameters.getThirdReferenceIdentifier(), requestParameters, parameterMetadata));
+		TimeSeriesDataServiceResponse primarySeriesData = Futures.join(primarySeriesDataResponse);
+		LOG.debug("Set primary time series qualifiers");
+		dvHydroReport.setPrimarySeriesQualifiers(primarySeriesData.getQualifiers());
+		
+		LOG.debug("Set primary time series approvals");
+		dvHydroReport.setPrimarySeriesApprovals(primarySeriesData.getApprovals());
+		
+		LOG.debug("Set primary time series points");
+		if (primarySeriesData.getPoints() != null) {
+			dvHydroReport.setMaxMinData(Futures.join(primarySeriesMinMax));
 		}
 
-		if (StringUtils.isNotBlank(requestParameters.getComparisonTimeseriesIdentifier())) {
-			LOG.debug("Set comparison time series data");
-			dvHydroReport.setComparisonSeries(buildTimeSeriesCorrectedData(timeSeriesDescriptions,
-					requestParameters.getComparisonTimeseriesIdentifier(), requestParameters, parameterMetadata));
-		}
+		LOG.debug("Set stat-derived, reference and comparison time series data");
+		dvHydroReport.setFirstStatDerived(Futures.join(firstStatDerived));
+		dvHydroReport.setSecondStatDerived(Futures.join(secondStatDerived));
+		dvHydroReport.setThirdStatDerived(Futures.join(thirdStatDerived));
+		dvHydroReport.setFourthStatDerived(Futures.join(fourthStatDerived));
+		dvHydroReport.setFirstReferenceTimeSeries(Futures.join(firstReference));
+		dvHydroReport.setSecondReferenceTimeSeries(Futures.join(secondReference));
+		dvHydroReport.setThirdReferenceTimeSeries(Futures.join(thirdReference));
+		dvHydroReport.setComparisonSeries(Futures.join(comparison));
 
 		dvHydroReport.setSimsUrl(AqcuReportUtils.getSimsUrl(dvHydroReport.getReportMetadata().getStationId(), simsUrl));
 		dvHydroReport.setWaterdataUrl(getWaterdataUrl(dvHydroReport.getReportMetadata().getStationId()));
 
-		if (primarySeriesGwParam != null) {
-			if (!requestParameters.isExcludeDiscrete()) {
-				LOG.debug("Set gw level data from NWIS-RA");
-				dvHydroReport.setGwlevel(nwisRaService.getGwLevels(requestParameters,
-						dvHydroReport.getReportMetadata().getStationId(), primarySeriesGwParam, primarySeriesZoneOffset).getRecords());
-			}
-		} else if (DISCHARGE_PARAMETER.contentEquals(primarySeriesParameter)) {
-			LOG.debug("Set field visit measurements");
-			dvHydroReport.setFieldVisitMeasurements(getFieldVisitMeasurements(getFieldVisitData(requestParameters,
-					dvHydroReport.getReportMetadata().getStationId(), primarySeriesZoneOffset)));
-		} else if (!requestParameters.isExcludeDiscrete()) {
-			String unit = primarySeriesDescription.getUnit();
-			String nwisPcode = getNwisPcode(primarySeriesParameter, unit);
-			if (nwisPcode != null) {
-				LOG.debug("Set qw data from NWIS-RA");
-				dvHydroReport.setWaterQuality(nwisRaService.getQwData(requestParameters,
-						dvHydroReport.getReportMetadata().getStationId(), nwisPcode, primarySeriesZoneOffset));
-			}
-		}
+		LOG.debug("Set discrete data");
+		dvHydroReport.setGwlevel(Futures.join(gwLevels));
+		dvHydroReport.setFieldVisitMeasurements(Futures.join(fieldVisitMeasurements));
+		dvHydroReport.setWaterQuality(Futures.join(waterQuality));
 
 		return dvHydroReport;
 	}
 
 	protected String getNwisPcode(String aqName, String unit) {
-		String pcode = null;
-
-		// First find the NWIS name using the nameAliases
-		Optional<ParameterRecord> nwisName = nwisRaService.getAqParameterNames().parallelStream()
-				.filter(x -> x.getAlias().equals(aqName))
-				.findFirst();
-
-		if (nwisName.isPresent()) {
-			// then find the pcode using the name and unit
-			Optional<ParameterRecord> unitAlias = nwisRaService.getAqParameterUnits().parallelStream()
-					.filter(x -> x.getAlias().equals(unit) && x.getName().equals(nwisName.get().getName()))
-					.findAny();
-			if (unitAlias.isPresent()) {
-				pcode = unitAlias.get().getCode();
-			}
-		}
-		return pcode;
+		return nwisParameterIndexService.getPcode(aqName, unit);
 	}
 	
-	@LogExecutionTime
-	protected TimeSeriesCorrectedData buildTimeSeriesCorrectedData(
+	/**
+	 * Fetches the time series data on the report builder executor and converts it once both the data and the
+	 * parameter metadata are available. Completes with null when the identifier has no description. Series already
+	 * in the fetch plan share the earlier retrieval and conversion.
+	 */
+	protected CompletableFuture<TimeSeriesCorrectedData> buildTimeSeriesCorrectedDataAsync(TimeSeriesFetchPlan fetchPlan,
 			Map<String, TimeSeriesDescription> timeSeriesDescriptions, String timeSeriesIdentifier,
-			DvHydrographRequestParameters requestParameters, Map<String, ParameterMetadata> parameterMetadata) {
-		TimeSeriesCorrectedData timeSeriesCorrectedData = null;
-
-		if (timeSeriesDescriptions != null && timeSeriesDescriptions.containsKey(timeSeriesIdentifier)) {
-			boolean isDaily = TimeSeriesUtils.isDailyTimeSeries(timeSeriesDescriptions.get(timeSeriesIdentifier));
-			ZoneOffset zoneOffset = TimeSeriesUtils.getZoneOffset(timeSeriesDescriptions.get(timeSeriesIdentifier));
-			TimeSeriesDataServiceResponse timeSeriesDataServiceResponse = timeSeriesDataService
-					.get(timeSeriesIdentifier, requestParameters, zoneOffset, isDaily, false, true, null);
-
-			if (timeSeriesDataServiceResponse != null) {
-				timeSeriesCorrectedData = createTimeSeriesCorrectedData(timeSeriesDataServiceResponse, isDaily,
-						parameterListService.isVolumetricFlow(parameterMetadata, timeSeriesDataServiceResponse.getParameter()), zoneOffset);
-			}
+			DvHydrographRequestParameters requestParameters, CompletableFuture<Map<String, ParameterMetadata>> parameterMetadata,
+			String title, String slot) {
+		if (timeSeriesDescriptions == null || !timeSeriesDescriptions.containsKey(timeSeriesIdentifier)) {
+			return CompletableFuture.completedFuture(null);
 		}
 
-		return timeSeriesCorrectedData;
+		TimeSeriesDescription timeSeriesDescription = timeSeriesDescriptions.get(timeSeriesIdentifier);
+		boolean isDaily = TimeSeriesUtils.isDailyTimeSeries(timeSeriesDescription);
+		ZoneOffset zoneOffset = TimeSeriesUtils.getZoneOffset(timeSeriesDescription);
+		TimeSeriesDataKey key = TimeSeriesDataKey.of(timeSeriesIdentifier, requestParameters, zoneOffset, isDaily);
+		return fetchPlan.getCorrectedData(key, x -> getTimeSeriesData(fetchPlan, timeSeriesDescription, timeSeriesIdentifier,
+				requestParameters, zoneOffset, isDaily, title, slot)
+				.thenCombineAsync(parameterMetadata, (timeSeriesDataServiceResponse, metadata) -> {
+					TimeSeriesCorrectedData timeSeriesCorrectedData = null;
+					if (timeSeriesDataServiceResponse != null) {
+						timeSeriesCorrectedData = createTimeSeriesCorrectedData(timeSeriesDataServiceResponse, isDaily,
+								parameterListService.isVolumetricFlow(metadata, timeSeriesDataServiceResponse.getParameter()), zoneOffset,
+								title, slot);
+					}
+					return timeSeriesCorrectedData;
+				}, reportBuilderExecutor));
+	}
+
+	protected CompletableFuture<TimeSeriesDataServiceResponse> getTimeSeriesData(TimeSeriesFetchPlan fetchPlan,
+			TimeSeriesDescription timeSeriesDescription, String timeSeriesIdentifier,
+			DvHydrographRequestParameters requestParameters, ZoneOffset zoneOffset, boolean isDaily, String title, String slot) {
+		return fetchPlan.getResponse(TimeSeriesDataKey.of(timeSeriesIdentifier, requestParameters, zoneOffset, isDaily),
+				x -> supplyAsync(() -> {
+					TimeSeriesDataServiceResponse response = reportMetrics.record(title, ReportMetrics.FETCH, slot,
+							() -> timeSeriesDataCacheService.get(timeSeriesIdentifier, timeSeriesDescription.getLastModified(),
+									requestParameters, zoneOffset, isDaily));
+					if (response != null && response.getPoints() != null) {
+						reportMetrics.recordPoints(title, slot, response.getPoints().size());
+					}
+					return response;
+				}));
 	}
 	
+	/**
+	 * Builds the report metadata from the primary series' location description and qualifier metadata, which
+	 * buildReport retrieves concurrently with the time series data.
+	 */
 	@LogExecutionTime
 	protected DvHydrographReportMetadata createDvHydroMetadata(DvHydrographRequestParameters requestParameters,
 			Map<String, TimeSeriesDescription> timeSeriesDescriptions,
-			TimeSeriesDescription primarySeriesDescription,
-			TimeSeriesDataServiceResponse primarySeriesDataResponse, String requestingUser,
+			TimeSeriesDescription primarySeriesDescription, LocationDescription locationDescription,
+			Map<String, QualifierMetadata> qualifierMetadata, String requestingUser,
 			GroundWaterParameter gwParam, String title) {
 		DvHydrographReportMetadata metadata = new DvHydrographReportMetadata();
 
@@ -298,11 +385,8 @@ public class ReportBuilderService {
 					timeSeriesDescriptions.get(requestParameters.getComparisonTimeseriesIdentifier()).getIdentifier());
 		}
 
-		metadata.setQualifierMetadata(
-				qualifierLookupService.getByQualifierList(primarySeriesDataResponse.getQualifiers()));
+		metadata.setQualifierMetadata(qualifierMetadata);
 
-		LocationDescription locationDescription = locationDescriptionListService.getByLocationIdentifier(
-				primarySeriesDescription.getLocationIdentifier());
 		metadata.setStationName(locationDescription.getName());
 		metadata.setStationId(locationDescription.getIdentifier());
 
@@ -311,16 +395,77 @@ public class ReportBuilderService {
 		return metadata;
 	}
 
+	public Map<String, TimeSeriesDescription> getTimeSeriesDescriptions(DvHydrographRequestParameters requestParameters, String title) {
+		LOG.debug("Get time series descriptions from Aquarius");
+		return reportMetrics.record(title, ReportMetrics.DESCRIPTIONS, ReportMetrics.NO_SLOT,
+				() -> timeSeriesDescriptionService.getTimeSeriesDescriptions(requestParameters));
+	}
+
+	/**
+	 * Strong entity tag of the report's raw data: a hash of the canonical request key and the last modified time of
+	 * every time series in the report. The last modified times come from the time series description cache, so they
+	 * can be up to one change poll (timeSeriesChanges.pollMillis) behind Aquarius. Field visit, NWIS-RA and other
+	 * data without a last modified time do not change the tag; how long a client reuses the report before
+	 * revalidating is set by the Cache-Control max-age of the response. Returns null (no tag) when a series has no
+	 * last modified time.
+	 */
+	public String getRawDataETag(DvHydrographRequestParameters requestParameters,
+			Map<String, TimeSeriesDescription> timeSeriesDescriptions) {
+		StringBuilder input = new StringBuilder(requestParameters.getRequestKey());
+		for (TimeSeriesDescription description : new TreeMap<>(timeSeriesDescriptions).values()) {
+			if (description.getLastModified() == null) {
+				return null;
+			}
+			input.append('|').append(description.getUniqueId()).append('=').append(description.getLastModified());
+		}
+		return "\"" + ETags.hash(input.toString()) + "\"";
+	}
+
+	/**
+	 * Strong entity tag of the rendered report: the raw data tag qualified by the report type and the requesting
+	 * user, who is printed on the report. It is known before the report is built, so a matching If-None-Match is
+	 * answered without building or rendering. Returns null when the raw data has no tag.
+	 */
+	public String getReportETag(DvHydrographRequestParameters requestParameters,
+			Map<String, TimeSeriesDescription> timeSeriesDescriptions, String reportType, String requestingUser) {
+		String rawDataETag = getRawDataETag(requestParameters, timeSeriesDescriptions);
+		if (rawDataETag == null) {
+			return null;
+		}
+		return "\"" + ETags.hash(reportType + "|" + requestingUser + "|" + rawDataETag) + "\"";
+	}
+
+	/**
+	 * Field visits are retrieved concurrently on the field visit data executor, which bounds how many are
+	 * requested from Aquarius at once. The responses keep the order of the visit descriptions.
+	 */
 	protected List<FieldVisitDataServiceResponse> getFieldVisitData(DvHydrographRequestParameters requestParameters, String locationIdentifier, ZoneOffset zoneOffset) {
-		List<FieldVisitDataServiceResponse> result = new ArrayList<>();
+		List<CompletableFuture<FieldVisitDataServiceResponse>> visits = new ArrayList<>();
 		
-		for(FieldVisitDescription desc : fieldVisitDescriptionService.getDescriptions(locationIdentifier, zoneOffset, requestParameters)) {
-			result.add(fieldVisitDataService.get(desc.getIdentifier()));
+		List<FieldVisitDescription> descriptions = inFlightRequestRegistry.get("fieldVisitDescriptions",
+				discreteDataKey(requestParameters, locationIdentifier, null, zoneOffset),
+				() -> fieldVisitDescriptionService.getDescriptions(locationIdentifier, zoneOffset, requestParameters));
+		for(FieldVisitDescription desc : descriptions) {
+			visits.add(CompletableFuture.supplyAsync(() -> fieldVisitDataCacheService.get(desc), fieldVisitDataExecutor));
 		}
 
+		List<FieldVisitDataServiceResponse> result = new ArrayList<>();
+		for(CompletableFuture<FieldVisitDataServiceResponse> visit : visits) {
+			result.add(Futures.join(visit));
+		}
 		return result;
 	}
 
+	/**
+	 * Identifies a discrete data retrieval for a location (and parameter, if any) over the request's window, for
+	 * coalescing concurrent identical retrievals.
+	 */
+	protected List<Object> discreteDataKey(DvHydrographRequestParameters requestParameters, String locationIdentifier,
+			Object parameter, ZoneOffset zoneOffset) {
+		return Arrays.asList(locationIdentifier, parameter, requestParameters.getStartInstant(zoneOffset),
+				requestParameters.getEndInstant(zoneOffset), zoneOffset);
+	}
+
 	protected List<FieldVisitMeasurement> getFieldVisitMeasurements(List<FieldVisitDataServiceResponse> fieldVisitData) {
 		List<FieldVisitMeasurement> result = new ArrayList<>();
 		for(FieldVisitDataServiceResponse response : fieldVisitData) {
@@ -330,12 +475,13 @@ public class ReportBuilderService {
 	}
 
 	/**
-	 * This method should only be called if the timeSeriesDataServiceResponse is not null.
+	 * This method should only be called if the timeSeriesDataServiceResponse is not null. Point conversion and gap
+	 * building are timed for the report title and series slot.
 	 */
 	@LogExecutionTime
 	protected TimeSeriesCorrectedData createTimeSeriesCorrectedData(
 			TimeSeriesDataServiceResponse timeSeriesDataServiceResponse, boolean isDaily, boolean isVolumetricFlow,
-			ZoneOffset zoneOffset) {
+			ZoneOffset zoneOffset, String title, String slot) {
 		TimeSeriesCorrectedData timeSeriesCorrectedData = new TimeSeriesCorrectedData();
 
 		if (timeSeriesDataServiceResponse.getTimeRange() != null) {
@@ -349,8 +495,8 @@ public class ReportBuilderService {
 		timeSeriesCorrectedData.setType(timeSeriesDataServiceResponse.getParameter());
 
 		if (timeSeriesDataServiceResponse.getPoints() != null) {
-			timeSeriesCorrectedData
-					.setPoints(createDvHydroPoints(timeSeriesDataServiceResponse.getPoints(), isDaily, zoneOffset));
+			timeSeriesCorrectedData.setPoints(reportMetrics.record(title, ReportMetrics.CONVERSION, slot,
+					() -> createDvHydroPoints(timeSeriesDataServiceResponse.getPoints(), isDaily, zoneOffset)));
 		}
 
 		if (timeSeriesDataServiceResponse.getQualifiers() != null) {
@@ -362,7 +508,8 @@ public class ReportBuilderService {
 
 		timeSeriesCorrectedData.setApprovals(timeSeriesDataServiceResponse.getApprovals());
 
-		List<DataGap> gaps = dataGapListBuilderService.buildGapList(timeSeriesDataServiceResponse.getPoints(), isDaily, zoneOffset);
+		List<DataGap> gaps = reportMetrics.record(title, ReportMetrics.GAPS, slot,
+				() -> dataGapListBuilderService.buildGapList(timeSeriesDataServiceResponse.getPoints(), isDaily, zoneOffset));
 
 		if(!gaps.isEmpty()) {
 			timeSeriesCorrectedData.setGaps(gaps);
@@ -378,22 +525,14 @@ public class ReportBuilderService {
 	 */
 	protected List<DvHydrographPoint> createDvHydroPoints(List<TimeSeriesPoint> timeSeriesPoints,
 			boolean isDaily, ZoneOffset zoneOffset) {
-		List<DvHydrographPoint> dvPoints = timeSeriesPoints.parallelStream()
-				.filter(x -> x.getValue().getNumeric() != null)
-				.map(x -> {
-					DvHydrographPoint dvPoint = new DvHydrographPoint();
-					dvPoint.setTime(AqcuTimeUtils.getTemporal(x.getTimestamp(), isDaily, zoneOffset));
-					dvPoint.setValue(DoubleWithDisplayUtil.getRoundedValue(x.getValue()));
-					return dvPoint;
-				})
-				.collect(Collectors.toList());
-		return dvPoints;
+		return pointConversionService.convert(timeSeriesPoints, isDaily, zoneOffset);
 	}
 
 	/**
 	 * This method should only be called if the qualifiers list is not null.
 	 */
-	protected List<InstantRange> getEstimatedPeriods(List<Qualifier> qualifiers) {
+	protected List<InstantRange> getEstimatedPeriods(
+			List<com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier> qualifiers) {
 		List<InstantRange> estimatedPeriods = qualifiers.stream()
 			.filter(x -> x.getIdentifier().equals(ESTIMATED_QUALIFIER_VALUE))
 			.map(x -> {
@@ -411,4 +550,8 @@ public class ReportBuilderService {
 		}
 		return url;
 	}
+
+	protected <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+		return CompletableFuture.supplyAsync(supplier, reportBuilderExecutor);
+	}
 }
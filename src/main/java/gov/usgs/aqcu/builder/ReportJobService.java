@@ -0,0 +1,90 @@
+package gov.usgs.aqcu.builder;
+
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+import gov.usgs.aqcu.model.ReportJob;
+
+/**
+ * Runs report builds on the report job executor instead of the request thread, keeping each job and its result in
+ * a bounded store until it expires or is evicted.
+ */
+@Service
+public class ReportJobService {
+	private static final Logger LOG = LoggerFactory.getLogger(ReportJobService.class);
+
+	private Cache<String, ReportJob> reportJobStore;
+	private Executor reportJobExecutor;
+
+	@Autowired
+	public ReportJobService(@Qualifier("reportJobStore") Cache<String, ReportJob> reportJobStore,
+			@Qualifier("reportJobExecutor") Executor reportJobExecutor) {
+		this.reportJobStore = reportJobStore;
+		this.reportJobExecutor = reportJobExecutor;
+	}
+
+	/**
+	 * Queues the report and returns its job straight away. Responds 503 when the job queue is full.
+	 */
+	public ReportJob submit(String reportType, String requestingUser, String contentType, Supplier<byte[]> report) {
+		ReportJob job = new ReportJob(UUID.randomUUID().toString(), reportType, requestingUser);
+		reportJobStore.put(job.getId(), job);
+		try {
+			reportJobExecutor.execute(() -> run(job, contentType, report));
+		} catch (RejectedExecutionException e) {
+			reportJobStore.invalidate(job.getId());
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Report job queue is full", e);
+		}
+		LOG.debug("Queued {} report job {} for {}", reportType, job.getId(), requestingUser);
+		return job;
+	}
+
+	/**
+	 * Returns the job if it is still stored and was submitted by the requesting user, otherwise null.
+	 */
+	public ReportJob get(String id, String requestingUser) {
+		ReportJob job = reportJobStore.getIfPresent(id);
+		if (job == null || !job.getRequestingUser().equals(requestingUser)) {
+			return null;
+		}
+		return job;
+	}
+
+	/**
+	 * Runs the job, which always finishes: the store keeps unfinished jobs until they do.
+	 */
+	protected void run(ReportJob job, String contentType, Supplier<byte[]> report) {
+		job.start();
+		try {
+			job.complete(report.get(), contentType);
+		} catch (RuntimeException | Error e) {
+			LOG.error("Report job " + job.getId() + " failed", e);
+			job.fail(getError(job, e));
+		}
+		// Store the job again so that it is weighed by the size of its result and starts to expire.
+		reportJobStore.asMap().replace(job.getId(), job);
+	}
+
+	/**
+	 * The error returned to clients polling a failed job. Only the reason of a ResponseStatusException is meant for
+	 * clients; other messages may hold upstream URLs or internal details, so they are only logged.
+	 */
+	protected static String getError(ReportJob job, Throwable e) {
+		if (e instanceof ResponseStatusException && ((ResponseStatusException) e).getReason() != null) {
+			return ((ResponseStatusException) e).getReason();
+		}
+		return "Report could not be built, see the service log for job " + job.getId();
+	}
+}
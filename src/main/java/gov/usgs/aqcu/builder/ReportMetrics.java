@@ -0,0 +1,136 @@
+package gov.usgs.aqcu.builder;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Micrometer meters for the stages of building and rendering a report, published through the actuator metrics
+ * endpoint:
+ * <ul>
+ * <li>report.stage - timer with a percentile histogram, tagged by report (the report title), stage and slot (the
+ * report's time series slot, e.g. primary or firstStatDerived, or "none" for stages not tied to a series)</li>
+ * <li>report.series.points - distribution summary of the points retrieved for each series, tagged by report and
+ * slot</li>
+ * <li>report.payload.size - distribution summary of the bytes of report JSON and rendered HTML, tagged by report
+ * and payload (json or html)</li>
+ * </ul>
+ */
+@Component
+public class ReportMetrics {
+	public static final String STAGE_TIMER = "report.stage";
+	public static final String POINTS_SUMMARY = "report.series.points";
+	public static final String PAYLOAD_SUMMARY = "report.payload.size";
+	public static final String NO_SLOT = "none";
+	public static final String UNKNOWN_REPORT = "unknown";
+
+	public static final String DESCRIPTIONS = "descriptions";
+	public static final String PARAMETER_METADATA = "parameterMetadata";
+	public static final String LOCATION_DESCRIPTION = "locationDescription";
+	public static final String QUALIFIER_METADATA = "qualifierMetadata";
+	public static final String FETCH = "fetch";
+	public static final String CONVERSION = "conversion";
+	public static final String GAPS = "gaps";
+	public static final String MIN_MAX = "minMax";
+	public static final String METADATA = "metadata";
+	public static final String DISCRETE = "discrete";
+	public static final String BUILD = "build";
+	public static final String SERIALIZATION = "serialization";
+	public static final String RENDER = "render";
+
+	public static final String JSON_PAYLOAD = "json";
+	public static final String HTML_PAYLOAD = "html";
+
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	public ReportMetrics(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * Runs the stage on the calling thread, recording its duration whether it completes or throws.
+	 */
+	public <T> T record(String report, String stage, String slot, Supplier<T> stageBody) {
+		return timer(report, stage, slot).record(stageBody);
+	}
+
+	/**
+	 * A stage that writes to a stream, e.g. serializing a report straight to the response.
+	 */
+	public interface WriteStage<T> {
+		T write() throws IOException;
+	}
+
+	/**
+	 * Runs the writing stage on the calling thread, recording its duration whether it completes or throws.
+	 */
+	public <T> T recordWrite(String report, String stage, String slot, WriteStage<T> stageBody) throws IOException {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		try {
+			return stageBody.write();
+		} finally {
+			sample.stop(timer(report, stage, slot));
+		}
+	}
+
+	public void recordPoints(String report, String slot, int points) {
+		DistributionSummary.builder(POINTS_SUMMARY)
+				.tag("report", tagValue(report))
+				.tag("slot", tagValue(slot))
+				.baseUnit("points")
+				.publishPercentileHistogram()
+				.register(meterRegistry)
+				.record(points);
+	}
+
+	public void recordPayloadSize(String report, String payload, long bytes) {
+		DistributionSummary.builder(PAYLOAD_SUMMARY)
+				.tag("report", tagValue(report))
+				.tag("payload", payload)
+				.baseUnit("bytes")
+				.publishPercentileHistogram()
+				.register(meterRegistry)
+				.record(bytes);
+	}
+
+	/**
+	 * Number of bytes the string takes as UTF-8, without encoding it.
+	 */
+	public static long utf8Length(String value) {
+		long bytes = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				bytes++;
+			} else if (c < 0x800) {
+				bytes += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+				bytes += 4;
+				i++;
+			} else {
+				bytes += 3;
+			}
+		}
+		return bytes;
+	}
+
+	protected Timer timer(String report, String stage, String slot) {
+		return Timer.builder(STAGE_TIMER)
+				.tag("report", tagValue(report))
+				.tag("stage", stage)
+				.tag("slot", tagValue(slot))
+				.publishPercentileHistogram()
+				.register(meterRegistry);
+	}
+
+	protected static String tagValue(String value) {
+		return value == null ? UNKNOWN_REPORT : value;
+	}
+}
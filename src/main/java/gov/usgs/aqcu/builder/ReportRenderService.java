@@ -0,0 +1,151 @@
+package gov.usgs.aqcu.builder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+import gov.usgs.aqcu.client.JavaToRClient;
+import gov.usgs.aqcu.model.RenderedReport;
+
+/**
+ * Renders reports through JavaToR, caching the HTML by report type and a SHA-256 hash of the requesting user and
+ * the report JSON. JavaToR prints the requesting user on the report but the JSON does not include them, so the user
+ * is part of the key and of the entity tag, and rendered reports are never shared between users. Rendered reports are held in a size bounded in memory cache and, when renderedReportCache.diskDirectory
+ * is set, in a size bounded directory that outlives restarts. Only renderings by JavaToR are timed as the render
+ * stage; cache hits are not.
+ */
+@Service
+public class ReportRenderService {
+	private static final Logger LOG = LoggerFactory.getLogger(ReportRenderService.class);
+	private static final String FILE_SUFFIX = ".html";
+
+	private JavaToRClient javaToRClient;
+	private ReportMetrics reportMetrics;
+	private Cache<String, byte[]> renderedReportCache;
+	private Path diskDirectory;
+	private long diskMaxBytes;
+
+	@Autowired
+	public ReportRenderService(JavaToRClient javaToRClient, ReportMetrics reportMetrics,
+			@Qualifier("renderedReportCache") Cache<String, byte[]> renderedReportCache,
+			@Value("${renderedReportCache.diskDirectory}") String diskDirectory,
+			@Value("${renderedReportCache.diskMaxBytes}") long diskMaxBytes) {
+		this.javaToRClient = javaToRClient;
+		this.reportMetrics = reportMetrics;
+		this.renderedReportCache = renderedReportCache;
+		this.diskDirectory = StringUtils.isBlank(diskDirectory) ? null : Paths.get(diskDirectory);
+		this.diskMaxBytes = diskMaxBytes;
+	}
+
+	/**
+	 * Renders the report, or returns it from the cache. When ifNoneMatch (the request's If-None-Match header)
+	 * matches the report's entity tag, rendering is skipped and a not modified report is returned. Renderings are
+	 * timed under the report title.
+	 */
+	public RenderedReport render(String report, String requestingUser, String reportType, String reportJson, String ifNoneMatch) {
+		String key = getKey(requestingUser, reportType, reportJson);
+		String eTag = "\"" + key + "\"";
+		if (ETags.matches(ifNoneMatch, eTag)) {
+			LOG.debug("Client holds rendered report {}", key);
+			return new RenderedReport(eTag, null);
+		}
+
+		byte[] html = renderedReportCache.getIfPresent(key);
+		if (html == null) {
+			html = readDisk(key);
+			if (html == null) {
+				html = reportMetrics.record(report, ReportMetrics.RENDER, ReportMetrics.NO_SLOT,
+						() -> javaToRClient.render(requestingUser, reportType, reportJson));
+				writeDisk(key, html);
+			} else {
+				LOG.debug("Using rendered report {} from disk", key);
+			}
+			renderedReportCache.put(key, html);
+		} else {
+			LOG.debug("Using cached rendered report {}", key);
+		}
+		return new RenderedReport(eTag, html);
+	}
+
+	protected String getKey(String requestingUser, String reportType, String reportJson) {
+		return reportType + "-" + ETags.hash(requestingUser + "\n" + reportJson);
+	}
+
+	protected byte[] readDisk(String key) {
+		if (diskDirectory == null) {
+			return null;
+		}
+		Path file = diskDirectory.resolve(key + FILE_SUFFIX);
+		try {
+			byte[] html = Files.readAllBytes(file);
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+			return html;
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			LOG.warn("Unable to read rendered report " + file, e);
+			return null;
+		}
+	}
+
+	protected void writeDisk(String key, byte[] html) {
+		if (diskDirectory == null || html == null) {
+			return;
+		}
+		try {
+			Files.createDirectories(diskDirectory);
+			Path temp = Files.createTempFile(diskDirectory, key, ".tmp");
+			Files.write(temp, html);
+			Files.move(temp, diskDirectory.resolve(key + FILE_SUFFIX), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			trimDisk();
+		} catch (IOException e) {
+			LOG.warn("Unable to write rendered report " + key + " to " + diskDirectory, e);
+		}
+	}
+
+	/**
+	 * Deletes the least recently used rendered reports until the directory is within renderedReportCache.diskMaxBytes.
+	 */
+	protected synchronized void trimDisk() throws IOException {
+		List<Path> newestFirst;
+		try (Stream<Path> list = Files.list(diskDirectory)) {
+			newestFirst = list.filter(x -> x.getFileName().toString().endsWith(FILE_SUFFIX)).collect(Collectors.toList());
+		}
+		newestFirst.sort(Comparator.comparing(ReportRenderService::getLastModifiedTime).reversed());
+		long total = 0;
+		for (Path file : newestFirst) {
+			total += Files.size(file);
+			if (total > diskMaxBytes) {
+				LOG.debug("Removing rendered report {}", file);
+				Files.deleteIfExists(file);
+			}
+		}
+	}
+
+	private static FileTime getLastModifiedTime(Path file) {
+		try {
+			return Files.getLastModifiedTime(file);
+		} catch (IOException e) {
+			return FileTime.fromMillis(0);
+		}
+	}
+}
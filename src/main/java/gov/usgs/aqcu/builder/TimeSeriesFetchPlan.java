@@ -0,0 +1,35 @@
+package gov.usgs.aqcu.builder;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+
+import gov.usgs.aqcu.model.TimeSeriesCorrectedData;
+import gov.usgs.aqcu.retrieval.TimeSeriesDataKey;
+
+/**
+ * Request-scoped plan of the time series retrievals needed by one report. Each distinct
+ * {@link TimeSeriesDataKey} is retrieved and converted once, and the result is shared by every report slot
+ * (primary, stat-derived, reference or comparison) that references it.
+ */
+public class TimeSeriesFetchPlan {
+	private final Map<TimeSeriesDataKey, CompletableFuture<TimeSeriesDataServiceResponse>> responses = new ConcurrentHashMap<>();
+	private final Map<TimeSeriesDataKey, CompletableFuture<TimeSeriesCorrectedData>> correctedData = new ConcurrentHashMap<>();
+
+	public CompletableFuture<TimeSeriesDataServiceResponse> getResponse(TimeSeriesDataKey key,
+			Function<TimeSeriesDataKey, CompletableFuture<TimeSeriesDataServiceResponse>> retrieval) {
+		return responses.computeIfAbsent(key, retrieval);
+	}
+
+	public CompletableFuture<TimeSeriesCorrectedData> getCorrectedData(TimeSeriesDataKey key,
+			Function<TimeSeriesDataKey, CompletableFuture<TimeSeriesCorrectedData>> conversion) {
+		return correctedData.computeIfAbsent(key, conversion);
+	}
+
+	public int size() {
+		return responses.size();
+	}
+}
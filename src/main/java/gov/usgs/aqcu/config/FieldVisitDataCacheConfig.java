@@ -0,0 +1,37 @@
+package gov.usgs.aqcu.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import gov.usgs.aqcu.retrieval.FieldVisitDataCacheEntry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+@Configuration
+public class FieldVisitDataCacheConfig {
+
+	@Value("${fieldVisitDataCache.maxVisits}")
+	private long maxVisits;
+	@Value("${fieldVisitDataCache.expireAfterWriteMinutes}")
+	private long expireAfterWriteMinutes;
+
+	/**
+	 * Cache of field visit data shared by all reports, bounded by the number of visits held and expired a fixed
+	 * time after being written. Metrics are published as the "cache.*" metrics tagged cache=fieldVisitData.
+	 */
+	@Bean
+	public Cache<String, FieldVisitDataCacheEntry> fieldVisitDataCache(MeterRegistry meterRegistry) {
+		Cache<String, FieldVisitDataCacheEntry> cache = Caffeine.newBuilder()
+				.maximumSize(maxVisits)
+				.expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
+				.recordStats()
+				.build();
+		return CaffeineCacheMetrics.monitor(meterRegistry, cache, "fieldVisitData");
+	}
+}
@@ -7,6 +7,10 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.oauth2.config.annotation.web.configuration.EnableResourceServer;
 import org.springframework.security.oauth2.config.annotation.web.configuration.ResourceServerConfigurerAdapter;
 import org.springframework.security.oauth2.config.annotation.web.configurers.ResourceServerSecurityConfigurer;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
+import org.springframework.security.web.header.writers.DelegatingRequestMatcherHeaderWriter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
 
 @Configuration
 @EnableResourceServer
@@ -28,6 +32,11 @@ public class OAuth2ResourceServerConfig extends ResourceServerConfigurerAdapter
 				.cors()
 			.and()
 				.csrf().disable()
+				// rawData responses carry their own Cache-Control max-age alongside their ETag
+				.headers()
+					.cacheControl().disable()
+					.addHeaderWriter(new DelegatingRequestMatcherHeaderWriter(
+							new NegatedRequestMatcher(new AntPathRequestMatcher("/*/rawData")), new CacheControlHeadersWriter()))
 		;
 	}
 
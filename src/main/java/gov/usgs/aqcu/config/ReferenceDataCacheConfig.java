@@ -0,0 +1,75 @@
+package gov.usgs.aqcu.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.LocationDescription;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.QualifierMetadata;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescription;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+@Configuration
+public class ReferenceDataCacheConfig {
+
+	@Value("${locationDescriptionCache.maxLocations}")
+	private long maxLocations;
+	@Value("${locationDescriptionCache.expireAfterWriteMinutes}")
+	private long locationExpireAfterWriteMinutes;
+	@Value("${qualifierMetadataCache.maxQualifiers}")
+	private long maxQualifiers;
+	@Value("${qualifierMetadataCache.expireAfterWriteMinutes}")
+	private long qualifierExpireAfterWriteMinutes;
+	@Value("${timeSeriesDescriptionCache.maxSeries}")
+	private long maxSeries;
+	@Value("${timeSeriesDescriptionCache.expireAfterWriteMinutes}")
+	private long descriptionExpireAfterWriteMinutes;
+
+	/**
+	 * Cache of location descriptions shared by all reports, keyed by location identifier. Metrics are published as
+	 * the "cache.*" metrics tagged cache=locationDescription.
+	 */
+	@Bean
+	public Cache<String, LocationDescription> locationDescriptionCache(MeterRegistry meterRegistry) {
+		Cache<String, LocationDescription> cache = Caffeine.newBuilder()
+				.maximumSize(maxLocations)
+				.expireAfterWrite(locationExpireAfterWriteMinutes, TimeUnit.MINUTES)
+				.recordStats()
+				.build();
+		return CaffeineCacheMetrics.monitor(meterRegistry, cache, "locationDescription");
+	}
+
+	/**
+	 * Cache of the Aquarius qualifier catalogue shared by all reports, keyed by qualifier identifier. Metrics are
+	 * published as the "cache.*" metrics tagged cache=qualifierMetadata.
+	 */
+	@Bean
+	public Cache<String, QualifierMetadata> qualifierMetadataCache(MeterRegistry meterRegistry) {
+		Cache<String, QualifierMetadata> cache = Caffeine.newBuilder()
+				.maximumSize(maxQualifiers)
+				.expireAfterWrite(qualifierExpireAfterWriteMinutes, TimeUnit.MINUTES)
+				.recordStats()
+				.build();
+		return CaffeineCacheMetrics.monitor(meterRegistry, cache, "qualifierMetadata");
+	}
+
+	/**
+	 * Cache of time series descriptions shared by all reports, keyed by time series unique id. Metrics are published
+	 * as the "cache.*" metrics tagged cache=timeSeriesDescription.
+	 */
+	@Bean
+	public Cache<String, TimeSeriesDescription> timeSeriesDescriptionCache(MeterRegistry meterRegistry) {
+		Cache<String, TimeSeriesDescription> cache = Caffeine.newBuilder()
+				.maximumSize(maxSeries)
+				.expireAfterWrite(descriptionExpireAfterWriteMinutes, TimeUnit.MINUTES)
+				.recordStats()
+				.build();
+		return CaffeineCacheMetrics.monitor(meterRegistry, cache, "timeSeriesDescription");
+	}
+}
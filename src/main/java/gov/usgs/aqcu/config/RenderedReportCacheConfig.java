@@ -0,0 +1,37 @@
+package gov.usgs.aqcu.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+@Configuration
+public class RenderedReportCacheConfig {
+
+	@Value("${renderedReportCache.maxBytes}")
+	private long maxBytes;
+	@Value("${renderedReportCache.expireAfterWriteMinutes}")
+	private long expireAfterWriteMinutes;
+
+	/**
+	 * In memory cache of rendered report HTML, bounded by the total size of the reports held and expired a fixed
+	 * time after being written. Metrics are published as the "cache.*" metrics tagged cache=renderedReport.
+	 */
+	@Bean
+	public Cache<String, byte[]> renderedReportCache(MeterRegistry meterRegistry) {
+		Cache<String, byte[]> cache = Caffeine.newBuilder()
+				.maximumWeight(maxBytes)
+				.weigher((String key, byte[] html) -> Math.max(1, html.length))
+				.expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
+				.recordStats()
+				.build();
+		return CaffeineCacheMetrics.monitor(meterRegistry, cache, "renderedReport");
+	}
+}
@@ -0,0 +1,155 @@
+package gov.usgs.aqcu.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+@Configuration
+public class ReportBuilderExecutorConfig {
+
+	@Value("${reportBuilder.executor.coreSize}")
+	private int coreSize;
+	@Value("${reportBuilder.executor.maxSize}")
+	private int maxSize;
+	@Value("${reportBuilder.executor.queueCapacity}")
+	private int queueCapacity;
+	@Value("${reportRequest.executor.poolSize}")
+	private int reportRequestPoolSize;
+	@Value("${reportRequest.executor.queueCapacity}")
+	private int reportRequestQueueCapacity;
+	@Value("${reportBatch.executor.poolSize}")
+	private int reportBatchPoolSize;
+	@Value("${reportBatch.executor.queueCapacity}")
+	private int reportBatchQueueCapacity;
+	@Value("${reportBatchStreaming.executor.poolSize}")
+	private int reportBatchStreamingPoolSize;
+	@Value("${reportBatchStreaming.executor.queueCapacity}")
+	private int reportBatchStreamingQueueCapacity;
+	@Value("${reportJob.executor.poolSize}")
+	private int reportJobPoolSize;
+	@Value("${reportJob.executor.queueCapacity}")
+	private int reportJobQueueCapacity;
+	@Value("${fieldVisitData.executor.poolSize}")
+	private int fieldVisitDataPoolSize;
+	@Value("${fieldVisitData.executor.queueCapacity}")
+	private int fieldVisitDataQueueCapacity;
+	@Value("${timeSeriesData.executor.poolSize}")
+	private int timeSeriesDataPoolSize;
+	@Value("${timeSeriesData.executor.queueCapacity}")
+	private int timeSeriesDataQueueCapacity;
+
+	/**
+	 * Executor used to fan out the Aquarius and NWIS-RA retrievals of a single report.
+	 * Tasks carry the submitting thread's SecurityContext (as Hystrix does with shareSecurityContext),
+	 * and run on the caller once the pool and queue are saturated rather than being rejected.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor reportBuilderExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(coreSize);
+		executor.setMaxPoolSize(maxSize);
+		executor.setQueueCapacity(queueCapacity);
+		executor.setThreadNamePrefix("report-builder-");
+		executor.setTaskDecorator(runnable -> DelegatingSecurityContextRunnable.create(runnable, null));
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		return executor;
+	}
+
+	/**
+	 * Executor completing the asynchronous report endpoints, so servlet threads are released while a report is
+	 * built and rendered. Tasks carry the request's SecurityContext; requests submitted once the pool and queue are
+	 * saturated are rejected and answered 503.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor reportRequestExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(reportRequestPoolSize);
+		executor.setMaxPoolSize(reportRequestPoolSize);
+		executor.setQueueCapacity(reportRequestQueueCapacity);
+		executor.setThreadNamePrefix("report-request-");
+		executor.setTaskDecorator(runnable -> DelegatingSecurityContextRunnable.create(runnable, null));
+		return executor;
+	}
+
+	/**
+	 * Executor building the reports of batch requests; its pool size bounds how many batch reports are built at
+	 * once. Batch tasks carry their own SecurityContext, and run on the thread writing the batch once the pool and
+	 * queue are saturated.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor reportBatchExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(reportBatchPoolSize);
+		executor.setMaxPoolSize(reportBatchPoolSize);
+		executor.setQueueCapacity(reportBatchQueueCapacity);
+		executor.setThreadNamePrefix("report-batch-");
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		return executor;
+	}
+
+	/**
+	 * Executor writing batch responses, one task per batch for as long as the batch runs. Kept apart from the report
+	 * streaming executor so batches cannot hold the threads streaming rawData responses; batches submitted once the
+	 * pool and queue are saturated are rejected and answered 503.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor reportBatchStreamingExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(reportBatchStreamingPoolSize);
+		executor.setMaxPoolSize(reportBatchStreamingPoolSize);
+		executor.setQueueCapacity(reportBatchStreamingQueueCapacity);
+		executor.setThreadNamePrefix("report-batch-streaming-");
+		return executor;
+	}
+
+	/**
+	 * Executor running report jobs off the request thread. Tasks carry the submitting thread's SecurityContext;
+	 * jobs submitted once the pool and queue are saturated are rejected.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor reportJobExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(reportJobPoolSize);
+		executor.setMaxPoolSize(reportJobPoolSize);
+		executor.setQueueCapacity(reportJobQueueCapacity);
+		executor.setThreadNamePrefix("report-job-");
+		executor.setTaskDecorator(runnable -> DelegatingSecurityContextRunnable.create(runnable, null));
+		return executor;
+	}
+
+	/**
+	 * Executor bounding the number of field visits retrieved from Aquarius at once for a report. Kept apart from the
+	 * report builder executor, whose tasks wait on these retrievals.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor fieldVisitDataExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(fieldVisitDataPoolSize);
+		executor.setMaxPoolSize(fieldVisitDataPoolSize);
+		executor.setQueueCapacity(fieldVisitDataQueueCapacity);
+		executor.setThreadNamePrefix("field-visit-data-");
+		executor.setTaskDecorator(runnable -> DelegatingSecurityContextRunnable.create(runnable, null));
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		return executor;
+	}
+
+	/**
+	 * Executor retrieving the missing water years of a time series concurrently. Kept apart from the report builder
+	 * executor, whose tasks wait on these retrievals, and run on the caller once the pool and queue are saturated.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor timeSeriesDataExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(timeSeriesDataPoolSize);
+		executor.setMaxPoolSize(timeSeriesDataPoolSize);
+		executor.setQueueCapacity(timeSeriesDataQueueCapacity);
+		executor.setThreadNamePrefix("time-series-data-");
+		executor.setTaskDecorator(runnable -> DelegatingSecurityContextRunnable.create(runnable, null));
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		return executor;
+	}
+}
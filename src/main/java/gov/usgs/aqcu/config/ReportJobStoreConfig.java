@@ -0,0 +1,68 @@
+package gov.usgs.aqcu.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import gov.usgs.aqcu.model.ReportJob;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+@Configuration
+public class ReportJobStoreConfig {
+
+	@Value("${reportJob.store.maxBytes}")
+	private long maxBytes;
+	@Value("${reportJob.store.expireAfterCompletionMinutes}")
+	private long expireAfterCompletionMinutes;
+
+	/**
+	 * Store of report jobs and their rendered results, bounded by the total size of the results held and expired
+	 * a fixed time after the job finishes. Queued and running jobs weigh nothing and do not expire, so neither
+	 * bound drops a job before it has finished. Metrics are published as the "cache.*" metrics tagged
+	 * cache=reportJob.
+	 */
+	@Bean
+	public Cache<String, ReportJob> reportJobStore(MeterRegistry meterRegistry) {
+		Cache<String, ReportJob> cache = Caffeine.newBuilder()
+				.maximumWeight(maxBytes)
+				.weigher((String id, ReportJob job) -> job.getWeight())
+				.expireAfter(new CompletionExpiry(TimeUnit.MINUTES.toNanos(expireAfterCompletionMinutes)))
+				.recordStats()
+				.build();
+		return CaffeineCacheMetrics.monitor(meterRegistry, cache, "reportJob");
+	}
+
+	/**
+	 * Expires a job the given time after it is stored finished; unfinished jobs never expire. The job service stores
+	 * a job again once it finishes, which restarts its expiry.
+	 */
+	public static class CompletionExpiry implements Expiry<String, ReportJob> {
+		private final long expireAfterCompletionNanos;
+
+		public CompletionExpiry(long expireAfterCompletionNanos) {
+			this.expireAfterCompletionNanos = expireAfterCompletionNanos;
+		}
+
+		@Override
+		public long expireAfterCreate(String id, ReportJob job, long currentTime) {
+			return job.isDone() ? expireAfterCompletionNanos : Long.MAX_VALUE;
+		}
+
+		@Override
+		public long expireAfterUpdate(String id, ReportJob job, long currentTime, long currentDuration) {
+			return job.isDone() ? expireAfterCompletionNanos : Long.MAX_VALUE;
+		}
+
+		@Override
+		public long expireAfterRead(String id, ReportJob job, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package gov.usgs.aqcu.config;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import gov.usgs.aqcu.retrieval.ApprovedSegmentStore;
+import gov.usgs.aqcu.retrieval.TimeSeriesDataCacheEntry;
+import gov.usgs.aqcu.retrieval.TimeSeriesDataKey;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+@Configuration
+public class TimeSeriesDataCacheConfig {
+
+	@Value("${timeSeriesDataCache.maxPoints}")
+	private long maxPoints;
+	@Value("${timeSeriesDataCache.expireAfterWriteMinutes}")
+	private long expireAfterWriteMinutes;
+	@Value("${approvedSegmentStore.maxPoints}")
+	private long approvedSegmentMaxPoints;
+
+	/**
+	 * Cache of corrected time series data shared by all reports. Bounded by the total number of points held
+	 * and expired a fixed time after being written. Hit, miss and eviction counts are published as the
+	 * "cache.*" metrics tagged cache=timeSeriesData.
+	 */
+	@Bean
+	public Cache<TimeSeriesDataKey, TimeSeriesDataCacheEntry> timeSeriesDataCache(MeterRegistry meterRegistry) {
+		Cache<TimeSeriesDataKey, TimeSeriesDataCacheEntry> cache = Caffeine.newBuilder()
+				.maximumWeight(maxPoints)
+				.weigher((TimeSeriesDataKey key, TimeSeriesDataCacheEntry entry) -> entry.getWeight())
+				.expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
+				.recordStats()
+				.build();
+		return CaffeineCacheMetrics.monitor(meterRegistry, cache, "timeSeriesData");
+	}
+
+	/**
+	 * In memory tier of the {@link ApprovedSegmentStore}: fully approved water years of corrected time series
+	 * data, bounded by the total number of points held and never expired. Metrics are published as the "cache.*"
+	 * metrics tagged cache=approvedSegment.
+	 */
+	@Bean
+	public Cache<TimeSeriesDataKey, TimeSeriesDataServiceResponse> approvedSegmentCache(MeterRegistry meterRegistry) {
+		Cache<TimeSeriesDataKey, TimeSeriesDataServiceResponse> cache = Caffeine.newBuilder()
+				.maximumWeight(approvedSegmentMaxPoints)
+				.weigher((TimeSeriesDataKey key, TimeSeriesDataServiceResponse response) ->
+						Math.max(1, response.getPoints() == null ? 0 : response.getPoints().size()))
+				.recordStats()
+				.build();
+		return CaffeineCacheMetrics.monitor(meterRegistry, cache, "approvedSegment");
+	}
+}
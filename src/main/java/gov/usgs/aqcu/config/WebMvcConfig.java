@@ -3,11 +3,14 @@ package gov.usgs.aqcu.config;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.CacheControl;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.GsonHttpMessageConverter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -20,6 +23,11 @@ import springfox.documentation.spring.web.json.Json;
 
 @Configuration
 public class WebMvcConfig implements WebMvcConfigurer {
+	@Value("${reportStreaming.executor.poolSize}")
+	private int reportStreamingPoolSize;
+	@Value("${reportStreaming.executor.queueCapacity}")
+	private int reportStreamingQueueCapacity;
+
 	@Override
 	public void addCorsMappings(CorsRegistry registry) {
 		registry.addMapping("/**");
@@ -41,6 +49,26 @@ public class WebMvcConfig implements WebMvcConfigurer {
 		converters.add(gsonHttpMessageConverter);
 	}
 
+	@Override
+	public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+		configurer.setTaskExecutor(reportStreamingExecutor());
+	}
+
+	/**
+	 * Executor Spring MVC writes StreamingResponseBody results (rawData reports) on; batches are written on the
+	 * report batch streaming executor. Writes submitted
+	 * once the pool and queue are saturated are rejected and answered 503.
+	 */
+	@Bean
+	public ThreadPoolTaskExecutor reportStreamingExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(reportStreamingPoolSize);
+		executor.setMaxPoolSize(reportStreamingPoolSize);
+		executor.setQueueCapacity(reportStreamingQueueCapacity);
+		executor.setThreadNamePrefix("report-streaming-");
+		return executor;
+	}
+
 	@Bean
 	public Gson gson() {
 		return AqcuGsonBuilderFactory.getConfiguredGsonBuilder()
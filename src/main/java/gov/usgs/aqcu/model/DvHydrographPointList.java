@@ -0,0 +1,215 @@
+package gov.usgs.aqcu.model;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.Temporal;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+import gov.usgs.aqcu.serializer.DvHydrographPointListTypeAdapterFactory;
+
+/**
+ * Columnar storage for the points of a single time series. Times are held as epoch days (daily series) or epoch
+ * seconds and nanoseconds (instantaneous series), and values as an unscaled long and a scale, so a series costs a
+ * few primitive arrays rather than a DvHydrographPoint, Temporal and BigDecimal per point. Values too large for a
+ * long are kept as BigDecimal.
+ *
+ * {@link #get(int)} returns a new DvHydrographPoint built from the stored columns; changing it does not change the list,
+ * {@link #set(int, DvHydrographPoint)} does. Points cannot be removed or inserted other than at the end.
+ * Serializes to the same JSON as a List of DvHydrographPoint; fields annotated with
+ * {@link DvHydrographPointListTypeAdapterFactory} write it without building the points.
+ */
+public class DvHydrographPointList extends AbstractList<DvHydrographPoint> implements RandomAccess {
+	private static final int NULL_SCALE = Integer.MIN_VALUE;
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private final boolean isDaily;
+	private int size;
+	private long[] times;
+	private int[] nanos;
+	private long[] unscaledValues;
+	private int[] scales;
+	private BigDecimal[] largeValues;
+
+	public DvHydrographPointList(boolean isDaily) {
+		this(isDaily, DEFAULT_CAPACITY);
+	}
+
+	public DvHydrographPointList(boolean isDaily, int initialCapacity) {
+		this.isDaily = isDaily;
+		times = new long[initialCapacity];
+		nanos = isDaily ? null : new int[initialCapacity];
+		unscaledValues = new long[initialCapacity];
+		scales = new int[initialCapacity];
+	}
+
+	public boolean isDaily() {
+		return isDaily;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public DvHydrographPoint get(int index) {
+		return new DvHydrographPoint().setTime(getTime(index)).setValue(getValue(index));
+	}
+
+	/**
+	 * Replaces the point's time and value, returning the point previously stored.
+	 */
+	@Override
+	public DvHydrographPoint set(int index, DvHydrographPoint point) {
+		DvHydrographPoint previous = get(index);
+		setTime(index, point.getTime());
+		setValue(index, point.getValue());
+		return previous;
+	}
+
+	@Override
+	public boolean add(DvHydrographPoint point) {
+		add(point.getTime(), point.getValue());
+		return true;
+	}
+
+	/**
+	 * Appends a point. The time must be a LocalDate for daily lists and an Instant otherwise.
+	 */
+	public void add(Temporal time, BigDecimal value) {
+		ensureCapacity(size + 1);
+		setTime(size, time);
+		setValue(size, value);
+		size++;
+		modCount++;
+	}
+
+	/**
+	 * Appends all points of the other list, copying its columns directly when it is a DvHydrographPointList
+	 * of the same kind.
+	 */
+	@Override
+	public boolean addAll(Collection<? extends DvHydrographPoint> points) {
+		if (!(points instanceof DvHydrographPointList) || ((DvHydrographPointList) points).isDaily != isDaily) {
+			return super.addAll(points);
+		}
+		DvHydrographPointList other = (DvHydrographPointList) points;
+		if (other.size == 0) {
+			return false;
+		}
+		ensureCapacity(size + other.size);
+		System.arraycopy(other.times, 0, times, size, other.size);
+		if (nanos != null) {
+			System.arraycopy(other.nanos, 0, nanos, size, other.size);
+		}
+		System.arraycopy(other.unscaledValues, 0, unscaledValues, size, other.size);
+		System.arraycopy(other.scales, 0, scales, size, other.size);
+		if (other.largeValues != null) {
+			if (largeValues == null) {
+				largeValues = new BigDecimal[times.length];
+			}
+			System.arraycopy(other.largeValues, 0, largeValues, size, other.size);
+		}
+		size += other.size;
+		modCount++;
+		return true;
+	}
+
+	public Temporal getTime(int index) {
+		checkIndex(index);
+		if (isDaily) {
+			return LocalDate.ofEpochDay(times[index]);
+		}
+		return Instant.ofEpochSecond(times[index], nanos[index]);
+	}
+
+	public BigDecimal getValue(int index) {
+		checkIndex(index);
+		if (largeValues != null && largeValues[index] != null) {
+			return largeValues[index];
+		}
+		if (scales[index] == NULL_SCALE) {
+			return null;
+		}
+		return BigDecimal.valueOf(unscaledValues[index], scales[index]);
+	}
+
+	public void trimToSize() {
+		if (times.length > size) {
+			resize(size);
+		}
+	}
+
+	protected void setTime(int index, Temporal time) {
+		if (isDaily) {
+			times[index] = toLocalDate(time).toEpochDay();
+		} else {
+			Instant instant = toInstant(time);
+			times[index] = instant.getEpochSecond();
+			nanos[index] = instant.getNano();
+		}
+	}
+
+	protected void setValue(int index, BigDecimal value) {
+		if (largeValues != null) {
+			largeValues[index] = null;
+		}
+		if (value == null) {
+			scales[index] = NULL_SCALE;
+			return;
+		}
+		BigInteger unscaled = value.unscaledValue();
+		if (unscaled.bitLength() < Long.SIZE && value.scale() != NULL_SCALE) {
+			unscaledValues[index] = unscaled.longValue();
+			scales[index] = value.scale();
+		} else {
+			if (largeValues == null) {
+				largeValues = new BigDecimal[times.length];
+			}
+			largeValues[index] = value;
+		}
+	}
+
+	protected void ensureCapacity(int capacity) {
+		if (times.length < capacity) {
+			resize(Math.max(capacity, times.length + (times.length >> 1) + 1));
+		}
+	}
+
+	protected void resize(int capacity) {
+		times = Arrays.copyOf(times, capacity);
+		if (nanos != null) {
+			nanos = Arrays.copyOf(nanos, capacity);
+		}
+		unscaledValues = Arrays.copyOf(unscaledValues, capacity);
+		scales = Arrays.copyOf(scales, capacity);
+		if (largeValues != null) {
+			largeValues = Arrays.copyOf(largeValues, capacity);
+		}
+	}
+
+	protected void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+
+	protected LocalDate toLocalDate(Temporal time) {
+		if (!(time instanceof LocalDate)) {
+			throw new IllegalArgumentException("Daily points require a LocalDate time, got: " + time);
+		}
+		return (LocalDate) time;
+	}
+
+	protected Instant toInstant(Temporal time) {
+		if (!(time instanceof Instant)) {
+			throw new IllegalArgumentException("Instantaneous points require an Instant time, got: " + time);
+		}
+		return (Instant) time;
+	}
+}
@@ -0,0 +1,26 @@
+package gov.usgs.aqcu.model;
+
+/**
+ * A report rendered by JavaToR along with its entity tag. The HTML is null when the client already holds the
+ * report (its If-None-Match matched the entity tag) and rendering was skipped.
+ */
+public class RenderedReport {
+	private final String eTag;
+	private final byte[] html;
+
+	public RenderedReport(String eTag, byte[] html) {
+		this.eTag = eTag;
+		this.html = html;
+	}
+
+	public String getETag() {
+		return eTag;
+	}
+	public byte[] getHtml() {
+		return html;
+	}
+
+	public boolean isNotModified() {
+		return html == null;
+	}
+}
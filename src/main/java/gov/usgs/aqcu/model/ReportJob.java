@@ -0,0 +1,101 @@
+package gov.usgs.aqcu.model;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A report built in the background. The status fields are returned to clients polling the job; the requesting
+ * user, the rendered result and its content type are kept out of the JSON.
+ */
+public class ReportJob {
+	public enum Status { QUEUED, RUNNING, COMPLETE, FAILED }
+
+	private final String id;
+	private final String reportType;
+	private final Instant created;
+	private volatile Status status = Status.QUEUED;
+	private volatile Instant completed;
+	private volatile String error;
+	private final transient String requestingUser;
+	private transient volatile byte[] result;
+	private transient volatile String contentType;
+	private final transient CompletableFuture<ReportJob> completion = new CompletableFuture<>();
+
+	public ReportJob(String id, String reportType, String requestingUser) {
+		this.id = id;
+		this.reportType = reportType;
+		this.requestingUser = requestingUser;
+		this.created = Instant.now();
+	}
+
+	public String getId() {
+		return id;
+	}
+	public String getReportType() {
+		return reportType;
+	}
+	public Instant getCreated() {
+		return created;
+	}
+	public Status getStatus() {
+		return status;
+	}
+	public Instant getCompleted() {
+		return completed;
+	}
+	public String getError() {
+		return error;
+	}
+	public String getRequestingUser() {
+		return requestingUser;
+	}
+	public byte[] getResult() {
+		return result;
+	}
+	public String getContentType() {
+		return contentType;
+	}
+
+	/**
+	 * Completes with this job once it has finished, whether it succeeded or failed.
+	 */
+	public CompletableFuture<ReportJob> getCompletion() {
+		return completion;
+	}
+
+	public boolean isDone() {
+		return completion.isDone();
+	}
+
+	public void start() {
+		status = Status.RUNNING;
+	}
+
+	public void complete(byte[] result, String contentType) {
+		this.result = result;
+		this.contentType = contentType;
+		finish(Status.COMPLETE);
+	}
+
+	public void fail(String error) {
+		this.error = error;
+		finish(Status.FAILED);
+	}
+
+	/**
+	 * Weight of the job in the result store: none until the job has finished, so it cannot be evicted before then,
+	 * and then the size of its result in bytes (at least one).
+	 */
+	public int getWeight() {
+		if (!isDone()) {
+			return 0;
+		}
+		return result == null ? 1 : Math.max(1, result.length);
+	}
+
+	private void finish(Status status) {
+		this.completed = Instant.now();
+		this.status = status;
+		completion.complete(this);
+	}
+}
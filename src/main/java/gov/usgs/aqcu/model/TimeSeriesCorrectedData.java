@@ -5,6 +5,9 @@ import java.util.List;
 
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Approval;
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.GapTolerance;
+import com.google.gson.annotations.JsonAdapter;
+
+import gov.usgs.aqcu.serializer.DvHydrographPointListTypeAdapterFactory;
 
 public class TimeSeriesCorrectedData {
 
@@ -16,6 +19,7 @@ public class TimeSeriesCorrectedData {
 	private List<String> grades; //not used according to doc, but required per R
 	private boolean isVolumetricFlow;
 	private String name; //not used according to doc, but required per R
+	@JsonAdapter(DvHydrographPointListTypeAdapterFactory.class)
 	private List<DvHydrographPoint> points;
 	private List<String> qualifiers; //not used according to doc, but required per R (startTime, endTime, identifier)
 	private Temporal startTime;
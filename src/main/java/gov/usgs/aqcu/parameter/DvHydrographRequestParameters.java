@@ -1,5 +1,12 @@
 package gov.usgs.aqcu.parameter;
 
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+
 import gov.usgs.aqcu.validation.StatDerivedIdentifierPresent;
 
 @StatDerivedIdentifierPresent
@@ -84,4 +91,34 @@ public class DvHydrographRequestParameters extends ReportRequestParameters {
 		this.excludeMinMax = excludeMinMax;
 	}
 
+	/**
+	 * Canonical key of the report requested. Parameters are listed by name, so the order they were given in
+	 * does not matter, and the period is listed as resolved, so lastMonths, waterYear and explicit dates naming
+	 * the same period give the same key. The report type (parameter class) is part of the key.
+	 */
+	public String getRequestKey() {
+		Map<String, Object> parameters = new TreeMap<>();
+		Pair<LocalDate, LocalDate> period = getRequestPeriod();
+		parameters.put("period", period.getLeft() + "/" + period.getRight());
+		putIfNotBlank(parameters, "primaryTimeseriesIdentifier", getPrimaryTimeseriesIdentifier());
+		putIfNotBlank(parameters, "firstStatDerivedIdentifier", firstStatDerivedIdentifier);
+		putIfNotBlank(parameters, "secondStatDerivedIdentifier", secondStatDerivedIdentifier);
+		putIfNotBlank(parameters, "thirdStatDerivedIdentifier", thirdStatDerivedIdentifier);
+		putIfNotBlank(parameters, "fourthStatDerivedIdentifier", fourthStatDerivedIdentifier);
+		putIfNotBlank(parameters, "firstReferenceIdentifier", firstReferenceIdentifier);
+		putIfNotBlank(parameters, "secondReferenceIdentifier", secondReferenceIdentifier);
+		putIfNotBlank(parameters, "thirdReferenceIdentifier", thirdReferenceIdentifier);
+		putIfNotBlank(parameters, "comparisonTimeseriesIdentifier", comparisonTimeseriesIdentifier);
+		parameters.put("excludeZeroNegative", excludeZeroNegative);
+		parameters.put("excludeDiscrete", excludeDiscrete);
+		parameters.put("excludeMinMax", excludeMinMax);
+		return getClass().getSimpleName() + parameters;
+	}
+
+	private static void putIfNotBlank(Map<String, Object> parameters, String name, String value) {
+		if (StringUtils.isNotBlank(value)) {
+			parameters.put(name, value);
+		}
+	}
+
 }
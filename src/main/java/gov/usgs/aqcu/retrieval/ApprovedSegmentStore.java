@@ -0,0 +1,194 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Approval;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Corrected time series data of water years that are entirely at approvedSegmentStore.approvalLevel (Approved,
+ * by default). Approved data does not change, so these segments are kept without expiry and are used whatever the
+ * series' last modified time: in a point bounded in memory cache and, when approvedSegmentStore.directory is set,
+ * in a {@link MappedSegmentStore} of at most approvedSegmentStore.maxBytes that outlives restarts, whose size is
+ * published as the approved.segment.store.bytes and approved.segment.store.segments gauges. Segments read from the
+ * mapped store are not copied back into the in memory cache, so between requests their points are held only in the
+ * page cache; each read decodes the whole segment into a new response on the heap, which lives as long as the
+ * request using it. That cost is published as the approved.segment.store.decode timer and the
+ * approved.segment.store.decoded.points summary. Segments that are not fully approved are left to the
+ * {@link TimeSeriesDataCacheService} cache and its TTL.
+ */
+@Repository
+public class ApprovedSegmentStore {
+	private static final Logger LOG = LoggerFactory.getLogger(ApprovedSegmentStore.class);
+
+	private Cache<TimeSeriesDataKey, TimeSeriesDataServiceResponse> approvedSegmentCache;
+	private MappedSegmentStore mappedSegmentStore;
+	private Timer decodeTimer;
+	private DistributionSummary decodedPoints;
+	private int approvalLevel;
+
+	@Autowired
+	public ApprovedSegmentStore(
+			@Qualifier("approvedSegmentCache") Cache<TimeSeriesDataKey, TimeSeriesDataServiceResponse> approvedSegmentCache,
+			@Value("${approvedSegmentStore.directory}") String directory,
+			@Value("${approvedSegmentStore.maxBytes}") long maxBytes,
+			@Value("${approvedSegmentStore.approvalLevel}") int approvalLevel,
+			MeterRegistry meterRegistry) {
+		this.approvedSegmentCache = approvedSegmentCache;
+		this.approvalLevel = approvalLevel;
+		if (StringUtils.isNotBlank(directory)) {
+			mappedSegmentStore = new MappedSegmentStore(Paths.get(directory), maxBytes);
+			Gauge.builder("approved.segment.store.bytes", mappedSegmentStore, MappedSegmentStore::getTotalBytes)
+					.baseUnit("bytes")
+					.register(meterRegistry);
+			Gauge.builder("approved.segment.store.segments", mappedSegmentStore, MappedSegmentStore::getSegments)
+					.register(meterRegistry);
+			decodeTimer = Timer.builder("approved.segment.store.decode")
+					.register(meterRegistry);
+			decodedPoints = DistributionSummary.builder("approved.segment.store.decoded.points")
+					.register(meterRegistry);
+		}
+	}
+
+	/**
+	 * The stored segment for the key, or null when the key's window is not a single water year or the water year
+	 * has not been stored as approved.
+	 */
+	public TimeSeriesDataServiceResponse get(TimeSeriesDataKey key) {
+		if (!isWaterYearSegment(key)) {
+			return null;
+		}
+		TimeSeriesDataServiceResponse response = approvedSegmentCache.getIfPresent(key);
+		if (response == null && mappedSegmentStore != null) {
+			response = decodeTimer.record(() -> mappedSegmentStore.get(key));
+			if (response != null) {
+				LOG.debug("Using approved time series data for {} from the segment store", key);
+				decodedPoints.record(response.getPoints() == null ? 0 : response.getPoints().size());
+			}
+		}
+		return response;
+	}
+
+	/**
+	 * Stores the response when the key's window is a single water year and the response's approvals cover all of
+	 * it at the approved level. Returns whether it was stored.
+	 */
+	public boolean putIfApproved(TimeSeriesDataKey key, TimeSeriesDataServiceResponse response) {
+		if (!isWaterYearSegment(key) || !isApproved(key.getStartInstant(), key.getEndInstant(), response.getApprovals())) {
+			return false;
+		}
+		LOG.debug("Storing approved time series data for {}", key);
+		approvedSegmentCache.put(key, response);
+		if (mappedSegmentStore != null) {
+			mappedSegmentStore.put(key, response);
+		}
+		return true;
+	}
+
+	/**
+	 * Drops the key's segment.
+	 */
+	public void remove(TimeSeriesDataKey key) {
+		approvedSegmentCache.invalidate(key);
+		if (mappedSegmentStore != null) {
+			mappedSegmentStore.remove(key);
+		}
+	}
+
+	/**
+	 * Drops the series' segments, for example after an approval has been revoked.
+	 */
+	public void invalidate(String timeSeriesIdentifier) {
+		invalidate(timeSeriesIdentifier, null);
+	}
+
+	/**
+	 * Drops the series' segments whose window ends after changedFrom (the first point changed), or all of them when
+	 * changedFrom is null.
+	 */
+	public void invalidate(String timeSeriesIdentifier, Instant changedFrom) {
+		approvedSegmentCache.asMap().keySet().removeIf(x -> x.isChanged(timeSeriesIdentifier, changedFrom));
+		if (mappedSegmentStore != null) {
+			mappedSegmentStore.invalidate(timeSeriesIdentifier, changedFrom);
+		}
+	}
+
+	public void invalidateAll() {
+		approvedSegmentCache.invalidateAll();
+		if (mappedSegmentStore != null) {
+			mappedSegmentStore.invalidateAll();
+		}
+	}
+
+	/**
+	 * The token of the Aquarius changes the stored segments are up to date with, or null when there is no store on
+	 * disk or it holds no token.
+	 */
+	public Instant getChangesSinceToken() {
+		return mappedSegmentStore == null ? null : mappedSegmentStore.getChangesSinceToken();
+	}
+
+	public void setChangesSinceToken(Instant changesSinceToken) {
+		if (mappedSegmentStore != null) {
+			mappedSegmentStore.setChangesSinceToken(changesSinceToken);
+		}
+	}
+
+	@PreDestroy
+	public void close() {
+		if (mappedSegmentStore != null) {
+			mappedSegmentStore.close();
+		}
+	}
+
+	/**
+	 * Whether the approvals at or above the approval level leave no part of [start, end] uncovered.
+	 */
+	protected boolean isApproved(Instant start, Instant end, List<Approval> approvals) {
+		if (approvals == null) {
+			return false;
+		}
+		List<Approval> approved = approvals.stream()
+				.filter(x -> x.getApprovalLevel() != null && x.getApprovalLevel() >= approvalLevel)
+				.filter(x -> x.getStartTime() != null && x.getEndTime() != null)
+				.sorted(Comparator.comparing(Approval::getStartTime))
+				.collect(Collectors.toList());
+		Instant covered = start;
+		for (Approval approval : approved) {
+			if (approval.getStartTime().isAfter(covered)) {
+				return false;
+			}
+			if (approval.getEndTime().isAfter(covered)) {
+				covered = approval.getEndTime();
+			}
+			if (!covered.isBefore(end)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	protected boolean isWaterYearSegment(TimeSeriesDataKey key) {
+		return TimeSeriesDataSegments.getWaterYearSegments(key).size() == 1;
+	}
+}
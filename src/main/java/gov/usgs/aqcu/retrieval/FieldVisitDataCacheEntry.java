@@ -0,0 +1,37 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.time.Instant;
+import java.util.Objects;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.FieldVisitDataServiceResponse;
+
+/**
+ * A cached field visit data response, along with the location of the visit and the last modified time of the visit
+ * description it was retrieved under. The response is only reused while the description still reports the same
+ * last modified time.
+ */
+public class FieldVisitDataCacheEntry {
+	private final FieldVisitDataServiceResponse response;
+	private final String locationIdentifier;
+	private final Instant lastModified;
+
+	public FieldVisitDataCacheEntry(FieldVisitDataServiceResponse response, String locationIdentifier, Instant lastModified) {
+		this.response = response;
+		this.locationIdentifier = locationIdentifier;
+		this.lastModified = lastModified;
+	}
+
+	public FieldVisitDataServiceResponse getResponse() {
+		return response;
+	}
+	public String getLocationIdentifier() {
+		return locationIdentifier;
+	}
+	public Instant getLastModified() {
+		return lastModified;
+	}
+
+	public boolean isCurrent(Instant descriptionLastModified) {
+		return lastModified != null && Objects.equals(lastModified, descriptionLastModified);
+	}
+}
@@ -0,0 +1,65 @@
+package gov.usgs.aqcu.retrieval;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.FieldVisitDataServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.FieldVisitDescription;
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * Caches field visit data retrieved through {@link FieldVisitDataService}, keyed by visit identifier. A cached
+ * visit is used only while its description still reports the last modified time the visit was retrieved under;
+ * descriptions without a last modified time are never cached. Concurrent retrievals of the same visit are coalesced
+ * through the {@link InFlightRequestRegistry}.
+ */
+@Repository
+public class FieldVisitDataCacheService {
+	private static final Logger LOG = LoggerFactory.getLogger(FieldVisitDataCacheService.class);
+	private static final String RETRIEVAL = "fieldVisitData";
+
+	private FieldVisitDataService fieldVisitDataService;
+	private InFlightRequestRegistry inFlightRequestRegistry;
+	private Cache<String, FieldVisitDataCacheEntry> fieldVisitDataCache;
+
+	@Autowired
+	public FieldVisitDataCacheService(FieldVisitDataService fieldVisitDataService, InFlightRequestRegistry inFlightRequestRegistry,
+			@Qualifier("fieldVisitDataCache") Cache<String, FieldVisitDataCacheEntry> fieldVisitDataCache) {
+		this.fieldVisitDataService = fieldVisitDataService;
+		this.inFlightRequestRegistry = inFlightRequestRegistry;
+		this.fieldVisitDataCache = fieldVisitDataCache;
+	}
+
+	public FieldVisitDataServiceResponse get(FieldVisitDescription description) {
+		String identifier = description.getIdentifier();
+		FieldVisitDataCacheEntry cached = fieldVisitDataCache.getIfPresent(identifier);
+		if (cached != null) {
+			if (cached.isCurrent(description.getLastModified())) {
+				LOG.debug("Using cached field visit data for {}", identifier);
+				return cached.getResponse();
+			}
+			LOG.debug("Field visit {} modified since it was cached", identifier);
+			fieldVisitDataCache.asMap().remove(identifier, cached);
+		}
+
+		return inFlightRequestRegistry.get(RETRIEVAL, identifier, () -> {
+			FieldVisitDataServiceResponse response = fieldVisitDataService.get(identifier);
+			if (response != null && description.getLastModified() != null) {
+				fieldVisitDataCache.put(identifier, new FieldVisitDataCacheEntry(response,
+						description.getLocationIdentifier(), description.getLastModified()));
+			}
+			return response;
+		});
+	}
+
+	public void invalidateLocation(String locationIdentifier) {
+		fieldVisitDataCache.asMap().values().removeIf(x -> locationIdentifier.equals(x.getLocationIdentifier()));
+	}
+
+	public void invalidateAll() {
+		fieldVisitDataCache.invalidateAll();
+	}
+}
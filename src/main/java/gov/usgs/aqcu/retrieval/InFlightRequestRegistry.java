@@ -0,0 +1,76 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Single flight registry for upstream retrievals. While a retrieval for a key is in flight, callers asking for the
+ * same key wait for its result (or exception) instead of issuing a duplicate request; the key is released as soon
+ * as the retrieval completes, so nothing is cached here. Retrievals sent upstream and calls coalesced onto another
+ * caller's retrieval are counted as retrieval.upstream and retrieval.coalesced, tagged by retrieval, and the number
+ * in flight is the retrieval.inflight gauge.
+ */
+@Component
+public class InFlightRequestRegistry {
+	public static final String UPSTREAM_COUNTER = "retrieval.upstream";
+	public static final String COALESCED_COUNTER = "retrieval.coalesced";
+
+	private final ConcurrentHashMap<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	public InFlightRequestRegistry(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+		Gauge.builder("retrieval.inflight", inFlight, ConcurrentHashMap::size).register(meterRegistry);
+	}
+
+	/**
+	 * Runs the retrieval on the calling thread unless one for the same retrieval and key is already in flight, in
+	 * which case its result is returned or its exception thrown. Results are shared between callers, so they must
+	 * not be modified.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(String retrieval, Object key, Supplier<T> call) {
+		List<Object> inFlightKey = Arrays.asList(retrieval, key);
+		CompletableFuture<Object> result = new CompletableFuture<>();
+		CompletableFuture<Object> existing = inFlight.putIfAbsent(inFlightKey, result);
+		if (existing != null) {
+			counter(COALESCED_COUNTER, retrieval).increment();
+			try {
+				return (T) existing.join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw e;
+			}
+		}
+
+		counter(UPSTREAM_COUNTER, retrieval).increment();
+		try {
+			T value = call.get();
+			result.complete(value);
+			return value;
+		} catch (RuntimeException | Error e) {
+			result.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(inFlightKey, result);
+		}
+	}
+
+	protected Counter counter(String name, String retrieval) {
+		return Counter.builder(name).tag("retrieval", retrieval).register(meterRegistry);
+	}
+}
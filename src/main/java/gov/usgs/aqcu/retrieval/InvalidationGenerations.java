@@ -0,0 +1,44 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Invalidation generations of time series, so a retrieval that was in flight when its series was invalidated does
+ * not cache what it retrieved. A retrieval takes the series' generation before it calls upstream and caches the
+ * result only while the generation is unchanged, checking again after caching and removing the entry when an
+ * invalidation came in between. One generation is kept per series ever invalidated.
+ */
+public class InvalidationGenerations {
+	private final AtomicLong sequence = new AtomicLong();
+	private final ConcurrentHashMap<String, Long> invalidated = new ConcurrentHashMap<>();
+	private volatile long allInvalidated;
+
+	/**
+	 * The series' current generation, to be taken before retrieving it.
+	 */
+	public long get(String timeSeriesIdentifier) {
+		return Math.max(allInvalidated, invalidated.getOrDefault(timeSeriesIdentifier, 0L));
+	}
+
+	/**
+	 * Whether the series has not been invalidated since the generation was taken.
+	 */
+	public boolean isCurrent(String timeSeriesIdentifier, long generation) {
+		return get(timeSeriesIdentifier) == generation;
+	}
+
+	/**
+	 * Starts a new generation of the series. Called before its cached entries are dropped.
+	 */
+	public void invalidate(String timeSeriesIdentifier) {
+		invalidated.merge(timeSeriesIdentifier, sequence.incrementAndGet(), Math::max);
+	}
+
+	/**
+	 * Starts a new generation of every series. Called before all cached entries are dropped.
+	 */
+	public void invalidateAll() {
+		allInvalidated = sequence.incrementAndGet();
+	}
+}
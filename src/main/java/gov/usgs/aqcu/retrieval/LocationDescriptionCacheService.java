@@ -0,0 +1,34 @@
+package gov.usgs.aqcu.retrieval;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.LocationDescription;
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * Caches location descriptions retrieved through {@link LocationDescriptionListService}, keyed by location
+ * identifier. Locations Aquarius does not return are not cached.
+ */
+@Repository
+public class LocationDescriptionCacheService {
+
+	private LocationDescriptionListService locationDescriptionListService;
+	private Cache<String, LocationDescription> locationDescriptionCache;
+
+	@Autowired
+	public LocationDescriptionCacheService(LocationDescriptionListService locationDescriptionListService,
+			@Qualifier("locationDescriptionCache") Cache<String, LocationDescription> locationDescriptionCache) {
+		this.locationDescriptionListService = locationDescriptionListService;
+		this.locationDescriptionCache = locationDescriptionCache;
+	}
+
+	public LocationDescription getByLocationIdentifier(String locationIdentifier) {
+		return locationDescriptionCache.get(locationIdentifier, locationDescriptionListService::getByLocationIdentifier);
+	}
+
+	public void invalidateAll() {
+		locationDescriptionCache.invalidateAll();
+	}
+}
@@ -0,0 +1,311 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+
+import gov.usgs.aqcu.builder.ETags;
+
+/**
+ * On disk store of time series data segments in the {@link SegmentFile} layout, one file per segment, read through
+ * memory mapped buffers so stored points live in the page cache instead of the Java heap until a read decodes
+ * them. An index file records
+ * each segment's series, size and last access; when the total size exceeds maxBytes the least recently used
+ * segments are deleted. The index is rewritten whenever segments are added or removed and when the store is
+ * closed, and is read back on construction, so the store is warm after a restart. Next to the index the store
+ * keeps the token of the Aquarius changes its segments are up to date with, so a restart can catch up on the
+ * changes made while it was down.
+ */
+public class MappedSegmentStore {
+	private static final Logger LOG = LoggerFactory.getLogger(MappedSegmentStore.class);
+	private static final String FILE_SUFFIX = ".seg";
+	private static final String INDEX_FILE = "index";
+	private static final String CHANGES_FILE = "changes";
+
+	private final Path directory;
+	private final long maxBytes;
+	private final Map<String, Entry> index = new ConcurrentHashMap<>();
+	private final Map<String, MappedByteBuffer> mapped = new ConcurrentHashMap<>();
+
+	public MappedSegmentStore(Path directory, long maxBytes) {
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+		readIndex();
+	}
+
+	/**
+	 * The stored segment for the key, decoded from its mapped file, or null when none is stored. Decoding an
+	 * already mapped segment takes no lock; mapping a file and deleting a segment that cannot be read are
+	 * synchronized with put, so neither acts on a segment that put has just replaced.
+	 */
+	public TimeSeriesDataServiceResponse get(TimeSeriesDataKey key) {
+		String name = getName(key);
+		Entry entry = index.get(name);
+		if (entry == null) {
+			return null;
+		}
+		MappedByteBuffer segment = mapped.get(name);
+		if (segment == null && (segment = map(name)) == null) {
+			return null;
+		}
+		try {
+			entry.lastAccess = System.currentTimeMillis();
+			return SegmentFile.decode(segment);
+		} catch (IOException | RuntimeException e) {
+			LOG.warn("Unable to read segment " + name + " of " + key + ", removing it", e);
+			remove(name, segment);
+			return null;
+		}
+	}
+
+	public synchronized void put(TimeSeriesDataKey key, TimeSeriesDataServiceResponse response) {
+		String name = getName(key);
+		ByteBuffer segment = SegmentFile.encode(response);
+		try {
+			Files.createDirectories(directory);
+			Path temp = Files.createTempFile(directory, name, ".tmp");
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				while (segment.hasRemaining()) {
+					channel.write(segment);
+				}
+			}
+			Files.move(temp, directory.resolve(name + FILE_SUFFIX), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			mapped.remove(name);
+			index.put(name, new Entry(key.getTimeSeriesIdentifier(), segment.limit(), System.currentTimeMillis(),
+					key.getEndInstant() == null ? Long.MAX_VALUE : key.getEndInstant().toEpochMilli()));
+			evict();
+			writeIndex();
+		} catch (IOException e) {
+			LOG.warn("Unable to write segment " + key + " to " + directory, e);
+		}
+	}
+
+	public synchronized void remove(TimeSeriesDataKey key) {
+		String name = getName(key);
+		if (index.containsKey(name)) {
+			delete(name);
+			writeIndex();
+		}
+	}
+
+	public void invalidate(String timeSeriesIdentifier) {
+		invalidate(timeSeriesIdentifier, null);
+	}
+
+	/**
+	 * Deletes the series' segments whose window ends after changedFrom, or all of them when changedFrom is null.
+	 */
+	public synchronized void invalidate(String timeSeriesIdentifier, Instant changedFrom) {
+		index.entrySet().stream()
+				.filter(x -> timeSeriesIdentifier.equals(x.getValue().timeSeriesIdentifier))
+				.filter(x -> changedFrom == null || x.getValue().end > changedFrom.toEpochMilli())
+				.map(Map.Entry::getKey)
+				.collect(Collectors.toList())
+				.forEach(this::delete);
+		writeIndex();
+	}
+
+	public synchronized void invalidateAll() {
+		new ArrayList<>(index.keySet()).forEach(this::delete);
+		writeIndex();
+	}
+
+	/**
+	 * Writes the index, so last access times survive a restart.
+	 */
+	public synchronized void close() {
+		writeIndex();
+		mapped.clear();
+	}
+
+	/**
+	 * The stored changes token, or null when none is stored or it cannot be read.
+	 */
+	public Instant getChangesSinceToken() {
+		try {
+			return Instant.parse(new String(Files.readAllBytes(directory.resolve(CHANGES_FILE)), StandardCharsets.UTF_8).trim());
+		} catch (NoSuchFileException e) {
+			LOG.debug("No changes token in {}", directory);
+		} catch (IOException | RuntimeException e) {
+			LOG.warn("Unable to read the changes token in " + directory, e);
+		}
+		return null;
+	}
+
+	public synchronized void setChangesSinceToken(Instant changesSinceToken) {
+		try {
+			Files.createDirectories(directory);
+			Path temp = Files.createTempFile(directory, CHANGES_FILE, ".tmp");
+			Files.write(temp, changesSinceToken.toString().getBytes(StandardCharsets.UTF_8));
+			Files.move(temp, directory.resolve(CHANGES_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOG.warn("Unable to write the changes token in " + directory, e);
+		}
+	}
+
+	public long getTotalBytes() {
+		return index.values().stream().mapToLong(x -> x.bytes).sum();
+	}
+	public int getSegments() {
+		return index.size();
+	}
+
+	/**
+	 * Deletes the segment when the buffer that could not be read is still its mapping, that is when put has not
+	 * replaced the segment since.
+	 */
+	protected synchronized void remove(String name, MappedByteBuffer segment) {
+		if (mapped.remove(name, segment)) {
+			delete(name);
+			writeIndex();
+		}
+	}
+
+	/**
+	 * Deletes the least recently used segments until the store is within maxBytes.
+	 */
+	protected void evict() {
+		long total = getTotalBytes();
+		if (total <= maxBytes) {
+			return;
+		}
+		List<Map.Entry<String, Entry>> oldestFirst = new ArrayList<>(index.entrySet());
+		oldestFirst.sort(Comparator.comparingLong(x -> x.getValue().lastAccess));
+		for (Map.Entry<String, Entry> entry : oldestFirst) {
+			if (total <= maxBytes) {
+				break;
+			}
+			LOG.debug("Evicting segment {} of {}", entry.getKey(), entry.getValue().timeSeriesIdentifier);
+			total -= entry.getValue().bytes;
+			delete(entry.getKey());
+		}
+	}
+
+	protected void delete(String name) {
+		index.remove(name);
+		mapped.remove(name);
+		try {
+			Files.deleteIfExists(directory.resolve(name + FILE_SUFFIX));
+		} catch (IOException e) {
+			LOG.warn("Unable to delete segment " + name + " from " + directory, e);
+		}
+	}
+
+	/**
+	 * The mapping of the segment's file, mapping it when it is not yet mapped. Returns null when the segment is no
+	 * longer stored, and deletes it when its file cannot be mapped.
+	 */
+	protected synchronized MappedByteBuffer map(String name) {
+		if (!index.containsKey(name)) {
+			return null;
+		}
+		MappedByteBuffer segment = mapped.get(name);
+		if (segment == null) {
+			try (FileChannel channel = FileChannel.open(directory.resolve(name + FILE_SUFFIX), StandardOpenOption.READ)) {
+				segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				mapped.put(name, segment);
+			} catch (IOException e) {
+				LOG.warn("Unable to map segment " + name + " in " + directory + ", removing it", e);
+				delete(name);
+				writeIndex();
+			}
+		}
+		return segment;
+	}
+
+	protected static String getName(TimeSeriesDataKey key) {
+		return ETags.hash(key.toString());
+	}
+
+	/**
+	 * Index lines are name, bytes, last access and window end (epoch millis) and series identifier, tab separated. Entries whose
+	 * file is missing are dropped and segment files not in the index are deleted.
+	 */
+	protected void readIndex() {
+		Set<String> files = new HashSet<>();
+		if (Files.isDirectory(directory)) {
+			try (Stream<Path> list = Files.list(directory)) {
+				list.map(x -> x.getFileName().toString())
+						.filter(x -> x.endsWith(FILE_SUFFIX))
+						.forEach(x -> files.add(x.substring(0, x.length() - FILE_SUFFIX.length())));
+			} catch (IOException e) {
+				LOG.warn("Unable to list segments in " + directory, e);
+			}
+		}
+
+		try (BufferedReader reader = Files.newBufferedReader(directory.resolve(INDEX_FILE), StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split("\t", 5);
+				if (fields.length == 5 && files.contains(fields[0])) {
+					index.put(fields[0], new Entry(fields[4], Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+							Long.parseLong(fields[3])));
+				}
+			}
+		} catch (NoSuchFileException e) {
+			LOG.debug("No segment index in {}", directory);
+		} catch (IOException | RuntimeException e) {
+			LOG.warn("Unable to read segment index in " + directory + ", starting empty", e);
+			index.clear();
+		}
+
+		files.stream().filter(x -> !index.containsKey(x)).forEach(this::delete);
+		LOG.info("Segment store {} holds {} segments, {} bytes", directory, index.size(), getTotalBytes());
+	}
+
+	protected void writeIndex() {
+		try {
+			Files.createDirectories(directory);
+			Path temp = Files.createTempFile(directory, INDEX_FILE, ".tmp");
+			try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+				for (Map.Entry<String, Entry> entry : index.entrySet()) {
+					writer.write(entry.getKey() + "\t" + entry.getValue().bytes + "\t" + entry.getValue().lastAccess
+							+ "\t" + entry.getValue().end + "\t" + entry.getValue().timeSeriesIdentifier);
+					writer.newLine();
+				}
+			}
+			Files.move(temp, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			LOG.warn("Unable to write segment index in " + directory, e);
+		}
+	}
+
+	protected static class Entry {
+		private final String timeSeriesIdentifier;
+		private final long bytes;
+		private final long end;
+		private volatile long lastAccess;
+
+		protected Entry(String timeSeriesIdentifier, long bytes, long lastAccess, long end) {
+			this.timeSeriesIdentifier = timeSeriesIdentifier;
+			this.bytes = bytes;
+			this.lastAccess = lastAccess;
+			this.end = end;
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import gov.usgs.aqcu.model.nwis.ParameterRecord;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Hash indexes of the NWIS-RA Aquarius parameter name and unit aliases used to find NWIS pcodes. Each index is
+ * loaded the first time it is needed and then refreshed in the background; a failed refresh keeps the previous
+ * index. Index sizes and ages are published as the nwis.parameter.index.size and nwis.parameter.index.age gauges.
+ */
+@Service
+public class NwisParameterIndexService {
+	private static final Logger LOG = LoggerFactory.getLogger(NwisParameterIndexService.class);
+
+	private NwisRaService nwisRaService;
+	private volatile ParameterIndex<String> nameIndex;
+	private volatile ParameterIndex<Pair<String, String>> unitIndex;
+
+	@Autowired
+	public NwisParameterIndexService(NwisRaService nwisRaService, MeterRegistry meterRegistry) {
+		this.nwisRaService = nwisRaService;
+		registerGauges(meterRegistry, "names", x -> x.nameIndex);
+		registerGauges(meterRegistry, "units", x -> x.unitIndex);
+	}
+
+	/**
+	 * Finds the pcode of the NWIS parameter whose name alias is the Aquarius parameter name and whose unit alias is
+	 * the Aquarius unit. Returns null when there is none. When an alias appears more than once, the first record
+	 * returned by NWIS-RA is used.
+	 */
+	public String getPcode(String aqName, String unit) {
+		ParameterRecord nwisName = getNameIndex().get(aqName);
+		if (nwisName == null) {
+			return null;
+		}
+		ParameterRecord unitAlias = getUnitIndex().get(Pair.of(nwisName.getName(), unit));
+		return unitAlias == null ? null : unitAlias.getCode();
+	}
+
+	@Scheduled(initialDelayString = "${nwisParameterIndex.refreshMillis}", fixedDelayString = "${nwisParameterIndex.refreshMillis}")
+	public void refresh() {
+		if (nameIndex != null) {
+			try {
+				nameIndex = loadNameIndex();
+			} catch (Exception e) {
+				LOG.warn("Failed to refresh NWIS parameter name aliases, keeping the index loaded at " + nameIndex.getLoaded(), e);
+			}
+		}
+		if (unitIndex != null) {
+			try {
+				unitIndex = loadUnitIndex();
+			} catch (Exception e) {
+				LOG.warn("Failed to refresh NWIS parameter unit aliases, keeping the index loaded at " + unitIndex.getLoaded(), e);
+			}
+		}
+	}
+
+	protected Map<String, ParameterRecord> getNameIndex() {
+		if (nameIndex == null) {
+			synchronized (this) {
+				if (nameIndex == null) {
+					nameIndex = loadNameIndex();
+				}
+			}
+		}
+		return nameIndex.getRecords();
+	}
+
+	protected Map<Pair<String, String>, ParameterRecord> getUnitIndex() {
+		if (unitIndex == null) {
+			synchronized (this) {
+				if (unitIndex == null) {
+					unitIndex = loadUnitIndex();
+				}
+			}
+		}
+		return unitIndex.getRecords();
+	}
+
+	protected ParameterIndex<String> loadNameIndex() {
+		return new ParameterIndex<>(nwisRaService.getAqParameterNames(), ParameterRecord::getAlias);
+	}
+
+	protected ParameterIndex<Pair<String, String>> loadUnitIndex() {
+		return new ParameterIndex<>(nwisRaService.getAqParameterUnits(),
+				x -> x.getName() == null ? null : Pair.of(x.getName(), x.getAlias()));
+	}
+
+	/**
+	 * Registers the gauges with this service as their state object. Micrometer holds gauge state weakly, so the
+	 * state must be something kept alive elsewhere (the service bean), not a lambda only the gauge refers to.
+	 */
+	protected void registerGauges(MeterRegistry meterRegistry, String index,
+			Function<NwisParameterIndexService, ParameterIndex<?>> parameterIndex) {
+		Gauge.builder("nwis.parameter.index.size", this,
+				x -> parameterIndex.apply(x) == null ? 0 : parameterIndex.apply(x).getRecords().size())
+				.tag("index", index)
+				.register(meterRegistry);
+		Gauge.builder("nwis.parameter.index.age", this,
+				x -> parameterIndex.apply(x) == null ? Double.NaN
+						: Duration.between(parameterIndex.apply(x).getLoaded(), Instant.now()).getSeconds())
+				.tag("index", index)
+				.baseUnit("seconds")
+				.register(meterRegistry);
+	}
+
+	protected static class ParameterIndex<K> {
+		private final Map<K, ParameterRecord> records;
+		private final Instant loaded;
+
+		protected ParameterIndex(List<ParameterRecord> parameterRecords, Function<ParameterRecord, K> key) {
+			Map<K, ParameterRecord> index = new HashMap<>();
+			if (parameterRecords != null) {
+				for (ParameterRecord record : parameterRecords) {
+					K recordKey = record.getAlias() == null ? null : key.apply(record);
+					if (recordKey != null) {
+						index.putIfAbsent(recordKey, record);
+					}
+				}
+			}
+			this.records = Collections.unmodifiableMap(index);
+			this.loaded = Instant.now();
+		}
+
+		public Map<K, ParameterRecord> getRecords() {
+			return records;
+		}
+		public Instant getLoaded() {
+			return loaded;
+		}
+	}
+}
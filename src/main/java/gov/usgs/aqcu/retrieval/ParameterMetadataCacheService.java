@@ -0,0 +1,111 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.ParameterMetadata;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Application wide copy of the Aquarius parameter metadata. It is loaded the first time it is needed and then
+ * refreshed in the background; a failed refresh keeps serving the previous copy. Its size and age are published
+ * as the parameter.metadata.size and parameter.metadata.age gauges.
+ */
+@Service
+public class ParameterMetadataCacheService {
+	private static final Logger LOG = LoggerFactory.getLogger(ParameterMetadataCacheService.class);
+
+	private ParameterListService parameterListService;
+	private volatile ParameterMetadataSnapshot snapshot;
+
+	@Autowired
+	public ParameterMetadataCacheService(ParameterListService parameterListService, MeterRegistry meterRegistry) {
+		this.parameterListService = parameterListService;
+		Gauge.builder("parameter.metadata.size", this, x -> x.snapshot == null ? 0 : x.snapshot.getParameterMetadata().size())
+				.register(meterRegistry);
+		Gauge.builder("parameter.metadata.age", this,
+				x -> x.snapshot == null ? Double.NaN : Duration.between(x.snapshot.getLoaded(), Instant.now()).getSeconds())
+				.baseUnit("seconds")
+				.register(meterRegistry);
+	}
+
+	public Map<String, ParameterMetadata> getParameterMetadata() {
+		if (snapshot == null) {
+			synchronized (this) {
+				if (snapshot == null) {
+					snapshot = load();
+				}
+			}
+		}
+		return snapshot.getParameterMetadata();
+	}
+
+	/**
+	 * Scheduled refresh. Does nothing until the metadata has been loaded once, and keeps the previous copy when
+	 * Aquarius cannot be reached.
+	 */
+	@Scheduled(initialDelayString = "${parameterMetadata.refreshMillis}", fixedDelayString = "${parameterMetadata.refreshMillis}")
+	public void refresh() {
+		if (snapshot != null) {
+			try {
+				snapshot = load();
+			} catch (Exception e) {
+				LOG.warn("Failed to refresh parameter metadata, keeping the copy loaded at " + snapshot.getLoaded(), e);
+			}
+		}
+	}
+
+	/**
+	 * Reloads the metadata now, whether or not it has been loaded before. A failure is thrown to the caller and the
+	 * previous copy, if any, is kept.
+	 */
+	public Instant forceRefresh() {
+		ParameterMetadataSnapshot loaded = load();
+		snapshot = loaded;
+		return loaded.getLoaded();
+	}
+
+	/**
+	 * When the metadata being served was loaded, or null when it has not been loaded yet.
+	 */
+	public Instant getLoaded() {
+		ParameterMetadataSnapshot current = snapshot;
+		return current == null ? null : current.getLoaded();
+	}
+
+	protected ParameterMetadataSnapshot load() {
+		Map<String, ParameterMetadata> parameterMetadata = parameterListService.getParameterMetadata();
+		if (parameterMetadata == null) {
+			throw new IllegalStateException("No parameter metadata returned from Aquarius");
+		}
+		return new ParameterMetadataSnapshot(parameterMetadata);
+	}
+
+	protected static class ParameterMetadataSnapshot {
+		private final Map<String, ParameterMetadata> parameterMetadata;
+		private final Instant loaded;
+
+		protected ParameterMetadataSnapshot(Map<String, ParameterMetadata> parameterMetadata) {
+			this.parameterMetadata = Collections.unmodifiableMap(new HashMap<>(parameterMetadata));
+			this.loaded = Instant.now();
+		}
+
+		public Map<String, ParameterMetadata> getParameterMetadata() {
+			return parameterMetadata;
+		}
+		public Instant getLoaded() {
+			return loaded;
+		}
+	}
+}
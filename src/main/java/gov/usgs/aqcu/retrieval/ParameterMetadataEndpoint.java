@@ -0,0 +1,43 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint (/actuator/parametermetadata when exposed through managementEndpoints) showing when the cached
+ * parameter metadata was loaded; a POST reloads it from Aquarius immediately.
+ */
+@Component
+@Endpoint(id = "parametermetadata")
+public class ParameterMetadataEndpoint {
+
+	private ParameterMetadataCacheService parameterMetadataCacheService;
+
+	@Autowired
+	public ParameterMetadataEndpoint(ParameterMetadataCacheService parameterMetadataCacheService) {
+		this.parameterMetadataCacheService = parameterMetadataCacheService;
+	}
+
+	@ReadOperation
+	public Map<String, Object> status() {
+		return status(parameterMetadataCacheService.getLoaded());
+	}
+
+	@WriteOperation
+	public Map<String, Object> refresh() {
+		return status(parameterMetadataCacheService.forceRefresh());
+	}
+
+	protected Map<String, Object> status(Instant loaded) {
+		Map<String, Object> status = new LinkedHashMap<>();
+		status.put("loaded", loaded == null ? null : loaded.toString());
+		return status;
+	}
+}
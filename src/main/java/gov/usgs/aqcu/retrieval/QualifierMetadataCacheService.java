@@ -0,0 +1,71 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.QualifierMetadata;
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * Caches the Aquarius qualifier catalogue, keyed by qualifier identifier. Only the qualifiers not already cached
+ * are looked up through {@link QualifierLookupService}, so the catalogue is filled as reports use it.
+ */
+@Repository
+public class QualifierMetadataCacheService {
+	private static final Logger LOG = LoggerFactory.getLogger(QualifierMetadataCacheService.class);
+
+	private QualifierLookupService qualifierLookupService;
+	private Cache<String, QualifierMetadata> qualifierMetadataCache;
+
+	@Autowired
+	public QualifierMetadataCacheService(QualifierLookupService qualifierLookupService,
+			@org.springframework.beans.factory.annotation.Qualifier("qualifierMetadataCache") Cache<String, QualifierMetadata> qualifierMetadataCache) {
+		this.qualifierLookupService = qualifierLookupService;
+		this.qualifierMetadataCache = qualifierMetadataCache;
+	}
+
+	public Map<String, QualifierMetadata> getByQualifierList(List<Qualifier> qualifiers) {
+		if (qualifiers == null || qualifiers.isEmpty()) {
+			return qualifierLookupService.getByQualifierList(qualifiers);
+		}
+
+		Map<String, QualifierMetadata> qualifierMetadata = new HashMap<>();
+		Map<String, Qualifier> missing = new LinkedHashMap<>();
+		for (Qualifier qualifier : qualifiers) {
+			String identifier = qualifier.getIdentifier();
+			QualifierMetadata cached = identifier == null ? null : qualifierMetadataCache.getIfPresent(identifier);
+			if (cached != null) {
+				qualifierMetadata.put(identifier, cached);
+			} else {
+				missing.putIfAbsent(identifier, qualifier);
+			}
+		}
+
+		if (!missing.isEmpty()) {
+			LOG.debug("Looking up {} uncached qualifiers", missing.size());
+			Map<String, QualifierMetadata> retrieved = qualifierLookupService.getByQualifierList(new ArrayList<>(missing.values()));
+			if (retrieved != null) {
+				retrieved.forEach((identifier, metadata) -> {
+					if (identifier != null && metadata != null) {
+						qualifierMetadataCache.put(identifier, metadata);
+					}
+				});
+				qualifierMetadata.putAll(retrieved);
+			}
+		}
+		return qualifierMetadata;
+	}
+
+	public void invalidateAll() {
+		qualifierMetadataCache.invalidateAll();
+	}
+}
@@ -0,0 +1,213 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Binary layout of one stored segment of corrected time series data:
+ * <ul>
+ * <li>header: magic, version, point count (-1 when the response has no point list), length of the display string
+ * table and length of the metadata</li>
+ * <li>one fixed width record per point: epoch second, nanosecond, flags, numeric value, and the offset and length
+ * of its display string in the table</li>
+ * <li>the display string table, UTF-8</li>
+ * <li>the rest of the response (qualifiers, approvals, gap tolerances and so on) as JSON, UTF-8</li>
+ * </ul>
+ * {@link #decode} reads the points from a (memory mapped) buffer without copying the buffer itself, but it builds the
+ * whole point list of the segment on the heap on every call.
+ */
+public final class SegmentFile {
+	public static final int MAGIC = 0x41515347;
+	public static final int VERSION = 1;
+	public static final int HEADER_BYTES = 20;
+	public static final int RECORD_BYTES = 32;
+
+	private static final int NUMERIC = 1;
+	private static final int DISPLAY = 2;
+	private static final int END_OF_PERIOD = 4;
+	private static final int END_OF_PERIOD_SET = 8;
+	private static final int TIMESTAMP = 16;
+
+	private static final Gson GSON = new GsonBuilder().registerTypeAdapter(Instant.class, new InstantTypeAdapter().nullSafe()).create();
+	private static final Gson WITHOUT_POINTS_GSON = GSON.newBuilder().addSerializationExclusionStrategy(new PointsExclusionStrategy()).create();
+
+	private SegmentFile() {
+	}
+
+	public static ByteBuffer encode(TimeSeriesDataServiceResponse response) {
+		ArrayList<TimeSeriesPoint> points = response.getPoints();
+		int count = points == null ? 0 : points.size();
+		byte[][] displays = new byte[count][];
+		int stringsLength = 0;
+		for (int i = 0; i < count; i++) {
+			DoubleWithDisplay value = points.get(i).getValue();
+			if (value != null && value.getDisplay() != null) {
+				displays[i] = value.getDisplay().getBytes(StandardCharsets.UTF_8);
+				stringsLength += displays[i].length;
+			}
+		}
+		byte[] metadata = GSON.toJson(withoutPoints(response)).getBytes(StandardCharsets.UTF_8);
+
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + count * RECORD_BYTES + stringsLength + metadata.length);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(points == null ? -1 : count).putInt(stringsLength).putInt(metadata.length);
+		int stringOffset = 0;
+		for (int i = 0; i < count; i++) {
+			putRecord(buffer, points.get(i), stringOffset, displays[i]);
+			stringOffset += displays[i] == null ? 0 : displays[i].length;
+		}
+		for (byte[] display : displays) {
+			if (display != null) {
+				buffer.put(display);
+			}
+		}
+		buffer.put(metadata);
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Reads the segment from the buffer without changing its position.
+	 */
+	public static TimeSeriesDataServiceResponse decode(ByteBuffer segment) throws IOException {
+		ByteBuffer buffer = segment.duplicate();
+		if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+			throw new IOException("Not a version " + VERSION + " segment");
+		}
+		int count = buffer.getInt();
+		int stringsLength = buffer.getInt();
+		int metadataLength = buffer.getInt();
+		int recordsLength = Math.max(count, 0) * RECORD_BYTES;
+		if (buffer.remaining() != recordsLength + stringsLength + metadataLength) {
+			throw new IOException("Truncated segment");
+		}
+
+		ByteBuffer records = slice(buffer, buffer.position(), recordsLength);
+		ByteBuffer strings = slice(buffer, buffer.position() + recordsLength, stringsLength);
+		ByteBuffer metadata = slice(buffer, buffer.position() + recordsLength + stringsLength, metadataLength);
+
+		TimeSeriesDataServiceResponse response = GSON.fromJson(StandardCharsets.UTF_8.decode(metadata).toString(),
+				TimeSeriesDataServiceResponse.class);
+		if (count >= 0) {
+			ArrayList<TimeSeriesPoint> points = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				points.add(getRecord(records, strings));
+			}
+			response.setPoints(points);
+		}
+		return response;
+	}
+
+	protected static void putRecord(ByteBuffer buffer, TimeSeriesPoint point, int stringOffset, byte[] display) {
+		StatisticalDateTimeOffset timestamp = point.getTimestamp();
+		Instant instant = timestamp == null ? null : timestamp.getDateTimeOffset();
+		DoubleWithDisplay value = point.getValue();
+		int flags = 0;
+		if (instant != null) {
+			flags |= TIMESTAMP;
+		}
+		if (value != null && value.getNumeric() != null) {
+			flags |= NUMERIC;
+		}
+		if (display != null) {
+			flags |= DISPLAY;
+		}
+		if (timestamp != null && timestamp.getRepresentsEndOfTimePeriod() != null) {
+			flags |= END_OF_PERIOD_SET;
+			if (timestamp.getRepresentsEndOfTimePeriod()) {
+				flags |= END_OF_PERIOD;
+			}
+		}
+		buffer.putLong(instant == null ? 0 : instant.getEpochSecond())
+				.putInt(instant == null ? 0 : instant.getNano())
+				.putInt(flags)
+				.putDouble((flags & NUMERIC) != 0 ? value.getNumeric() : Double.NaN)
+				.putInt(stringOffset)
+				.putInt(display == null ? 0 : display.length);
+	}
+
+	protected static TimeSeriesPoint getRecord(ByteBuffer records, ByteBuffer strings) {
+		long epochSecond = records.getLong();
+		int nano = records.getInt();
+		int flags = records.getInt();
+		double numeric = records.getDouble();
+		int stringOffset = records.getInt();
+		int stringLength = records.getInt();
+
+		StatisticalDateTimeOffset timestamp = new StatisticalDateTimeOffset();
+		if ((flags & TIMESTAMP) != 0) {
+			timestamp.setDateTimeOffset(Instant.ofEpochSecond(epochSecond, nano));
+		}
+		if ((flags & END_OF_PERIOD_SET) != 0) {
+			timestamp.setRepresentsEndOfTimePeriod((flags & END_OF_PERIOD) != 0);
+		}
+		DoubleWithDisplay value = new DoubleWithDisplay();
+		if ((flags & NUMERIC) != 0) {
+			value.setNumeric(numeric);
+		}
+		if ((flags & DISPLAY) != 0) {
+			value.setDisplay(StandardCharsets.UTF_8.decode(slice(strings, stringOffset, stringLength)).toString());
+		}
+		return new TimeSeriesPoint().setTimestamp(timestamp).setValue(value);
+	}
+
+	protected static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+		ByteBuffer slice = buffer.duplicate();
+		slice.position(offset);
+		slice.limit(offset + length);
+		return slice.slice();
+	}
+
+	/**
+	 * A copy of the whole response but its points, so fields added to the response are stored without listing
+	 * them here.
+	 */
+	protected static TimeSeriesDataServiceResponse withoutPoints(TimeSeriesDataServiceResponse response) {
+		return WITHOUT_POINTS_GSON.fromJson(WITHOUT_POINTS_GSON.toJsonTree(response), TimeSeriesDataServiceResponse.class);
+	}
+
+	/**
+	 * Skips the response's point list.
+	 */
+	protected static class PointsExclusionStrategy implements ExclusionStrategy {
+		@Override
+		public boolean shouldSkipField(FieldAttributes field) {
+			return TimeSeriesDataServiceResponse.class.equals(field.getDeclaringClass()) && "points".equalsIgnoreCase(field.getName());
+		}
+
+		@Override
+		public boolean shouldSkipClass(Class<?> clazz) {
+			return false;
+		}
+	}
+
+	/**
+	 * ISO-8601 instants, as Aquarius writes them, including the minimum and maximum instants it uses for open
+	 * periods.
+	 */
+	protected static class InstantTypeAdapter extends TypeAdapter<Instant> {
+		@Override
+		public void write(JsonWriter out, Instant value) throws IOException {
+			out.value(value.toString());
+		}
+
+		@Override
+		public Instant read(JsonReader in) throws IOException {
+			return Instant.parse(in.nextString());
+		}
+	}
+}
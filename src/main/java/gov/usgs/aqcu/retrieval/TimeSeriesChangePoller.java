@@ -0,0 +1,124 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesUniqueIdListServiceRequest;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesUniqueIdListServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesUniqueIds;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Polls Aquarius every timeSeriesChanges.pollMillis for the series changed since the previous poll (the Publish
+ * time series unique id list with a ChangesSinceToken) and drops only their cached descriptions and their cached
+ * data from the first point changed onwards. Each token is stored with the {@link ApprovedSegmentStore}'s segments
+ * on disk, so after a restart the first poll asks for the changes since the last poll before it and the stored
+ * segments are brought up to date; without a stored token (no store on disk, or a new one) the stored segments
+ * cannot be trusted, so they are dropped and the first poll asks for the changes since the application started.
+ * When Aquarius reports the token expired, changes may have been missed and all cached descriptions and data are
+ * dropped. Rendered reports are cached by a hash of the report JSON, so a changed series never matches a cached
+ * rendering and they are left to expire.
+ * <p>
+ * The number of changed series is counted by timeseries.changes and the time since the last successful poll is
+ * published as the timeseries.changes.age gauge.
+ */
+@Component
+public class TimeSeriesChangePoller {
+	private static final Logger LOG = LoggerFactory.getLogger(TimeSeriesChangePoller.class);
+
+	private AquariusRetrievalService aquariusRetrievalService;
+	private TimeSeriesDataCacheService timeSeriesDataCacheService;
+	private TimeSeriesDescriptionService timeSeriesDescriptionService;
+	private ApprovedSegmentStore approvedSegmentStore;
+	private Counter changes;
+	private volatile Instant changesSinceToken;
+	private volatile Instant polled;
+
+	@Autowired
+	public TimeSeriesChangePoller(AquariusRetrievalService aquariusRetrievalService,
+			TimeSeriesDataCacheService timeSeriesDataCacheService, TimeSeriesDescriptionService timeSeriesDescriptionService,
+			ApprovedSegmentStore approvedSegmentStore, MeterRegistry meterRegistry) {
+		this.aquariusRetrievalService = aquariusRetrievalService;
+		this.timeSeriesDataCacheService = timeSeriesDataCacheService;
+		this.timeSeriesDescriptionService = timeSeriesDescriptionService;
+		this.approvedSegmentStore = approvedSegmentStore;
+		this.changesSinceToken = approvedSegmentStore.getChangesSinceToken();
+		if (changesSinceToken == null) {
+			LOG.info("No stored time series changes token, dropping the stored approved segments");
+			approvedSegmentStore.invalidateAll();
+			changesSinceToken = Instant.now();
+			approvedSegmentStore.setChangesSinceToken(changesSinceToken);
+		} else {
+			LOG.info("Resuming time series changes since {}", changesSinceToken);
+		}
+		changes = Counter.builder("timeseries.changes").register(meterRegistry);
+		Gauge.builder("timeseries.changes.age", this,
+				x -> x.polled == null ? Double.NaN : Duration.between(x.polled, Instant.now()).getSeconds())
+				.baseUnit("seconds")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Scheduled poll. A failed poll keeps the token, so the next poll asks for the same changes again.
+	 */
+	@Scheduled(initialDelayString = "${timeSeriesChanges.pollMillis}", fixedDelayString = "${timeSeriesChanges.pollMillis}")
+	public void poll() {
+		try {
+			TimeSeriesUniqueIdListServiceResponse response = get(changesSinceToken);
+			apply(response);
+			if (response.getNextToken() != null) {
+				changesSinceToken = response.getNextToken();
+				approvedSegmentStore.setChangesSinceToken(changesSinceToken);
+			}
+			polled = Instant.now();
+		} catch (Exception e) {
+			LOG.warn("Failed to poll Aquarius for time series changed since " + changesSinceToken, e);
+		}
+	}
+
+	public Instant getChangesSinceToken() {
+		return changesSinceToken;
+	}
+
+	protected TimeSeriesUniqueIdListServiceResponse get(Instant token) throws Exception {
+		TimeSeriesUniqueIdListServiceRequest request = new TimeSeriesUniqueIdListServiceRequest()
+				.setChangesSinceToken(token);
+		TimeSeriesUniqueIdListServiceResponse response = aquariusRetrievalService.executePublishApiRequest(request);
+		if (response == null) {
+			throw new IllegalStateException("No time series changes returned from Aquarius");
+		}
+		return response;
+	}
+
+	protected void apply(TimeSeriesUniqueIdListServiceResponse response) {
+		if (Boolean.TRUE.equals(response.getTokenExpired())) {
+			LOG.warn("Time series changes since {} are no longer available, dropping all cached time series", changesSinceToken);
+			timeSeriesDescriptionService.invalidateAll();
+			timeSeriesDataCacheService.invalidateAll();
+			return;
+		}
+
+		List<TimeSeriesUniqueIds> changed = response.getTimeSeriesUniqueIds();
+		if (changed == null || changed.isEmpty()) {
+			return;
+		}
+		LOG.debug("{} time series changed since {}", changed.size(), changesSinceToken);
+		for (TimeSeriesUniqueIds series : changed) {
+			if (series.getUniqueId() != null) {
+				timeSeriesDescriptionService.invalidate(series.getUniqueId());
+				timeSeriesDataCacheService.invalidate(series.getUniqueId(), series.getFirstPointChanged());
+			}
+		}
+		changes.increment(changed.size());
+	}
+}
@@ -0,0 +1,39 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.time.Instant;
+import java.util.Objects;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+
+/**
+ * A cached corrected time series data response, along with the last modified time of the series description it
+ * was retrieved under. The response is only reused while the description still reports the same last modified time.
+ */
+public class TimeSeriesDataCacheEntry {
+	private final TimeSeriesDataServiceResponse response;
+	private final Instant lastModified;
+
+	public TimeSeriesDataCacheEntry(TimeSeriesDataServiceResponse response, Instant lastModified) {
+		this.response = response;
+		this.lastModified = lastModified;
+	}
+
+	public TimeSeriesDataServiceResponse getResponse() {
+		return response;
+	}
+	public Instant getLastModified() {
+		return lastModified;
+	}
+
+	public boolean isCurrent(Instant descriptionLastModified) {
+		return lastModified != null && Objects.equals(lastModified, descriptionLastModified);
+	}
+
+	/**
+	 * Cache weight of the entry, the number of points in the response (at least one).
+	 */
+	public int getWeight() {
+		int points = response.getPoints() == null ? 0 : response.getPoints().size();
+		return Math.max(1, points);
+	}
+}
@@ -0,0 +1,174 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Repository;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import gov.usgs.aqcu.builder.Futures;
+import gov.usgs.aqcu.parameter.DvHydrographRequestParameters;
+
+/**
+ * Caches corrected time series data retrieved through {@link TimeSeriesDataService}, keyed by
+ * {@link TimeSeriesDataKey}. A cached response is used only while the series description still reports the
+ * last modified time the response was retrieved under; descriptions without a last modified time are never cached.
+ * Concurrent retrievals of the same window are coalesced through the {@link InFlightRequestRegistry}. Water years
+ * that are fully approved are kept in the {@link ApprovedSegmentStore} instead, and used whatever the last modified
+ * time. A retrieval that was in flight when its series was invalidated is not cached (see
+ * {@link InvalidationGenerations}).
+ */
+@Repository
+public class TimeSeriesDataCacheService {
+	private static final Logger LOG = LoggerFactory.getLogger(TimeSeriesDataCacheService.class);
+	private static final String RETRIEVAL = "timeSeriesData";
+
+	private TimeSeriesDataService timeSeriesDataService;
+	private ApprovedSegmentStore approvedSegmentStore;
+	private InFlightRequestRegistry inFlightRequestRegistry;
+	private Cache<TimeSeriesDataKey, TimeSeriesDataCacheEntry> timeSeriesDataCache;
+	private Executor timeSeriesDataExecutor;
+	private final InvalidationGenerations generations = new InvalidationGenerations();
+
+	@Autowired
+	public TimeSeriesDataCacheService(TimeSeriesDataService timeSeriesDataService, ApprovedSegmentStore approvedSegmentStore,
+			InFlightRequestRegistry inFlightRequestRegistry,
+			@Qualifier("timeSeriesDataCache") Cache<TimeSeriesDataKey, TimeSeriesDataCacheEntry> timeSeriesDataCache,
+			@Qualifier("timeSeriesDataExecutor") Executor timeSeriesDataExecutor) {
+		this.timeSeriesDataService = timeSeriesDataService;
+		this.approvedSegmentStore = approvedSegmentStore;
+		this.inFlightRequestRegistry = inFlightRequestRegistry;
+		this.timeSeriesDataCache = timeSeriesDataCache;
+		this.timeSeriesDataExecutor = timeSeriesDataExecutor;
+	}
+
+	/**
+	 * Windows made up of whole water years are retrieved and cached one water year at a time, so overlapping
+	 * requests (a five year summary and the hydrograph of its final year, or adjacent water years) share segments
+	 * and only the segments not yet cached are retrieved. Any other window is cached as a whole. Segments of a five
+	 * year summary are mostly approved history, so usually only the current water year is retrieved; when several
+	 * are missing they are retrieved concurrently on the timeSeriesDataExecutor.
+	 */
+	public TimeSeriesDataServiceResponse get(String timeSeriesIdentifier, Instant lastModified,
+			DvHydrographRequestParameters requestParameters, ZoneOffset zoneOffset, boolean isDaily) {
+		TimeSeriesDataKey key = TimeSeriesDataKey.of(timeSeriesIdentifier, requestParameters, zoneOffset, isDaily);
+		List<DvHydrographRequestParameters> segments = TimeSeriesDataSegments.getWaterYearSegments(key);
+		if (lastModified == null || segments.size() < 2) {
+			return getWindow(key, lastModified, requestParameters);
+		}
+
+		List<CompletableFuture<TimeSeriesDataServiceResponse>> retrievals = new ArrayList<>();
+		for (DvHydrographRequestParameters segment : segments) {
+			TimeSeriesDataKey segmentKey = TimeSeriesDataKey.of(timeSeriesIdentifier, segment, zoneOffset, isDaily);
+			TimeSeriesDataServiceResponse cached = getCached(segmentKey, lastModified);
+			retrievals.add(cached != null ? CompletableFuture.completedFuture(cached)
+					: CompletableFuture.supplyAsync(() -> retrieve(segmentKey, lastModified, segment), timeSeriesDataExecutor));
+		}
+
+		List<TimeSeriesDataServiceResponse> responses = new ArrayList<>();
+		for (CompletableFuture<TimeSeriesDataServiceResponse> retrieval : retrievals) {
+			TimeSeriesDataServiceResponse response = Futures.join(retrieval);
+			if (response == null) {
+				LOG.debug("No data for a water year of {}, retrieving the whole window", key);
+				return getWindow(key, lastModified, requestParameters);
+			}
+			responses.add(response);
+		}
+		return TimeSeriesDataSegments.splice(responses);
+	}
+
+	protected TimeSeriesDataServiceResponse getWindow(TimeSeriesDataKey key, Instant lastModified,
+			DvHydrographRequestParameters requestParameters) {
+		TimeSeriesDataServiceResponse cached = getCached(key, lastModified);
+		return cached != null ? cached : retrieve(key, lastModified, requestParameters);
+	}
+
+	/**
+	 * Returns the approved or current cached response of the window, or null when it has to be retrieved.
+	 */
+	protected TimeSeriesDataServiceResponse getCached(TimeSeriesDataKey key, Instant lastModified) {
+		TimeSeriesDataServiceResponse approved = approvedSegmentStore.get(key);
+		if (approved != null) {
+			LOG.debug("Using approved time series data for {}", key);
+			return approved;
+		}
+
+		TimeSeriesDataCacheEntry cached = timeSeriesDataCache.getIfPresent(key);
+		if (cached != null) {
+			if (cached.isCurrent(lastModified)) {
+				LOG.debug("Using cached time series data for {}", key);
+				return cached.getResponse();
+			}
+			LOG.debug("Time series {} modified since it was cached", key);
+			timeSeriesDataCache.asMap().remove(key, cached);
+		}
+		return null;
+	}
+
+	protected TimeSeriesDataServiceResponse retrieve(TimeSeriesDataKey key, Instant lastModified,
+			DvHydrographRequestParameters requestParameters) {
+		return inFlightRequestRegistry.get(RETRIEVAL, key, () -> {
+			long generation = generations.get(key.getTimeSeriesIdentifier());
+			TimeSeriesDataServiceResponse response = timeSeriesDataService.get(key.getTimeSeriesIdentifier(),
+					requestParameters, key.getZoneOffset(), key.isDaily(), false, true, null);
+			if (response != null) {
+				put(key, generation, lastModified, response);
+			}
+			return response;
+		});
+	}
+
+	/**
+	 * Stores the retrieved response unless the series was invalidated since the retrieval started, and removes it
+	 * again when the series is invalidated while it is being stored, so a change reported during the retrieval never
+	 * leaves the response it made stale in the cache or, without expiry, in the approved segment store.
+	 */
+	protected void put(TimeSeriesDataKey key, long generation, Instant lastModified, TimeSeriesDataServiceResponse response) {
+		String timeSeriesIdentifier = key.getTimeSeriesIdentifier();
+		if (!generations.isCurrent(timeSeriesIdentifier, generation)) {
+			LOG.debug("Time series {} invalidated while it was retrieved, not caching it", key);
+			return;
+		}
+		if (approvedSegmentStore.putIfApproved(key, response)) {
+			if (!generations.isCurrent(timeSeriesIdentifier, generation)) {
+				approvedSegmentStore.remove(key);
+			}
+		} else if (lastModified != null) {
+			TimeSeriesDataCacheEntry entry = new TimeSeriesDataCacheEntry(response, lastModified);
+			timeSeriesDataCache.put(key, entry);
+			if (!generations.isCurrent(timeSeriesIdentifier, generation)) {
+				timeSeriesDataCache.asMap().remove(key, entry);
+			}
+		}
+	}
+
+	public void invalidate(String timeSeriesIdentifier) {
+		invalidate(timeSeriesIdentifier, null);
+	}
+
+	/**
+	 * Drops the cached and approved windows of the series that end after changedFrom (the first point changed), or
+	 * all of them when changedFrom is null. Earlier windows are unaffected by the change and are kept.
+	 */
+	public void invalidate(String timeSeriesIdentifier, Instant changedFrom) {
+		generations.invalidate(timeSeriesIdentifier);
+		timeSeriesDataCache.asMap().keySet().removeIf(x -> x.isChanged(timeSeriesIdentifier, changedFrom));
+		approvedSegmentStore.invalidate(timeSeriesIdentifier, changedFrom);
+	}
+
+	public void invalidateAll() {
+		generations.invalidateAll();
+		timeSeriesDataCache.invalidateAll();
+		approvedSegmentStore.invalidateAll();
+	}
+}
@@ -0,0 +1,90 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Objects;
+
+import gov.usgs.aqcu.parameter.DvHydrographRequestParameters;
+
+/**
+ * Identifies a single corrected time series data retrieval: the series, the window requested from Aquarius,
+ * the zone offset the window was computed in and whether the series is daily.
+ */
+public final class TimeSeriesDataKey {
+	private final String timeSeriesIdentifier;
+	private final Instant startInstant;
+	private final Instant endInstant;
+	private final ZoneOffset zoneOffset;
+	private final boolean isDaily;
+
+	public TimeSeriesDataKey(String timeSeriesIdentifier, Instant startInstant, Instant endInstant,
+			ZoneOffset zoneOffset, boolean isDaily) {
+		this.timeSeriesIdentifier = timeSeriesIdentifier;
+		this.startInstant = startInstant;
+		this.endInstant = endInstant;
+		this.zoneOffset = zoneOffset;
+		this.isDaily = isDaily;
+	}
+
+	public static TimeSeriesDataKey of(String timeSeriesIdentifier, DvHydrographRequestParameters requestParameters,
+			ZoneOffset zoneOffset, boolean isDaily) {
+		Instant startInstant = null;
+		Instant endInstant = null;
+		if (requestParameters != null) {
+			startInstant = requestParameters.getStartInstant(zoneOffset);
+			endInstant = requestParameters.getEndInstant(zoneOffset);
+		}
+		return new TimeSeriesDataKey(timeSeriesIdentifier, startInstant, endInstant, zoneOffset, isDaily);
+	}
+
+	public String getTimeSeriesIdentifier() {
+		return timeSeriesIdentifier;
+	}
+	public Instant getStartInstant() {
+		return startInstant;
+	}
+	public Instant getEndInstant() {
+		return endInstant;
+	}
+	public ZoneOffset getZoneOffset() {
+		return zoneOffset;
+	}
+	public boolean isDaily() {
+		return isDaily;
+	}
+
+	/**
+	 * Whether this is a window of the series that holds points at or after changedFrom, the first point changed;
+	 * any window of the series when changedFrom is null.
+	 */
+	public boolean isChanged(String changedTimeSeriesIdentifier, Instant changedFrom) {
+		return Objects.equals(timeSeriesIdentifier, changedTimeSeriesIdentifier)
+				&& (changedFrom == null || endInstant == null || endInstant.isAfter(changedFrom));
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof TimeSeriesDataKey)) {
+			return false;
+		}
+		TimeSeriesDataKey other = (TimeSeriesDataKey) o;
+		return isDaily == other.isDaily
+				&& Objects.equals(timeSeriesIdentifier, other.timeSeriesIdentifier)
+				&& Objects.equals(startInstant, other.startInstant)
+				&& Objects.equals(endInstant, other.endInstant)
+				&& Objects.equals(zoneOffset, other.zoneOffset);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(timeSeriesIdentifier, startInstant, endInstant, zoneOffset, isDaily);
+	}
+
+	@Override
+	public String toString() {
+		return timeSeriesIdentifier + "[" + startInstant + ", " + endInstant + "] " + zoneOffset + (isDaily ? " daily" : "");
+	}
+}
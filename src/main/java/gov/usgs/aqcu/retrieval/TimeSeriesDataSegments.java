@@ -0,0 +1,150 @@
+package gov.usgs.aqcu.retrieval;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalTimeRange;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import gov.usgs.aqcu.parameter.DvHydrographRequestParameters;
+
+/**
+ * Splits water year aligned retrieval windows into one window per water year and splices the per water year
+ * responses back into a single response.
+ */
+public final class TimeSeriesDataSegments {
+	private static final int WATER_YEAR_START_MONTH = 10;
+	private static final int WATER_YEAR_END_MONTH = 9;
+	private static final int WATER_YEAR_END_DAY = 30;
+
+	private TimeSeriesDataSegments() {
+	}
+
+	/**
+	 * Returns the request parameters of each water year covered by the key's window, oldest first. The window must
+	 * end at the end of a water year and start at the beginning of one (or, as five year requests do, at the end of
+	 * the preceding day); an empty list is returned for any other window.
+	 */
+	public static List<DvHydrographRequestParameters> getWaterYearSegments(TimeSeriesDataKey key) {
+		if (key.getStartInstant() == null || key.getEndInstant() == null || key.getZoneOffset() == null) {
+			return Collections.emptyList();
+		}
+		LocalDateTime start = LocalDateTime.ofInstant(key.getStartInstant(), key.getZoneOffset());
+		LocalDateTime end = LocalDateTime.ofInstant(key.getEndInstant(), key.getZoneOffset());
+
+		boolean waterYearStart = start.toLocalTime().equals(LocalTime.MIDNIGHT)
+				&& start.getMonthValue() == WATER_YEAR_START_MONTH && start.getDayOfMonth() == 1;
+		int firstWaterYear = start.getYear() + 1;
+		if (!(waterYearStart || isWaterYearEnd(start)) || !isWaterYearEnd(end) || end.getYear() < firstWaterYear) {
+			return Collections.emptyList();
+		}
+
+		List<DvHydrographRequestParameters> segments = new ArrayList<>();
+		for (int waterYear = firstWaterYear; waterYear <= end.getYear(); waterYear++) {
+			DvHydrographRequestParameters segment = new DvHydrographRequestParameters();
+			segment.setStartDate(LocalDate.of(waterYear - 1, WATER_YEAR_START_MONTH, 1));
+			segment.setEndDate(LocalDate.of(waterYear, WATER_YEAR_END_MONTH, WATER_YEAR_END_DAY));
+			segments.add(segment);
+		}
+		return segments;
+	}
+
+	/**
+	 * Splices consecutive water year responses of one series. Points repeated at a segment boundary are kept once,
+	 * and qualifiers, approvals and the other period lists are merged, dropping periods returned by more than one
+	 * segment. The time range runs from the start of the first segment to the end of the last.
+	 */
+	public static TimeSeriesDataServiceResponse splice(List<TimeSeriesDataServiceResponse> segments) {
+		TimeSeriesDataServiceResponse first = segments.get(0);
+
+		ArrayList<TimeSeriesPoint> points = null;
+		Instant lastTimestamp = null;
+		StatisticalDateTimeOffset startTime = null;
+		StatisticalDateTimeOffset endTime = null;
+		for (TimeSeriesDataServiceResponse segment : segments) {
+			if (segment.getPoints() != null) {
+				if (points == null) {
+					points = new ArrayList<>();
+				}
+				for (TimeSeriesPoint point : segment.getPoints()) {
+					Instant timestamp = point.getTimestamp().getDateTimeOffset();
+					if (lastTimestamp == null || timestamp.isAfter(lastTimestamp)) {
+						points.add(point);
+						lastTimestamp = timestamp;
+					}
+				}
+			}
+			if (segment.getTimeRange() != null) {
+				if (startTime == null) {
+					startTime = segment.getTimeRange().getStartTime();
+				}
+				endTime = segment.getTimeRange().getEndTime();
+			}
+		}
+
+		return new TimeSeriesDataServiceResponse()
+				.setUniqueId(first.getUniqueId())
+				.setParameter(first.getParameter())
+				.setLabel(first.getLabel())
+				.setLocationIdentifier(first.getLocationIdentifier())
+				.setUnit(first.getUnit())
+				.setNumPoints(points == null ? null : Long.valueOf(points.size()))
+				.setPoints(points)
+				.setQualifiers(merge(segments, TimeSeriesDataServiceResponse::getQualifiers,
+						x -> Arrays.asList(x.getStartTime(), x.getEndTime(), x.getIdentifier(), x.getUser(), x.getDateApplied())))
+				.setApprovals(merge(segments, TimeSeriesDataServiceResponse::getApprovals,
+						x -> Arrays.asList(x.getStartTime(), x.getEndTime(), x.getApprovalLevel(), x.getDateAppliedUtc(),
+								x.getUser(), x.getLevelDescription(), x.getComment())))
+				.setGapTolerances(merge(segments, TimeSeriesDataServiceResponse::getGapTolerances,
+						x -> Arrays.asList(x.getStartTime(), x.getEndTime(), x.getToleranceInMinutes())))
+				.setGrades(merge(segments, TimeSeriesDataServiceResponse::getGrades,
+						x -> Arrays.asList(x.getStartTime(), x.getEndTime(), x.getGradeCode())))
+				.setMethods(merge(segments, TimeSeriesDataServiceResponse::getMethods,
+						x -> Arrays.asList(x.getStartTime(), x.getEndTime(), x.getMethodCode())))
+				.setInterpolationTypes(merge(segments, TimeSeriesDataServiceResponse::getInterpolationTypes,
+						x -> Arrays.asList(x.getStartTime(), x.getEndTime(), x.getType())))
+				.setNotes(merge(segments, TimeSeriesDataServiceResponse::getNotes,
+						x -> Arrays.asList(x.getStartTime(), x.getEndTime(), x.getNoteText())))
+				.setTimeRange(startTime == null && endTime == null ? null
+						: new StatisticalTimeRange().setStartTime(startTime).setEndTime(endTime));
+	}
+
+	protected static boolean isWaterYearEnd(LocalDateTime dateTime) {
+		return dateTime.toLocalTime().equals(LocalTime.MAX) && dateTime.getMonthValue() == WATER_YEAR_END_MONTH
+				&& dateTime.getDayOfMonth() == WATER_YEAR_END_DAY;
+	}
+
+	/**
+	 * Concatenates the segments' periods, keeping the first of the periods with equal identity (their start, end
+	 * and type specific fields).
+	 */
+	protected static <T> ArrayList<T> merge(List<TimeSeriesDataServiceResponse> segments,
+			Function<TimeSeriesDataServiceResponse, ArrayList<T>> periods, Function<T, List<Object>> identity) {
+		ArrayList<T> merged = null;
+		Set<List<Object>> seen = new HashSet<>();
+		for (TimeSeriesDataServiceResponse segment : segments) {
+			if (periods.apply(segment) != null) {
+				if (merged == null) {
+					merged = new ArrayList<>();
+				}
+				for (T period : periods.apply(segment)) {
+					if (seen.add(identity.apply(period))) {
+						merged.add(period);
+					}
+				}
+			}
+		}
+		return merged;
+	}
+}
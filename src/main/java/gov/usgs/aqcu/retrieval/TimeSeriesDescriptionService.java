@@ -4,30 +4,49 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescription;
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescriptionListByUniqueIdServiceRequest;
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescriptionListByUniqueIdServiceResponse;
+import com.github.benmanes.caffeine.cache.Cache;
 
 import gov.usgs.aqcu.parameter.DvHydrographRequestParameters;
 import gov.usgs.aqcu.util.LogExecutionTime;
 
+/**
+ * Retrieves time series descriptions by unique id. Descriptions are cached, so only the ids not already cached are
+ * requested from Aquarius; a series' description is dropped when the {@link TimeSeriesChangePoller} reports the
+ * series changed, and a description retrieved while its series was being invalidated is not cached (see
+ * {@link InvalidationGenerations}). A cached last modified time (and with it the cached time series data and the
+ * entity tags built from it) can therefore lag Aquarius by up to one poll interval, but does not outlive the poll
+ * that reports the change.
+ */
 @Repository
 public class TimeSeriesDescriptionService {
 	private static final Logger LOG = LoggerFactory.getLogger(TimeSeriesDescriptionService.class);
+	private static final String RETRIEVAL = "timeSeriesDescriptions";
 
 	private AquariusRetrievalService aquariusRetrievalService;
+	private InFlightRequestRegistry inFlightRequestRegistry;
+	private Cache<String, TimeSeriesDescription> timeSeriesDescriptionCache;
+	private final InvalidationGenerations generations = new InvalidationGenerations();
 
 	@Autowired
-	public TimeSeriesDescriptionService(AquariusRetrievalService aquariusRetrievalService) {
+	public TimeSeriesDescriptionService(AquariusRetrievalService aquariusRetrievalService,
+			InFlightRequestRegistry inFlightRequestRegistry,
+			@Qualifier("timeSeriesDescriptionCache") Cache<String, TimeSeriesDescription> timeSeriesDescriptionCache) {
 		this.aquariusRetrievalService = aquariusRetrievalService;
+		this.inFlightRequestRegistry = inFlightRequestRegistry;
+		this.timeSeriesDescriptionCache = timeSeriesDescriptionCache;
 	}
 
 	@LogExecutionTime
@@ -36,8 +55,28 @@ public class TimeSeriesDescriptionService {
 		Map<String, TimeSeriesDescription> timeSeriesDescriptions = new HashMap<>();
 
 		try {
-			List<TimeSeriesDescription> response = get(uniqueTimeseriesIdentifiers);
-			timeSeriesDescriptions = buildDescriptionMap(uniqueTimeseriesIdentifiers, response);
+			Map<String, TimeSeriesDescription> cached = timeSeriesDescriptionCache.getAllPresent(uniqueTimeseriesIdentifiers);
+			ArrayList<String> missing = uniqueTimeseriesIdentifiers.stream()
+					.filter(x -> !cached.containsKey(x))
+					.collect(Collectors.toCollection(ArrayList::new));
+			List<TimeSeriesDescription> descriptions = new ArrayList<>(cached.values());
+			if (!missing.isEmpty()) {
+				List<TimeSeriesDescription> response = inFlightRequestRegistry.get(RETRIEVAL, missing, () -> {
+					Map<String, Long> generation = missing.stream().collect(Collectors.toMap(x -> x, generations::get));
+					List<TimeSeriesDescription> retrieved;
+					try {
+						retrieved = get(missing);
+					} catch (Exception e) {
+						throw new CompletionException(e);
+					}
+					retrieved.stream()
+							.filter(x -> x.getUniqueId() != null && generation.containsKey(x.getUniqueId()))
+							.forEach(x -> put(x, generation.get(x.getUniqueId())));
+					return retrieved;
+				});
+				descriptions.addAll(response);
+			}
+			timeSeriesDescriptions = buildDescriptionMap(uniqueTimeseriesIdentifiers, descriptions);
 		} catch (Exception e) {
 			String msg = "An unexpected error occurred while attempting to fetch TimeSeriesDescriptions from Aquarius: ";
 			LOG.error(msg, e);
@@ -47,6 +86,32 @@ public class TimeSeriesDescriptionService {
 		return timeSeriesDescriptions;
 	}
 
+	public void invalidate(String timeSeriesIdentifier) {
+		generations.invalidate(timeSeriesIdentifier);
+		timeSeriesDescriptionCache.invalidate(timeSeriesIdentifier);
+	}
+
+	public void invalidateAll() {
+		generations.invalidateAll();
+		timeSeriesDescriptionCache.invalidateAll();
+	}
+
+	/**
+	 * Caches the retrieved description unless its series was invalidated since the retrieval started, and removes
+	 * it again when the series is invalidated while it is being cached.
+	 */
+	protected void put(TimeSeriesDescription description, long generation) {
+		String uniqueId = description.getUniqueId();
+		if (!generations.isCurrent(uniqueId, generation)) {
+			LOG.debug("Time series {} invalidated while its description was retrieved, not caching it", uniqueId);
+			return;
+		}
+		timeSeriesDescriptionCache.put(uniqueId, description);
+		if (!generations.isCurrent(uniqueId, generation)) {
+			timeSeriesDescriptionCache.asMap().remove(uniqueId, description);
+		}
+	}
+
 	protected ArrayList<String> buildUniqueIdentifierList(DvHydrographRequestParameters requestParameters) {
 		ArrayList<String> timeseriesIdentifiers = new ArrayList<>();
 
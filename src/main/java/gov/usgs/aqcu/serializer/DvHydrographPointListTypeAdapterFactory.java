@@ -0,0 +1,138 @@
+package gov.usgs.aqcu.serializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import gov.usgs.aqcu.model.DvHydrographPoint;
+import gov.usgs.aqcu.model.DvHydrographPointList;
+
+/**
+ * Adapter for List of DvHydrographPoint fields. A {@link DvHydrographPointList} is written straight from its columns,
+ * producing the same JSON the default adapters produce for a List of DvHydrographPoint (the time and value are
+ * written with the Gson instance's own adapters); any other list is written by the default adapter. Lists are read
+ * back as DvHydrographPointList. The JSON carries no daily flag, so the list is daily when its first time is an ISO
+ * local date; every time is then parsed as the list's kind, and a time of the other kind fails the read rather than
+ * producing a mixed list. The list cannot hold a point without a time, so a missing or null time fails the read with
+ * a JsonParseException naming the point.
+ *
+ * Gson gives its Collection adapter precedence over class level annotations, so this is applied to the fields.
+ */
+public class DvHydrographPointListTypeAdapterFactory implements TypeAdapterFactory {
+	private static final String TIME = "time";
+	private static final String VALUE = "value";
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+		if (!type.getRawType().isAssignableFrom(DvHydrographPointList.class)) {
+			return null;
+		}
+		return (TypeAdapter<T>) new DvHydrographPointListTypeAdapter((TypeAdapter<List<DvHydrographPoint>>) gson.getAdapter(type),
+				gson.getAdapter(Instant.class), gson.getAdapter(LocalDate.class), gson.getAdapter(BigDecimal.class));
+	}
+
+	protected static class DvHydrographPointListTypeAdapter extends TypeAdapter<List<DvHydrographPoint>> {
+		private final TypeAdapter<List<DvHydrographPoint>> defaultAdapter;
+		private final TypeAdapter<Instant> instantAdapter;
+		private final TypeAdapter<LocalDate> localDateAdapter;
+		private final TypeAdapter<BigDecimal> valueAdapter;
+
+		protected DvHydrographPointListTypeAdapter(TypeAdapter<List<DvHydrographPoint>> defaultAdapter,
+				TypeAdapter<Instant> instantAdapter, TypeAdapter<LocalDate> localDateAdapter,
+				TypeAdapter<BigDecimal> valueAdapter) {
+			this.defaultAdapter = defaultAdapter;
+			this.instantAdapter = instantAdapter;
+			this.localDateAdapter = localDateAdapter;
+			this.valueAdapter = valueAdapter;
+		}
+
+		@Override
+		public void write(JsonWriter out, List<DvHydrographPoint> list) throws IOException {
+			if (!(list instanceof DvHydrographPointList)) {
+				defaultAdapter.write(out, list);
+				return;
+			}
+			DvHydrographPointList points = (DvHydrographPointList) list;
+			out.beginArray();
+			for (int i = 0; i < points.size(); i++) {
+				out.beginObject();
+				out.name(TIME);
+				if (points.isDaily()) {
+					localDateAdapter.write(out, (LocalDate) points.getTime(i));
+				} else {
+					instantAdapter.write(out, (Instant) points.getTime(i));
+				}
+				out.name(VALUE);
+				valueAdapter.write(out, points.getValue(i));
+				out.endObject();
+			}
+			out.endArray();
+		}
+
+		@Override
+		public List<DvHydrographPoint> read(JsonReader in) throws IOException {
+			List<String> times = new ArrayList<>();
+			List<BigDecimal> values = new ArrayList<>();
+			in.beginArray();
+			while (in.hasNext()) {
+				String time = null;
+				BigDecimal value = null;
+				in.beginObject();
+				while (in.hasNext()) {
+					String name = in.nextName();
+					if (in.peek() == JsonToken.NULL) {
+						in.nextNull();
+					} else if (TIME.equals(name)) {
+						time = in.nextString();
+					} else if (VALUE.equals(name)) {
+						value = new BigDecimal(in.nextString());
+					} else {
+						in.skipValue();
+					}
+				}
+				in.endObject();
+				times.add(time);
+				values.add(value);
+			}
+			in.endArray();
+
+			DvHydrographPointList points = new DvHydrographPointList(isDaily(times), times.size());
+			for (int i = 0; i < times.size(); i++) {
+				String time = times.get(i);
+				if (time == null) {
+					throw new JsonParseException("Point " + i + " has no time");
+				}
+				points.add(points.isDaily() ? LocalDate.parse(time) : Instant.parse(time), values.get(i));
+			}
+			return points;
+		}
+
+		protected boolean isDaily(List<String> times) {
+			for (String time : times) {
+				if (time != null) {
+					try {
+						LocalDate.parse(time);
+						return true;
+					} catch (DateTimeParseException e) {
+						return false;
+					}
+				}
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package gov.usgs.aqcu.serializer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import com.google.gson.Gson;
+
+import gov.usgs.aqcu.builder.ReportBatchService;
+
+/**
+ * Writes a batch of reports as newline delimited JSON, one line per report in completion order:
+ * {"index":0,"request":"...","report":{...}} or, when the report failed, {"index":0,"request":"...","error":"..."}.
+ * Each line is flushed as it is written.
+ */
+public class NdjsonReportBatchWriter<P, T> implements ReportBatchService.ResultWriter<T> {
+	public static final String MEDIA_TYPE = "application/x-ndjson";
+
+	private final Gson gson;
+	private final Type reportType;
+	private final List<P> requests;
+	private final Function<P, String> requestKey;
+	private final Writer writer;
+
+	public NdjsonReportBatchWriter(Gson gson, Type reportType, List<P> requests, Function<P, String> requestKey,
+			OutputStream outputStream) {
+		this.gson = gson;
+		this.reportType = reportType;
+		this.requests = requests;
+		this.requestKey = requestKey;
+		this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void write(int index, T result, Exception error) throws IOException {
+		Map<String, Object> line = new TreeMap<>();
+		line.put("index", index);
+		line.put("request", requestKey.apply(requests.get(index)));
+		String header = gson.toJson(line);
+		writer.write(header, 0, header.length() - 1);
+		if (error == null) {
+			writer.write(",\"report\":");
+			gson.toJson(result, reportType, writer);
+		} else {
+			writer.write(",\"error\":");
+			writer.write(gson.toJson(String.valueOf(error.getMessage())));
+		}
+		writer.write("}\n");
+		writer.flush();
+	}
+}
@@ -0,0 +1,69 @@
+package gov.usgs.aqcu.serializer;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.Gson;
+
+public final class ReportJsonWriter {
+
+	private ReportJsonWriter() {}
+
+	/**
+	 * Serializes the report as UTF-8 JSON straight to the stream, producing the same JSON as gson.toJson without
+	 * holding the whole document in memory. The stream is flushed but not closed. Returns the number of bytes
+	 * written.
+	 */
+	public static long write(Gson gson, Object report, Type type, OutputStream outputStream) throws IOException {
+		CountingOutputStream counter = new CountingOutputStream(outputStream);
+		Writer writer = new BufferedWriter(new OutputStreamWriter(counter, StandardCharsets.UTF_8));
+		gson.toJson(report, type, writer);
+		writer.flush();
+		return counter.getCount();
+	}
+
+	/**
+	 * Serializes the report as UTF-8 JSON, for results that are kept rather than streamed to a response.
+	 */
+	public static byte[] toByteArray(Gson gson, Object report, Type type) {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try {
+			write(gson, report, type, outputStream);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return outputStream.toByteArray();
+	}
+
+	private static class CountingOutputStream extends FilterOutputStream {
+		private long count;
+
+		CountingOutputStream(OutputStream outputStream) {
+			super(outputStream);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+		long getCount() {
+			return count;
+		}
+	}
+}
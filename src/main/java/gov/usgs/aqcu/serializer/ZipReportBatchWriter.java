@@ -0,0 +1,53 @@
+package gov.usgs.aqcu.serializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import gov.usgs.aqcu.builder.ReportBatchService;
+
+/**
+ * Writes a batch of rendered reports as a zip, one entry per report in completion order, named by the report's
+ * position in the batch and its primary time series: 003-Discharge.ft^3_s@01014000.html, or .error.txt holding the
+ * error when the report failed. Call {@link #finish()} once every report has been written.
+ */
+public class ZipReportBatchWriter<P> implements ReportBatchService.ResultWriter<byte[]> {
+	public static final String MEDIA_TYPE = "application/zip";
+
+	private final List<P> requests;
+	private final Function<P, String> entryName;
+	private final ZipOutputStream zip;
+
+	public ZipReportBatchWriter(List<P> requests, Function<P, String> entryName, OutputStream outputStream) {
+		this.requests = requests;
+		this.entryName = entryName;
+		this.zip = new ZipOutputStream(outputStream);
+	}
+
+	@Override
+	public void write(int index, byte[] result, Exception error) throws IOException {
+		String name = String.format("%03d-%s", index, sanitize(entryName.apply(requests.get(index))));
+		if (error == null) {
+			zip.putNextEntry(new ZipEntry(name + ".html"));
+			zip.write(result);
+		} else {
+			zip.putNextEntry(new ZipEntry(name + ".error.txt"));
+			zip.write(String.valueOf(error.getMessage()).getBytes(StandardCharsets.UTF_8));
+		}
+		zip.closeEntry();
+		zip.flush();
+	}
+
+	public void finish() throws IOException {
+		zip.finish();
+		zip.flush();
+	}
+
+	protected static String sanitize(String name) {
+		return name == null ? "report" : name.replaceAll("[^A-Za-z0-9._@^-]", "_");
+	}
+}
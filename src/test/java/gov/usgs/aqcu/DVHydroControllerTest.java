@@ -2,36 +2,75 @@ package gov.usgs.aqcu;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static uk.co.datumedge.hamcrest.json.SameJSONAs.sameJSONObjectAs;
 
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.validation.Validator;
+
 import org.json.JSONObject;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StreamUtils;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import gov.usgs.aqcu.builder.ReportBatchService;
 import gov.usgs.aqcu.builder.ReportBuilderService;
+import gov.usgs.aqcu.builder.ReportJobService;
+import gov.usgs.aqcu.builder.ReportMetrics;
+import gov.usgs.aqcu.builder.ReportRenderService;
 import gov.usgs.aqcu.client.JavaToRClient;
 import gov.usgs.aqcu.model.DvHydrographReport;
+import gov.usgs.aqcu.model.ReportJob;
 import gov.usgs.aqcu.parameter.DvHydrographRequestParameters;
+import gov.usgs.aqcu.serializer.NdjsonReportBatchWriter;
+import gov.usgs.aqcu.serializer.ZipReportBatchWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @RunWith(SpringRunner.class)
 @WebMvcTest(DVHydroController.class)
@@ -43,39 +82,152 @@ public class DVHydroControllerTest {
 	@Autowired
 	private MockMvc mvc;
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
 	@MockBean
 	private ReportBuilderService service;
 
 	@MockBean
 	private JavaToRClient client;
 
+	@MockBean
+	private ReportJobService reportJobService;
+
+	@TestConfiguration
+	static class ReportRequestConfig {
+		@Bean
+		public Executor reportRequestExecutor() {
+			return Runnable::run;
+		}
+
+		@Bean
+		public ReportRenderService reportRenderService(JavaToRClient client, ReportMetrics reportMetrics) {
+			// Nothing is cached, so each test renders its own report.
+			return new ReportRenderService(client, reportMetrics, Caffeine.newBuilder().maximumSize(0).executor(Runnable::run).build(), "", 0);
+		}
+
+		@Bean
+		public ReportBatchService reportBatchService(Validator validator) {
+			return new ReportBatchService(Runnable::run, new SimpleAsyncTaskExecutor(), validator, 3, 2, 60);
+		}
+
+		@Bean
+		public MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		public ReportMetrics reportMetrics(MeterRegistry meterRegistry) {
+			return new ReportMetrics(meterRegistry);
+		}
+	}
+
 	@Test
 	public void getReportHappyPathTest() throws Exception {
 		DvHydrographReport reportPojo = new DvHydrographReport();
 		String reportHtml = "xxx";
-		given(service.buildReport(any(DvHydrographRequestParameters.class), anyString(), anyString())).willReturn(reportPojo);
+		given(service.buildReport(any(DvHydrographRequestParameters.class), anyMap(), anyString(), anyString())).willReturn(reportPojo);
 		given(client.render(anyString(), anyString(), anyString())).willReturn(reportHtml.getBytes());
 
-		mvc.perform(get("/dvhydro?primaryTimeseriesIdentifier=a&lastMonths=2&firstStatDerivedIdentifier=aa"))
+		MvcResult async = mvc.perform(get("/dvhydro?primaryTimeseriesIdentifier=a&lastMonths=2&firstStatDerivedIdentifier=aa"))
+			.andExpect(request().asyncStarted())
+			.andReturn()
+		;
+		mvc.perform(asyncDispatch(async))
 			.andExpect(status().isOk())
 			.andExpect(content().string(reportHtml))
 		;
 
-		verify(service).buildReport(any(DvHydrographRequestParameters.class), anyString(), anyString());
+		verify(service).buildReport(any(DvHydrographRequestParameters.class), anyMap(), anyString(), anyString());
+		verify(client).render(anyString(), anyString(), anyString());
+	}
+
+	@Test
+	public void getReportRejectedTest() throws Exception {
+		given(service.buildReport(any(DvHydrographRequestParameters.class), anyMap(), anyString(), anyString()))
+				.willThrow(new TaskRejectedException("Executor saturated"));
+
+		MvcResult async = mvc.perform(get("/dvhydro?primaryTimeseriesIdentifier=a&lastMonths=2&firstStatDerivedIdentifier=aa"))
+			.andExpect(request().asyncStarted())
+			.andReturn()
+		;
+		mvc.perform(asyncDispatch(async))
+			.andExpect(status().isServiceUnavailable())
+		;
+	}
+
+	@Test
+	public void getReportNotModifiedTest() throws Exception {
+		DvHydrographReport reportPojo = new DvHydrographReport();
+		String reportHtml = "xxx";
+		given(service.buildReport(any(DvHydrographRequestParameters.class), anyMap(), anyString(), anyString())).willReturn(reportPojo);
+		given(client.render(anyString(), anyString(), anyString())).willReturn(reportHtml.getBytes());
+
+		MvcResult async = mvc.perform(get("/dvhydro?primaryTimeseriesIdentifier=a&lastMonths=2&firstStatDerivedIdentifier=aa"))
+			.andExpect(request().asyncStarted())
+			.andReturn()
+		;
+		String eTag = mvc.perform(asyncDispatch(async))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getHeader("ETag")
+		;
+
+		async = mvc.perform(get("/dvhydro?primaryTimeseriesIdentifier=a&lastMonths=2&firstStatDerivedIdentifier=aa")
+				.header("If-None-Match", eTag))
+			.andExpect(request().asyncStarted())
+			.andReturn()
+		;
+		mvc.perform(asyncDispatch(async))
+			.andExpect(status().isNotModified())
+			.andExpect(header().string("ETag", eTag))
+			.andExpect(content().string(""))
+		;
+
+		verify(service, times(2)).buildReport(any(DvHydrographRequestParameters.class), anyMap(), anyString(), anyString());
 		verify(client).render(anyString(), anyString(), anyString());
 	}
 
+	@Test
+	public void getReportNotModifiedBeforeBuildTest() throws Exception {
+		given(service.getReportETag(any(DvHydrographRequestParameters.class), anyMap(), eq("dvhydrograph"), eq("user"))).willReturn("\"tag\"");
+
+		MvcResult async = mvc.perform(get("/dvhydro?primaryTimeseriesIdentifier=a&lastMonths=2&firstStatDerivedIdentifier=aa")
+				.header("If-None-Match", "\"tag\""))
+			.andExpect(request().asyncStarted())
+			.andReturn()
+		;
+		mvc.perform(asyncDispatch(async))
+			.andExpect(status().isNotModified())
+			.andExpect(header().string("ETag", "\"tag\""))
+			.andExpect(content().string(""))
+		;
+
+		verify(service).getTimeSeriesDescriptions(any(DvHydrographRequestParameters.class), eq("DV Hydrograph"));
+		verify(service, never()).buildReport(any(DvHydrographRequestParameters.class), anyMap(), anyString(), anyString());
+		verify(client, never()).render(anyString(), anyString(), anyString());
+	}
+
 	@Test
 	public void getJsonHappyPathTest() throws Exception {
 		DvHydrographReport reportPojo = new DvHydrographReport();
-		given(service.buildReport(any(DvHydrographRequestParameters.class), anyString(), anyString())).willReturn(reportPojo);
+		given(service.buildReport(any(DvHydrographRequestParameters.class), anyMap(), anyString(), anyString())).willReturn(reportPojo);
 
-		MvcResult result = mvc.perform(get("/dvhydro/rawData?primaryTimeseriesIdentifier=a&lastMonths=2&firstStatDerivedIdentifier=aa"))
+		long serialized = serializationCount();
+		MvcResult async = mvc.perform(get("/dvhydro/rawData?primaryTimeseriesIdentifier=a&lastMonths=2&firstStatDerivedIdentifier=aa"))
+			.andExpect(request().asyncStarted())
+			.andReturn()
+		;
+		MvcResult result = mvc.perform(asyncDispatch(async))
 			.andExpect(status().isOk())
+			.andExpect(content().contentType(MediaType.APPLICATION_JSON))
 			.andReturn()
 		;
+		// Wait for the report to be streamed to the response.
+		result.getAsyncResult();
 
-		verify(service).buildReport(any(DvHydrographRequestParameters.class), anyString(), anyString());
+		assertEquals(serialized + 1, serializationCount());
+		verify(service).buildReport(any(DvHydrographRequestParameters.class), anyMap(), anyString(), anyString());
 
 		String expectedJson = new String(FileCopyUtils.copyToByteArray(new ClassPathResource("testResult/skeletor.json").getInputStream()));
 		assertThat(new JSONObject(result.getResponse().getContentAsString()),
@@ -86,7 +238,7 @@ public class DVHydroControllerTest {
 	public void getReportSadPathTest() throws Exception {
 		DvHydrographReport reportPojo = new DvHydrographReport();
 		String reportHtml = "xxx";
-		given(service.buildReport(any(DvHydrographRequestParameters.class), anyString(), anyString())).willReturn(reportPojo);
+		given(service.buildReport(any(DvHydrographRequestParameters.class), anyMap(), anyString(), anyString())).willReturn(reportPojo);
 		given(client.render(anyString(), anyString(), anyString())).willReturn(reportHtml.getBytes());
 
 		mvc.perform(get("/dvhydro?lastMonths=2&firstStatDerivedIdentifier=aa"))
@@ -94,27 +246,158 @@ public class DVHydroControllerTest {
 			.andExpect(content().string(""))
 		;
 
-		verify(service, never()).buildReport(any(DvHydrographRequestParameters.class), anyString(), anyString());
+		verify(service, never()).buildReport(any(DvHydrographRequestParameters.class), anyMap(), anyString(), anyString());
 		verify(client, never()).render(anyString(), anyString(), anyString());
 	}
 
+	@Test
+	public void getJsonNotModifiedTest() throws Exception {
+		given(service.getRawDataETag(any(DvHydrographRequestParameters.class), anyMap())).willReturn("\"tag\"");
+
+		MvcResult async = mvc.perform(get("/dvhydro/rawData?primaryTimeseriesIdentifier=a&lastMonths=2&firstStatDerivedIdentifier=aa")
+				.header("If-None-Match", "\"tag\""))
+			.andExpect(request().asyncStarted())
+			.andReturn()
+		;
+		mvc.perform(asyncDispatch(async))
+			.andExpect(status().isNotModified())
+			.andExpect(header().string("ETag", "\"tag\""))
+			.andExpect(x -> assertTrue(x.getResponse().getHeaders("Cache-Control").contains("max-age=900, private")))
+			.andExpect(content().string(""))
+		;
+
+		verify(service).getTimeSeriesDescriptions(any(DvHydrographRequestParameters.class), eq("DV Hydrograph"));
+		verify(service, never()).buildReport(any(DvHydrographRequestParameters.class), anyMap(), anyString(), anyString());
+	}
+
 	@Test
 	public void getJsonSadPathTest() throws Exception {
 		DvHydrographReport reportPojo = new DvHydrographReport();
-		given(service.buildReport(any(DvHydrographRequestParameters.class), anyString(), anyString())).willReturn(reportPojo);
+		given(service.buildReport(any(DvHydrographRequestParameters.class), anyMap(), anyString(), anyString())).willReturn(reportPojo);
 
 		mvc.perform(get("/dvhydro/rawData?lastMonths=2&firstStatDerivedIdentifier=aa"))
 			.andExpect(status().isBadRequest())
 			.andExpect(content().string(""))
 		;
 
+		verify(service, never()).buildReport(any(DvHydrographRequestParameters.class), anyMap(), anyString(), anyString());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void submitReportJobTest() throws Exception {
+		DvHydrographReport reportPojo = new DvHydrographReport();
+		String reportHtml = "xxx";
+		given(service.buildReport(any(DvHydrographRequestParameters.class), anyString(), anyString())).willReturn(reportPojo);
+		given(client.render(anyString(), anyString(), anyString())).willReturn(reportHtml.getBytes());
+		given(reportJobService.submit(eq("dvhydro"), eq("user"), eq(MediaType.TEXT_HTML_VALUE), any(Supplier.class)))
+				.willReturn(new ReportJob("id", "dvhydro", "user"));
+
+		mvc.perform(post("/dvhydro/jobs?primaryTimeseriesIdentifier=a&lastMonths=2&firstStatDerivedIdentifier=aa").with(csrf()))
+			.andExpect(status().isAccepted())
+			.andExpect(header().string("Location", "http://localhost/jobs/id"))
+			.andExpect(jsonPath("$.id").value("id"))
+			.andExpect(jsonPath("$.status").value("QUEUED"))
+		;
+
+		ArgumentCaptor<Supplier<byte[]>> report = ArgumentCaptor.forClass(Supplier.class);
+		verify(reportJobService).submit(eq("dvhydro"), eq("user"), eq(MediaType.TEXT_HTML_VALUE), report.capture());
+		verify(service, never()).buildReport(any(DvHydrographRequestParameters.class), anyString(), anyString());
+		assertEquals(reportHtml, new String(report.getValue().get()));
+		verify(client).render(anyString(), anyString(), anyString());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void submitReportJobSadPathTest() throws Exception {
+		mvc.perform(post("/dvhydro/rawData/jobs?lastMonths=2&firstStatDerivedIdentifier=aa").with(csrf()))
+			.andExpect(status().isBadRequest())
+		;
+		mvc.perform(get("/dvhydro/jobs?primaryTimeseriesIdentifier=a&lastMonths=2&firstStatDerivedIdentifier=aa"))
+			.andExpect(status().isMethodNotAllowed())
+		;
+		mvc.perform(get("/dvhydro/rawData/jobs?primaryTimeseriesIdentifier=a&lastMonths=2&firstStatDerivedIdentifier=aa"))
+			.andExpect(status().isMethodNotAllowed())
+		;
+
+		verify(reportJobService, never()).submit(anyString(), anyString(), anyString(), any(Supplier.class));
+	}
+
+	@Test
+	public void getReportRawDataBatchTest() throws Exception {
+		DvHydrographReport reportPojo = new DvHydrographReport();
+		given(service.buildReport(argThat((DvHydrographRequestParameters p) -> p != null && "a".equals(p.getPrimaryTimeseriesIdentifier())), eq("user"), eq("DV Hydrograph"))).willReturn(reportPojo);
+		given(service.buildReport(argThat((DvHydrographRequestParameters p) -> p != null && "b".equals(p.getPrimaryTimeseriesIdentifier())), eq("user"), eq("DV Hydrograph"))).willThrow(new RuntimeException("Aquarius unavailable"));
+
+		MvcResult async = mvc.perform(post("/dvhydro/rawData/batch").with(csrf())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"primaryTimeseriesIdentifier\":\"a\",\"firstStatDerivedIdentifier\":\"aa\",\"waterYear\":2018},"
+						+ "{\"primaryTimeseriesIdentifier\":\"b\",\"firstStatDerivedIdentifier\":\"bb\",\"lastMonths\":2}]"))
+			.andExpect(request().asyncStarted())
+			.andReturn()
+		;
+		async.getAsyncResult();
+		assertEquals(NdjsonReportBatchWriter.MEDIA_TYPE, async.getResponse().getContentType());
+		String[] lines = async.getResponse().getContentAsString().split("\n");
+
+		assertEquals(2, lines.length);
+		JSONObject first = new JSONObject(lines[0]);
+		assertEquals(0, first.getInt("index"));
+		assertTrue(first.getString("request").contains("primaryTimeseriesIdentifier=a"));
+		assertTrue(first.has("report"));
+		JSONObject second = new JSONObject(lines[1]);
+		assertEquals(1, second.getInt("index"));
+		assertEquals("Aquarius unavailable", second.getString("error"));
+	}
+
+	@Test
+	public void getReportBatchTest() throws Exception {
+		DvHydrographReport reportPojo = new DvHydrographReport();
+		given(service.buildReport(any(DvHydrographRequestParameters.class), anyString(), anyString())).willReturn(reportPojo);
+		given(client.render(anyString(), anyString(), anyString())).willReturn("xxx".getBytes());
+
+		MvcResult async = mvc.perform(post("/dvhydro/batch").with(csrf())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"primaryTimeseriesIdentifier\":\"Discharge.ft^3/s@01014000\",\"firstStatDerivedIdentifier\":\"aa\",\"waterYear\":2018}]"))
+			.andExpect(request().asyncStarted())
+			.andReturn()
+		;
+		async.getAsyncResult();
+		assertEquals(ZipReportBatchWriter.MEDIA_TYPE, async.getResponse().getContentType());
+
+		ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(async.getResponse().getContentAsByteArray()));
+		ZipEntry entry = zip.getNextEntry();
+		assertEquals("000-Discharge.ft^3_s@01014000.html", entry.getName());
+		assertEquals("xxx", new String(StreamUtils.copyToByteArray(zip)));
+		assertNull(zip.getNextEntry());
+	}
+
+	@Test
+	public void getReportBatchInvalidTest() throws Exception {
+		mvc.perform(post("/dvhydro/rawData/batch").with(csrf())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"primaryTimeseriesIdentifier\":\"a\",\"firstStatDerivedIdentifier\":\"aa\",\"waterYear\":2018},"
+						+ "{\"primaryTimeseriesIdentifier\":\"b\",\"lastMonths\":2}]"))
+			.andExpect(status().isBadRequest())
+		;
+		mvc.perform(post("/dvhydro/batch").with(csrf())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[]"))
+			.andExpect(status().isBadRequest())
+		;
+
 		verify(service, never()).buildReport(any(DvHydrographRequestParameters.class), anyString(), anyString());
 	}
 
 	@Test
 	public void getRequestingUserTest() {
-		DVHydroController c = new DVHydroController(null, null, null);
+		DVHydroController c = new DVHydroController(null, null, null, null, null, null, null, 15);
 		assertEquals("user", c.getRequestingUser());
 	}
 
+	private long serializationCount() {
+		Timer timer = meterRegistry.find(ReportMetrics.STAGE_TIMER)
+				.tags("report", "DV Hydrograph", "stage", ReportMetrics.SERIALIZATION).timer();
+		return timer == null ? 0 : timer.count();
+	}
 }
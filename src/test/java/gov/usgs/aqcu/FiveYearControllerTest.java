@@ -2,16 +2,28 @@ package gov.usgs.aqcu;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMap;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static uk.co.datumedge.hamcrest.json.SameJSONAs.sameJSONObjectAs;
 
+import java.util.concurrent.Executor;
+
+import javax.validation.Validator;
+
 import org.json.JSONObject;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -20,18 +32,32 @@ import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.util.FileCopyUtils;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import gov.usgs.aqcu.builder.ReportBatchService;
 import gov.usgs.aqcu.builder.ReportBuilderService;
+import gov.usgs.aqcu.builder.ReportJobService;
+import gov.usgs.aqcu.builder.ReportMetrics;
+import gov.usgs.aqcu.builder.ReportRenderService;
 import gov.usgs.aqcu.client.JavaToRClient;
 import gov.usgs.aqcu.model.DvHydrographReport;
 import gov.usgs.aqcu.parameter.FiveYearRequestParameters;
+import gov.usgs.aqcu.serializer.NdjsonReportBatchWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @RunWith(SpringRunner.class)
 @WebMvcTest(FiveYearController.class)
@@ -43,39 +69,107 @@ public class FiveYearControllerTest {
 	@Autowired
 	private MockMvc mvc;
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
 	@MockBean
 	private ReportBuilderService service;
 
 	@MockBean
 	private JavaToRClient client;
 
+	@MockBean
+	private ReportJobService reportJobService;
+
+	@TestConfiguration
+	static class ReportRequestConfig {
+		@Bean
+		public Executor reportRequestExecutor() {
+			return Runnable::run;
+		}
+
+		@Bean
+		public ReportRenderService reportRenderService(JavaToRClient client, ReportMetrics reportMetrics) {
+			// Nothing is cached, so each test renders its own report.
+			return new ReportRenderService(client, reportMetrics, Caffeine.newBuilder().maximumSize(0).executor(Runnable::run).build(), "", 0);
+		}
+
+		@Bean
+		public ReportBatchService reportBatchService(Validator validator) {
+			return new ReportBatchService(Runnable::run, new SimpleAsyncTaskExecutor(), validator, 3, 2, 60);
+		}
+
+		@Bean
+		public MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		public ReportMetrics reportMetrics(MeterRegistry meterRegistry) {
+			return new ReportMetrics(meterRegistry);
+		}
+	}
+
 	@Test
 	public void getReportHappyPathTest() throws Exception {
 		DvHydrographReport reportPojo = new DvHydrographReport();
 		String reportHtml = "xxx";
-		given(service.buildReport(any(FiveYearRequestParameters.class), anyString(), anyString())).willReturn(reportPojo);
+		given(service.buildReport(any(FiveYearRequestParameters.class), anyMap(), anyString(), anyString())).willReturn(reportPojo);
 		given(client.render(anyString(), anyString(), anyString())).willReturn(reportHtml.getBytes());
 
-		mvc.perform(get("/fiveyeargwsum?primaryTimeseriesIdentifier=a&lastMonths=2&firstStatDerivedIdentifier=aa"))
+		MvcResult async = mvc.perform(get("/fiveyeargwsum?primaryTimeseriesIdentifier=a&lastMonths=2&firstStatDerivedIdentifier=aa"))
+			.andExpect(request().asyncStarted())
+			.andReturn()
+		;
+		mvc.perform(asyncDispatch(async))
 			.andExpect(status().isOk())
 			.andExpect(content().string(reportHtml))
 		;
 
-		verify(service).buildReport(any(FiveYearRequestParameters.class), anyString(), anyString());
+		verify(service).buildReport(any(FiveYearRequestParameters.class), anyMap(), anyString(), anyString());
 		verify(client).render(anyString(), anyString(), anyString());
 	}
 
+	@Test
+	public void getReportNotModifiedBeforeBuildTest() throws Exception {
+		given(service.getReportETag(any(FiveYearRequestParameters.class), anyMap(), eq("fiveyeargwsum"), eq("user"))).willReturn("\"tag\"");
+
+		MvcResult async = mvc.perform(get("/fiveyeargwsum?primaryTimeseriesIdentifier=a&lastMonths=2&firstStatDerivedIdentifier=aa")
+				.header("If-None-Match", "\"tag\""))
+			.andExpect(request().asyncStarted())
+			.andReturn()
+		;
+		mvc.perform(asyncDispatch(async))
+			.andExpect(status().isNotModified())
+			.andExpect(header().string("ETag", "\"tag\""))
+			.andExpect(content().string(""))
+		;
+
+		verify(service).getTimeSeriesDescriptions(any(FiveYearRequestParameters.class), eq("Five Year GW Summary"));
+		verify(service, never()).buildReport(any(FiveYearRequestParameters.class), anyMap(), anyString(), anyString());
+		verify(client, never()).render(anyString(), anyString(), anyString());
+	}
+
 	@Test
 	public void getJsonHappyPathTest() throws Exception {
 		DvHydrographReport reportPojo = new DvHydrographReport();
-		given(service.buildReport(any(FiveYearRequestParameters.class), anyString(), anyString())).willReturn(reportPojo);
+		given(service.buildReport(any(FiveYearRequestParameters.class), anyMap(), anyString(), anyString())).willReturn(reportPojo);
 
-		MvcResult result = mvc.perform(get("/fiveyeargwsum/rawData?primaryTimeseriesIdentifier=a&lastMonths=2&firstStatDerivedIdentifier=aa"))
+		long serialized = serializationCount();
+		MvcResult async = mvc.perform(get("/fiveyeargwsum/rawData?primaryTimeseriesIdentifier=a&lastMonths=2&firstStatDerivedIdentifier=aa"))
+			.andExpect(request().asyncStarted())
+			.andReturn()
+		;
+		MvcResult result = mvc.perform(asyncDispatch(async))
 			.andExpect(status().isOk())
+			.andExpect(content().contentType(MediaType.APPLICATION_JSON))
 			.andReturn()
 		;
+		// Wait for the report to be streamed to the response.
+		result.getAsyncResult();
 
-		verify(service).buildReport(any(FiveYearRequestParameters.class), anyString(), anyString());
+		assertEquals(serialized + 1, serializationCount());
+		verify(service).buildReport(any(FiveYearRequestParameters.class), anyMap(), anyString(), anyString());
 
 		String expectedJson = new String(FileCopyUtils.copyToByteArray(new ClassPathResource("testResult/skeletor.json").getInputStream()));
 		assertThat(new JSONObject(result.getResponse().getContentAsString()),
@@ -86,7 +180,7 @@ public class FiveYearControllerTest {
 	public void getReportSadPathTest() throws Exception {
 		DvHydrographReport reportPojo = new DvHydrographReport();
 		String reportHtml = "xxx";
-		given(service.buildReport(any(FiveYearRequestParameters.class), anyString(), anyString())).willReturn(reportPojo);
+		given(service.buildReport(any(FiveYearRequestParameters.class), anyMap(), anyString(), anyString())).willReturn(reportPojo);
 		given(client.render(anyString(), anyString(), anyString())).willReturn(reportHtml.getBytes());
 
 		mvc.perform(get("/fiveyeargwsum?lastMonths=2&firstStatDerivedIdentifier=aa"))
@@ -94,27 +188,52 @@ public class FiveYearControllerTest {
 			.andExpect(content().string(""))
 		;
 
-		verify(service, never()).buildReport(any(FiveYearRequestParameters.class), anyString(), anyString());
+		verify(service, never()).buildReport(any(FiveYearRequestParameters.class), anyMap(), anyString(), anyString());
 		verify(client, never()).render(anyString(), anyString(), anyString());
 	}
 
 	@Test
 	public void getJsonSadPathTest() throws Exception {
 		DvHydrographReport reportPojo = new DvHydrographReport();
-		given(service.buildReport(any(FiveYearRequestParameters.class), anyString(), anyString())).willReturn(reportPojo);
+		given(service.buildReport(any(FiveYearRequestParameters.class), anyMap(), anyString(), anyString())).willReturn(reportPojo);
 
 		mvc.perform(get("/fiveyeargwsum/rawData?lastMonths=2&firstStatDerivedIdentifier=aa"))
 			.andExpect(status().isBadRequest())
 			.andExpect(content().string(""))
 		;
 
-		verify(service, never()).buildReport(any(FiveYearRequestParameters.class), anyString(), anyString());
+		verify(service, never()).buildReport(any(FiveYearRequestParameters.class), anyMap(), anyString(), anyString());
+	}
+
+	@Test
+	public void getReportRawDataBatchTest() throws Exception {
+		DvHydrographReport reportPojo = new DvHydrographReport();
+		given(service.buildReport(any(FiveYearRequestParameters.class), eq("user"), eq("Five Year GW Summary"))).willReturn(reportPojo);
+
+		MvcResult async = mvc.perform(post("/fiveyeargwsum/rawData/batch").with(csrf())
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"primaryTimeseriesIdentifier\":\"a\",\"firstStatDerivedIdentifier\":\"aa\",\"waterYear\":2018}]"))
+			.andExpect(request().asyncStarted())
+			.andReturn()
+		;
+		async.getAsyncResult();
+		assertEquals(NdjsonReportBatchWriter.MEDIA_TYPE, async.getResponse().getContentType());
+		JSONObject line = new JSONObject(async.getResponse().getContentAsString().trim());
+		assertEquals(0, line.getInt("index"));
+		assertTrue(line.has("report"));
+
+		verify(service).buildReport(any(FiveYearRequestParameters.class), eq("user"), eq("Five Year GW Summary"));
 	}
 
 	@Test
 	public void getRequestingUserTest() {
-		DVHydroController c = new DVHydroController(null, null, null);
+		DVHydroController c = new DVHydroController(null, null, null, null, null, null, null, 15);
 		assertEquals("user", c.getRequestingUser());
 	}
 
+	private long serializationCount() {
+		Timer timer = meterRegistry.find(ReportMetrics.STAGE_TIMER)
+				.tags("report", "Five Year GW Summary", "stage", ReportMetrics.SERIALIZATION).timer();
+		return timer == null ? 0 : timer.count();
+	}
 }
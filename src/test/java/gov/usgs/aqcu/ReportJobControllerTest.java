@@ -0,0 +1,119 @@
+package gov.usgs.aqcu;
+
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import gov.usgs.aqcu.builder.ReportJobService;
+import gov.usgs.aqcu.model.ReportJob;
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(ReportJobController.class)
+@WithMockUser
+@EnableAutoConfiguration(exclude = {SecurityAutoConfiguration.class})
+@AutoConfigureMockMvc
+public class ReportJobControllerTest {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@MockBean
+	private ReportJobService reportJobService;
+
+	@Test
+	public void getJobTest() throws Exception {
+		ReportJob job = new ReportJob("id", "dvhydro", "user");
+		given(reportJobService.get("id", "user")).willReturn(job);
+
+		MvcResult result = mvc.perform(get("/jobs/id"))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		mvc.perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.id").value("id"))
+			.andExpect(jsonPath("$.status").value("QUEUED"))
+			.andExpect(jsonPath("$.result").doesNotExist())
+			.andExpect(jsonPath("$.requestingUser").doesNotExist())
+		;
+	}
+
+	@Test
+	public void getJobLongPollTest() throws Exception {
+		ReportJob job = new ReportJob("id", "dvhydro", "user");
+		given(reportJobService.get("id", "user")).willReturn(job);
+
+		MvcResult result = mvc.perform(get("/jobs/id?waitMillis=10000"))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		job.complete("xxx".getBytes(), MediaType.TEXT_HTML_VALUE);
+		mvc.perform(asyncDispatch(result))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.status").value("COMPLETE"))
+		;
+	}
+
+	@Test
+	public void getJobNotFoundTest() throws Exception {
+		MvcResult result = mvc.perform(get("/jobs/id"))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		mvc.perform(asyncDispatch(result))
+			.andExpect(status().isNotFound())
+		;
+	}
+
+	@Test
+	public void getJobResultTest() throws Exception {
+		ReportJob job = new ReportJob("id", "dvhydro", "user");
+		given(reportJobService.get("id", "user")).willReturn(job);
+
+		mvc.perform(get("/jobs/id/result"))
+			.andExpect(status().isAccepted())
+			.andExpect(jsonPath("$.status").value("QUEUED"))
+		;
+
+		job.complete("xxx".getBytes(), MediaType.TEXT_HTML_VALUE);
+		mvc.perform(get("/jobs/id/result"))
+			.andExpect(status().isOk())
+			.andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_HTML))
+			.andExpect(content().string("xxx"))
+		;
+	}
+
+	@Test
+	public void getJobResultFailedTest() throws Exception {
+		ReportJob job = new ReportJob("id", "dvhydro", "user");
+		job.fail("JavaToR unavailable");
+		given(reportJobService.get("id", "user")).willReturn(job);
+
+		mvc.perform(get("/jobs/id/result"))
+			.andExpect(status().isInternalServerError())
+			.andExpect(jsonPath("$.error").value("JavaToR unavailable"))
+		;
+	}
+
+	@Test
+	public void getJobResultNotFoundTest() throws Exception {
+		mvc.perform(get("/jobs/id/result"))
+			.andExpect(status().isNotFound())
+		;
+	}
+}
@@ -0,0 +1,65 @@
+package gov.usgs.aqcu.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import gov.usgs.aqcu.model.DvHydrographPointList;
+
+public class PointConversionServiceTest {
+	private static final ZoneOffset ZONE = ZoneOffset.of("-5");
+
+	private PointConversionService service = new PointConversionService();
+
+	@Test
+	public void convertTest() {
+		DvHydrographPointList actual = service.convert(getPoints(1000), true, ZONE);
+
+		assertEquals(900, actual.size());
+		assertTrue(actual.isDaily());
+		assertEquals(LocalDate.parse("2017-10-01"), actual.getTime(0));
+		assertEquals(new BigDecimal("0.01"), actual.getValue(0));
+	}
+
+	@Test
+	public void convertInstantTest() {
+		DvHydrographPointList actual = service.convert(getPoints(95), false, ZONE);
+
+		assertEquals(85, actual.size());
+		assertFalse(actual.isDaily());
+		assertEquals(Instant.parse("2017-10-01T05:15:00Z"), actual.getTime(0));
+		assertEquals(Instant.parse("2017-10-01T05:30:00Z"), actual.getTime(1));
+	}
+
+	@Test
+	public void convertEmptyTest() {
+		assertEquals(0, service.convert(new ArrayList<>(), true, ZONE).size());
+	}
+
+	protected List<TimeSeriesPoint> getPoints(int count) {
+		List<TimeSeriesPoint> points = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			DoubleWithDisplay value = i % 10 == 0 ? new DoubleWithDisplay().setDisplay("EQP")
+					: new DoubleWithDisplay().setNumeric(i / 100D).setDisplay(String.valueOf(i / 100D));
+			points.add(new TimeSeriesPoint()
+					.setTimestamp(new StatisticalDateTimeOffset()
+							.setDateTimeOffset(Instant.parse("2017-10-01T05:00:00Z").plusSeconds(900L * i))
+							.setRepresentsEndOfTimePeriod(false))
+					.setValue(value));
+		}
+		return points;
+	}
+}
@@ -0,0 +1,257 @@
+package gov.usgs.aqcu.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.validation.Validation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
+
+import gov.usgs.aqcu.parameter.DvHydrographRequestParameters;
+
+public class ReportBatchServiceTest {
+
+	private ReportBatchService service;
+
+	@Before
+	public void setup() {
+		service = new ReportBatchService(Runnable::run, new SimpleAsyncTaskExecutor(), Validation.buildDefaultValidatorFactory().getValidator(), 3, 2, 60);
+	}
+
+	@After
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void runTest() throws Exception {
+		List<String> written = new ArrayList<>();
+		service.run(Arrays.asList("a", "b", "c"), x -> {
+			if ("b".equals(x)) {
+				throw new RuntimeException("Aquarius unavailable");
+			}
+			return x.toUpperCase();
+		}, SecurityContextHolder.createEmptyContext(), (index, result, error) -> {
+			written.add(index + ":" + (error == null ? result : error.getMessage()));
+		});
+		assertEquals(Arrays.asList("0:A", "1:Aquarius unavailable", "2:C"), written);
+	}
+
+	@Test
+	public void runErrorTest() throws Exception {
+		List<Exception> written = new ArrayList<>();
+		service.run(Arrays.asList("a"), x -> {
+			throw new StackOverflowError();
+		}, SecurityContextHolder.createEmptyContext(), (index, result, error) -> written.add(error));
+		assertTrue(written.get(0) instanceof ExecutionException);
+		assertTrue(written.get(0).getCause() instanceof StackOverflowError);
+	}
+
+	@Test
+	public void runMaxConcurrentReportsTest() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			service = new ReportBatchService(executor, new SimpleAsyncTaskExecutor(), Validation.buildDefaultValidatorFactory().getValidator(), 6, 2, 60);
+			AtomicInteger running = new AtomicInteger();
+			AtomicInteger maxRunning = new AtomicInteger();
+			List<Integer> written = new ArrayList<>();
+			service.run(Arrays.asList(0, 1, 2, 3, 4, 5), x -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				try {
+					Thread.sleep(20);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				running.decrementAndGet();
+				return x;
+			}, SecurityContextHolder.createEmptyContext(), (index, result, error) -> written.add(result));
+			assertEquals(6, written.size());
+			assertTrue(maxRunning.get() <= 2);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void runTimeoutTest() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			service = new ReportBatchService(executor, new SimpleAsyncTaskExecutor(), Validation.buildDefaultValidatorFactory().getValidator(), 3, 2, 1);
+			CountDownLatch interrupted = new CountDownLatch(1);
+			List<String> written = new ArrayList<>();
+			service.run(Arrays.asList("a", "b", "c"), x -> "a".equals(x) ? x : block(new CountDownLatch(1), interrupted),
+					SecurityContextHolder.createEmptyContext(), (index, result, error) -> {
+				written.add(index + ":" + (error == null ? result : error.getClass().getSimpleName()));
+			});
+			assertEquals(Arrays.asList("0:a", "1:" + TimeoutException.class.getSimpleName(),
+					"2:" + TimeoutException.class.getSimpleName()), written);
+			assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void runWriterFailureTest() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			service = new ReportBatchService(executor, new SimpleAsyncTaskExecutor(), Validation.buildDefaultValidatorFactory().getValidator(), 3, 2, 60);
+			CountDownLatch started = new CountDownLatch(1);
+			CountDownLatch interrupted = new CountDownLatch(1);
+			try {
+				service.run(Arrays.asList("a", "b"), x -> "a".equals(x) ? await(started, x) : block(started, interrupted),
+						SecurityContextHolder.createEmptyContext(), (index, result, error) -> {
+					throw new IOException("Client disconnected");
+				});
+				fail("Expected IOException");
+			} catch (IOException e) {
+				assertEquals("Client disconnected", e.getMessage());
+			}
+			assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void runSecurityContextTest() throws Exception {
+		SecurityContext securityContext = new SecurityContextImpl(new TestingAuthenticationToken("user", null));
+		List<String> written = new ArrayList<>();
+		service.run(Arrays.asList("a"), x -> SecurityContextHolder.getContext().getAuthentication().getName(),
+				securityContext, (index, result, error) -> written.add(result));
+		assertEquals(Arrays.asList("user"), written);
+		assertNull(SecurityContextHolder.getContext().getAuthentication());
+	}
+
+	@Test
+	public void streamTest() throws Exception {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+		service = new ReportBatchService(Runnable::run, executor, Validation.buildDefaultValidatorFactory().getValidator(), 3, 2, 60);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		WebAsyncTask<Void> task = service.stream(response, "application/x-ndjson", x -> x.write("a".getBytes()));
+		assertSame(executor, task.getExecutor());
+		assertEquals(Long.valueOf(90000), task.getTimeout());
+		task.getCallable().call();
+		assertEquals(HttpStatus.OK.value(), response.getStatus());
+		assertEquals("application/x-ndjson", response.getContentType());
+		assertEquals("a", response.getContentAsString());
+		assertTrue(response.isCommitted());
+	}
+
+	@Test
+	public void streamTimeoutTest() throws Exception {
+		assertClosedBy("timeoutCallback");
+	}
+
+	@Test
+	public void streamErrorTest() throws Exception {
+		assertClosedBy("errorCallback");
+	}
+
+	@SuppressWarnings("unchecked")
+	private void assertClosedBy(String callback) throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		CountDownLatch written = new CountDownLatch(1);
+		CountDownLatch closed = new CountDownLatch(1);
+		WebAsyncTask<Void> task = service.stream(response, "application/zip", x -> {
+			x.write("a".getBytes());
+			written.countDown();
+			await(closed, null);
+			x.write("b".getBytes());
+		});
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<?> writing = executor.submit(task.getCallable());
+			assertTrue(written.await(5, TimeUnit.SECONDS));
+			((Callable<Void>) ReflectionTestUtils.getField(task, callback)).call();
+			closed.countDown();
+			try {
+				writing.get(5, TimeUnit.SECONDS);
+				fail("Expected IOException");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof IOException);
+				assertEquals("Report batch response is closed", e.getCause().getMessage());
+			}
+			assertEquals("a", response.getContentAsString());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void validateTest() {
+		DvHydrographRequestParameters valid = new DvHydrographRequestParameters();
+		valid.setPrimaryTimeseriesIdentifier("a");
+		valid.setFirstStatDerivedIdentifier("aa");
+		valid.setWaterYear(2018);
+		service.validate(Arrays.asList(valid, valid, valid));
+
+		assertBadRequest(Collections.emptyList(), "between 1 and 3");
+		assertBadRequest(null, "between 1 and 3");
+		assertBadRequest(Arrays.asList(valid, valid, valid, valid), "between 1 and 3");
+
+		DvHydrographRequestParameters invalid = new DvHydrographRequestParameters();
+		invalid.setPrimaryTimeseriesIdentifier("b");
+		invalid.setWaterYear(2018);
+		assertBadRequest(Arrays.asList(valid, invalid), "Report 1 of batch is invalid:  Need at least one Stat-Derived");
+	}
+
+	private static String await(CountDownLatch started, String result) {
+		try {
+			started.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return result;
+	}
+
+	private static String block(CountDownLatch started, CountDownLatch interrupted) {
+		started.countDown();
+		try {
+			Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+		} catch (InterruptedException e) {
+			interrupted.countDown();
+		}
+		return null;
+	}
+
+	private void assertBadRequest(List<?> requests, String message) {
+		try {
+			service.validate(requests);
+			fail("Expected ResponseStatusException");
+		} catch (ResponseStatusException e) {
+			assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+			assertTrue(e.getReason(), e.getReason().contains(message));
+		}
+	}
+}
@@ -4,8 +4,12 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.samePropertyValuesAs;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -27,6 +31,15 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -58,6 +71,7 @@ import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Stat
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescription;
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 import gov.usgs.aqcu.ObjectCompare;
 import gov.usgs.aqcu.model.DataGap;
@@ -76,14 +90,24 @@ import gov.usgs.aqcu.model.nwis.WqValue;
 import gov.usgs.aqcu.model.nwis.GroundWaterParameter;
 import gov.usgs.aqcu.model.nwis.ParameterRecord;
 import gov.usgs.aqcu.parameter.DvHydrographRequestParameters;
+import gov.usgs.aqcu.retrieval.ApprovedSegmentStore;
 import gov.usgs.aqcu.retrieval.AquariusRetrievalService;
+import gov.usgs.aqcu.retrieval.FieldVisitDataCacheService;
 import gov.usgs.aqcu.retrieval.FieldVisitDataService;
 import gov.usgs.aqcu.retrieval.FieldVisitDescriptionService;
+import gov.usgs.aqcu.retrieval.InFlightRequestRegistry;
+import gov.usgs.aqcu.retrieval.LocationDescriptionCacheService;
 import gov.usgs.aqcu.retrieval.LocationDescriptionListService;
+import gov.usgs.aqcu.retrieval.NwisParameterIndexService;
 import gov.usgs.aqcu.retrieval.NwisRaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import gov.usgs.aqcu.retrieval.ParameterListService;
+import gov.usgs.aqcu.retrieval.ParameterMetadataCacheService;
 import gov.usgs.aqcu.retrieval.QualifierLookupService;
+import gov.usgs.aqcu.retrieval.QualifierMetadataCacheService;
 import gov.usgs.aqcu.retrieval.RatingModelInputValuesService;
+import gov.usgs.aqcu.retrieval.TimeSeriesDataCacheService;
 import gov.usgs.aqcu.retrieval.TimeSeriesDataService;
 import gov.usgs.aqcu.retrieval.TimeSeriesDescriptionService;
 
@@ -124,6 +148,7 @@ public class ReportBuilderServiceTest {
 	private TimeSeriesDescriptionService timeSeriesDescriptionService;
 
 	private ReportBuilderService service;
+	private MeterRegistry meterRegistry;
 	private Map<String, QualifierMetadata> metadataMap;
 	private Instant nowInstant;
 	private LocalDate nowLocalDate;
@@ -131,10 +156,9 @@ public class ReportBuilderServiceTest {
 	@Before
 	@SuppressWarnings("unchecked")
 	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
 		fieldVisitMeasurementsService = Mockito.spy(new FieldVisitMeasurementsBuilderService(ratingInputService));
-		service = new ReportBuilderService(dataGapListBuilderService, fieldVisitDataService,
-				fieldVisitDescriptionService, fieldVisitMeasurementsService, locationDescriptionListService, nwisRaService,
-				parameterListService, qualifierLookupService, timeSeriesDataService, timeSeriesDescriptionService);
+		service = buildService(Runnable::run, Runnable::run);
 		metadataMap = buildQualifierMetadata();
 		nowInstant = Instant.now();
 		nowLocalDate = LocalDate.now();
@@ -143,6 +167,23 @@ public class ReportBuilderServiceTest {
 		when(parameterListService.isVolumetricFlow(any(Map.class), any(String.class))).thenCallRealMethod();
 	}
 
+	protected ReportBuilderService buildService(Executor reportBuilderExecutor, Executor fieldVisitDataExecutor) {
+		InFlightRequestRegistry inFlightRequestRegistry = new InFlightRequestRegistry(new SimpleMeterRegistry());
+		return new ReportBuilderService(dataGapListBuilderService,
+				new FieldVisitDataCacheService(fieldVisitDataService, inFlightRequestRegistry, Caffeine.newBuilder().build()),
+				fieldVisitDescriptionService, fieldVisitMeasurementsService, inFlightRequestRegistry,
+				new LocationDescriptionCacheService(locationDescriptionListService, Caffeine.newBuilder().build()), nwisRaService,
+				new NwisParameterIndexService(nwisRaService, new SimpleMeterRegistry()),
+				parameterListService, new ParameterMetadataCacheService(parameterListService, new SimpleMeterRegistry()),
+				new PointConversionService(),
+				new QualifierMetadataCacheService(qualifierLookupService, Caffeine.newBuilder().build()),
+				new ReportMetrics(meterRegistry),
+				new TimeSeriesDataCacheService(timeSeriesDataService,
+						new ApprovedSegmentStore(Caffeine.newBuilder().build(), "", 0, 1200, new SimpleMeterRegistry()), inFlightRequestRegistry,
+						Caffeine.newBuilder().build(), Runnable::run),
+				timeSeriesDescriptionService, reportBuilderExecutor, fieldVisitDataExecutor);
+	}
+
 	@Test
 	public void buildReportNoNwisRaTest() {
 		given(parameterListService.getParameterMetadata()).willReturn(getParameterMetadata());
@@ -175,9 +216,52 @@ public class ReportBuilderServiceTest {
 		verify(nwisRaService, never()).getGwLevels(any(DvHydrographRequestParameters.class), anyString(), any(GroundWaterParameter.class), any(ZoneOffset.class));
 		verify(nwisRaService, never()).getQwData(any(DvHydrographRequestParameters.class), anyString(), anyString(), any(ZoneOffset.class));
 		verify(nwisRaService, never()).getAqParameterNames();
+
+		assertEquals(1, meterRegistry.get(ReportMetrics.STAGE_TIMER).tags("report", "DV Hydrograph", "stage", ReportMetrics.BUILD).timer().count());
+		assertEquals(1, meterRegistry.get(ReportMetrics.STAGE_TIMER).tags("stage", ReportMetrics.FETCH, "slot", "primary").timer().count());
+		assertEquals(1, meterRegistry.get(ReportMetrics.STAGE_TIMER).tags("stage", ReportMetrics.CONVERSION, "slot", "firstStatDerived").timer().count());
+		assertEquals(1, meterRegistry.get(ReportMetrics.STAGE_TIMER).tags("stage", ReportMetrics.DISCRETE, "slot", "fieldVisitMeasurements").timer().count());
+		assertEquals(1, meterRegistry.get(ReportMetrics.POINTS_SUMMARY).tags("slot", "primary").summary().count());
 		verify(nwisRaService, never()).getAqParameterUnits();
 	}
 
+	@Test
+	public void buildReportConcurrentTest() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		try {
+			ReportBuilderService concurrentService = buildService(executor, executor);
+			CyclicBarrier allSeriesRequested = new CyclicBarrier(9);
+			Set<Thread> fetchThreads = ConcurrentHashMap.newKeySet();
+			given(parameterListService.getParameterMetadata()).willReturn(getParameterMetadata());
+			given(timeSeriesDescriptionService.getTimeSeriesDescriptions(any(DvHydrographRequestParameters.class)))
+					.willReturn(buildTimeSeriesDescriptions());
+			given(timeSeriesDataService.get(anyString(), any(DvHydrographRequestParameters.class), any(ZoneOffset.class), any(boolean.class), any(boolean.class), any(boolean.class), eq(null)))
+					.willAnswer(x -> {
+						fetchThreads.add(Thread.currentThread());
+						allSeriesRequested.await(10, TimeUnit.SECONDS);
+						return getTimeSeriesDataServiceResponse("a".equals(x.getArguments()[0]), ZoneOffset.of("-4"), true);
+					});
+			given(locationDescriptionListService.getByLocationIdentifier(anyString()))
+				.willReturn(new LocationDescription().setIdentifier("0010010000").setName("monitoringLocation"));
+			given(dataGapListBuilderService.buildGapList(anyList(), any(boolean.class), any(ZoneOffset.class)))
+				.willReturn(getGapList());
+			given(qualifierLookupService.getByQualifierList(anyList())).willReturn(metadataMap);
+			given(fieldVisitDescriptionService.getDescriptions(anyString(), any(ZoneOffset.class), any(DvHydrographRequestParameters.class)))
+				.willReturn(getFieldVisitDecriptions());
+			doReturn(getFieldVisitDataServiceResponse(getActivities())).when(fieldVisitDataService).get(anyString());
+
+			// Every series retrieval waits at the barrier until all nine are in flight, so the report can only be
+			// built when they are fetched concurrently.
+			DvHydrographReport actual = concurrentService.buildReport(buildRequestParameters(), "requestingUser", "DV Hydrograph");
+			ObjectCompare.compare(buildExpectedDvHydrographReport(), actual);
+			assertEquals(9, fetchThreads.size());
+			assertFalse(fetchThreads.contains(Thread.currentThread()));
+			verify(fieldVisitDataService, times(2)).get(anyString());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
 	@Test
 	public void buildGwExcludedReportTest() {
 		given(parameterListService.getParameterMetadata()).willReturn(getParameterMetadata());
@@ -399,10 +483,69 @@ public class ReportBuilderServiceTest {
 		verify(nwisRaService).getAqParameterUnits();
 	}
 
+	@Test
+	public void buildReportDuplicateIdentifiersTest() {
+		given(parameterListService.getParameterMetadata()).willReturn(getParameterMetadata());
+		given(timeSeriesDescriptionService.getTimeSeriesDescriptions(any(DvHydrographRequestParameters.class)))
+				.willReturn(buildGwTimeSeriesDescriptions());
+		given(timeSeriesDataService.get(anyString(), any(DvHydrographRequestParameters.class), any(ZoneOffset.class), any(boolean.class), any(boolean.class), any(boolean.class), eq(null)))
+				.willReturn(getTimeSeriesDataServiceResponse(true, ZoneOffset.of("-4"), true),
+						getTimeSeriesDataServiceResponse(false, ZoneOffset.of("-4"), true));
+		given(locationDescriptionListService.getByLocationIdentifier(anyString()))
+			.willReturn(new LocationDescription().setIdentifier("0010010000").setName("monitoringLocation"));
+		given(dataGapListBuilderService.buildGapList(anyList(), any(boolean.class), any(ZoneOffset.class)))
+			.willReturn(getGapList());
+		given(qualifierLookupService.getByQualifierList(anyList())).willReturn(metadataMap);
+
+		DvHydrographRequestParameters requestParameters = new DvHydrographRequestParameters();
+		requestParameters.setPrimaryTimeseriesIdentifier("a");
+		requestParameters.setFirstStatDerivedIdentifier("a");
+		requestParameters.setSecondStatDerivedIdentifier("b");
+		requestParameters.setComparisonTimeseriesIdentifier("b");
+		requestParameters.setStartDate(REPORT_START_DATE);
+		requestParameters.setEndDate(REPORT_END_DATE);
+		requestParameters.setExcludeDiscrete(true);
+
+		DvHydrographReport actual = service.buildReport(requestParameters, "requestingUser", "DV Hydrograph");
+		assertSame(actual.getSecondStatDerived(), actual.getComparisonSeries());
+
+		verify(timeSeriesDataService).get(eq("a"), any(DvHydrographRequestParameters.class), any(ZoneOffset.class), any(boolean.class), any(boolean.class), any(boolean.class), eq(null));
+		verify(timeSeriesDataService).get(eq("b"), any(DvHydrographRequestParameters.class), any(ZoneOffset.class), any(boolean.class), any(boolean.class), any(boolean.class), eq(null));
+		verify(dataGapListBuilderService, times(2)).buildGapList(anyList(), any(boolean.class), any(ZoneOffset.class));
+	}
+
+	@Test
+	public void buildReportSeriesErrorTest() {
+		RuntimeException expected = new RuntimeException("Aquarius is down");
+		given(parameterListService.getParameterMetadata()).willReturn(getParameterMetadata());
+		given(timeSeriesDescriptionService.getTimeSeriesDescriptions(any(DvHydrographRequestParameters.class)))
+				.willReturn(buildGwTimeSeriesDescriptions());
+		given(timeSeriesDataService.get(anyString(), any(DvHydrographRequestParameters.class), any(ZoneOffset.class), any(boolean.class), any(boolean.class), any(boolean.class), eq(null)))
+				.willReturn(getTimeSeriesDataServiceResponse(true, ZoneOffset.of("-4"), true))
+				.willThrow(expected);
+		given(locationDescriptionListService.getByLocationIdentifier(anyString()))
+			.willReturn(new LocationDescription().setIdentifier("0010010000").setName("monitoringLocation"));
+		given(qualifierLookupService.getByQualifierList(anyList())).willReturn(metadataMap);
+
+		DvHydrographRequestParameters requestParameters = new DvHydrographRequestParameters();
+		requestParameters.setPrimaryTimeseriesIdentifier("a");
+		requestParameters.setFirstStatDerivedIdentifier("b");
+		requestParameters.setStartDate(REPORT_START_DATE);
+		requestParameters.setEndDate(REPORT_END_DATE);
+		requestParameters.setExcludeDiscrete(true);
+
+		try {
+			service.buildReport(requestParameters, "requestingUser", "DV Hydrograph");
+			fail("Expected an exception and didn't get it.");
+		} catch (RuntimeException e) {
+			assertSame(expected, e);
+		}
+	}
+
 	@Test
 	public void buildTimeSeriesCorrectedDataNullTest() {
-		assertNull(service.buildTimeSeriesCorrectedData(null, null, null, null));
-		assertNull(service.buildTimeSeriesCorrectedData(new HashMap<String, TimeSeriesDescription>(), null, null, null));
+		assertNull(buildTimeSeriesCorrectedData(null, null, null, null));
+		assertNull(buildTimeSeriesCorrectedData(new HashMap<String, TimeSeriesDescription>(), null, null, null));
 	}
 
 	@Test
@@ -411,7 +554,7 @@ public class ReportBuilderServiceTest {
 				any(boolean.class), any(boolean.class), any(boolean.class), eq(null))).willReturn(null);
 		Map<String, TimeSeriesDescription> descriptions = new HashMap<>();
 		descriptions.put("abc", new TimeSeriesDescription());
-		assertNull(service.buildTimeSeriesCorrectedData(descriptions, "abc", null, null));
+		assertNull(buildTimeSeriesCorrectedData(descriptions, "abc", null, null));
 		verify(timeSeriesDataService).get(anyString(), eq(null), any(ZoneOffset.class),
 		any(boolean.class), any(boolean.class), any(boolean.class), eq(null));
 	}
@@ -429,21 +572,16 @@ public class ReportBuilderServiceTest {
 
 		Map<String, TimeSeriesDescription> descriptions = new HashMap<>();
 		descriptions.put("abc", new TimeSeriesDescription());
-		TimeSeriesCorrectedData actual = service.buildTimeSeriesCorrectedData(descriptions, "abc", null,
-				getParameterMetadata());
+		TimeSeriesCorrectedData actual = buildTimeSeriesCorrectedData(descriptions, "abc", null, getParameterMetadata());
 		ObjectCompare.compare(getTimeSeriesCorrectedData(endOfPeriod, zoneOffset, true), actual);
 	}
 
 	@Test
 	public void createDvHydroMetadataFirstTest() {
-		given(locationDescriptionListService.getByLocationIdentifier(anyString()))
-			.willReturn(new LocationDescription().setIdentifier("0010010000").setName("monitoringLocation"));
-		given(qualifierLookupService.getByQualifierList(anyList())).willReturn(metadataMap);
-		TimeSeriesDataServiceResponse primarySeriesDataResponse = new TimeSeriesDataServiceResponse()
-				.setQualifiers(new ArrayList<Qualifier>());
+		LocationDescription locationDescription = new LocationDescription().setIdentifier("0010010000").setName("monitoringLocation");
 		GroundWaterParameter gwParam = GroundWaterParameter.FWat_LVL_BLSD;
 		DvHydrographReportMetadata actual = service.createDvHydroMetadata(buildRequestParameters(),
-				buildTimeSeriesDescriptions(), buildPrimarySeriesDescription(), primarySeriesDataResponse, "testUser",
+				buildTimeSeriesDescriptions(), buildPrimarySeriesDescription(), locationDescription, metadataMap, "testUser",
 				gwParam, "DV Hydrograph");
 
 		assertThat(actual, samePropertyValuesAs(buildFirstExpectedDvHydroMetadata()));
@@ -451,14 +589,10 @@ public class ReportBuilderServiceTest {
 
 	@Test
 	public void createDvHydroMetadataSecondTest() {
-		given(locationDescriptionListService.getByLocationIdentifier(anyString()))
-			.willReturn(new LocationDescription().setIdentifier("0010010000").setName("monitoringLocation"));
-		given(qualifierLookupService.getByQualifierList(anyList())).willReturn(metadataMap);
-		TimeSeriesDataServiceResponse primarySeriesDataResponse = new TimeSeriesDataServiceResponse()
-				.setQualifiers(new ArrayList<Qualifier>());
+		LocationDescription locationDescription = new LocationDescription().setIdentifier("0010010000").setName("monitoringLocation");
 		GroundWaterParameter gwParam = GroundWaterParameter.AQ209;
 		DvHydrographReportMetadata actual = service.createDvHydroMetadata(buildRequestParameters(),
-				buildTimeSeriesDescriptions(), buildPrimarySeriesDescription(), primarySeriesDataResponse, "testUser",
+				buildTimeSeriesDescriptions(), buildPrimarySeriesDescription(), locationDescription, metadataMap, "testUser",
 				gwParam, "DV Hydrograph");
 
 		DvHydrographReportMetadata expected = buildFirstExpectedDvHydroMetadata();
@@ -468,11 +602,7 @@ public class ReportBuilderServiceTest {
 
 	@Test
 	public void createDvHydroMetadataThirdTest() {
-		given(locationDescriptionListService.getByLocationIdentifier(anyString()))
-			.willReturn(new LocationDescription().setIdentifier("0010010000").setName("monitoringLocation"));
-		given(qualifierLookupService.getByQualifierList(anyList())).willReturn(metadataMap);
-		TimeSeriesDataServiceResponse primarySeriesDataResponse = new TimeSeriesDataServiceResponse()
-				.setQualifiers(new ArrayList<Qualifier>());
+		LocationDescription locationDescription = new LocationDescription().setIdentifier("0010010000").setName("monitoringLocation");
 		GroundWaterParameter gwParam = null;
 		DvHydrographRequestParameters requestParmeters = buildRequestParameters();
 		requestParmeters.setExcludeDiscrete(true);
@@ -480,8 +610,7 @@ public class ReportBuilderServiceTest {
 		requestParmeters.setExcludeZeroNegative(true);
 		DvHydrographReportMetadata actual = service.createDvHydroMetadata(requestParmeters,
 				buildTimeSeriesDescriptionsII(), buildPrimarySeriesDescription().setUtcOffset(Double.valueOf(4)),
-						primarySeriesDataResponse, "testUser",
-				gwParam, "DV Hydrograph");
+				locationDescription, metadataMap, "testUser", gwParam, "DV Hydrograph");
 
 		assertThat(actual, samePropertyValuesAs(buildThirdExpectedDvHydroMetadata()));
 	}
@@ -492,7 +621,8 @@ public class ReportBuilderServiceTest {
 		TimeSeriesDataServiceResponse tsd = new TimeSeriesDataServiceResponse();
 		TimeSeriesCorrectedData expected = new TimeSeriesCorrectedData();
 		expected.setVolumetricFlow(false);
-		TimeSeriesCorrectedData actual = service.createTimeSeriesCorrectedData(tsd, true, false, ZoneOffset.UTC);
+		TimeSeriesCorrectedData actual = service.createTimeSeriesCorrectedData(tsd, true, false, ZoneOffset.UTC,
+				"DV Hydrograph", ReportMetrics.NO_SLOT);
 		ObjectCompare.compare(expected, actual);
 	}
 
@@ -506,7 +636,8 @@ public class ReportBuilderServiceTest {
 		TimeSeriesDataServiceResponse tsd = getTimeSeriesDataServiceResponse(endOfPeriod, zoneOffset, true);
 		TimeSeriesCorrectedData expected = getTimeSeriesCorrectedData(endOfPeriod, zoneOffset, true);
 
-		TimeSeriesCorrectedData actual = service.createTimeSeriesCorrectedData(tsd, false, true, ZoneOffset.UTC);
+		TimeSeriesCorrectedData actual = service.createTimeSeriesCorrectedData(tsd, false, true, ZoneOffset.UTC,
+				"DV Hydrograph", ReportMetrics.NO_SLOT);
 		ObjectCompare.compare(expected, actual);
 	}
 
@@ -520,7 +651,8 @@ public class ReportBuilderServiceTest {
 		TimeSeriesDataServiceResponse tsd = getTimeSeriesDataServiceResponse(endOfPeriod, zoneOffset, true);
 		TimeSeriesCorrectedData expected = getTimeSeriesCorrectedData(endOfPeriod, zoneOffset, true);
 
-		TimeSeriesCorrectedData actual = service.createTimeSeriesCorrectedData(tsd, true, true, ZoneOffset.ofHours(-6));
+		TimeSeriesCorrectedData actual = service.createTimeSeriesCorrectedData(tsd, true, true, ZoneOffset.ofHours(-6),
+				"DV Hydrograph", ReportMetrics.NO_SLOT);
 		ObjectCompare.compare(expected, actual);
 	}
 
@@ -567,6 +699,44 @@ public class ReportBuilderServiceTest {
 				samePropertyValuesAs(getInstantRange3()), samePropertyValuesAs(getInstantRange4()), samePropertyValuesAs(getInstantRange5())));
 	}
 
+	@Test
+	public void getRawDataETagTest() {
+		DvHydrographRequestParameters parameters = buildRequestParameters();
+		Map<String, TimeSeriesDescription> descriptions = new HashMap<>();
+		descriptions.put("a", new TimeSeriesDescription().setUniqueId("a").setLastModified(Instant.parse("2018-03-01T00:00:00Z")));
+		descriptions.put("b", new TimeSeriesDescription().setUniqueId("b").setLastModified(Instant.parse("2018-03-02T00:00:00Z")));
+		String eTag = service.getRawDataETag(parameters, descriptions);
+
+		assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+		assertEquals(eTag, service.getRawDataETag(parameters, new TreeMap<>(descriptions)));
+		DvHydrographRequestParameters otherParameters = buildRequestParameters();
+		otherParameters.setComparisonTimeseriesIdentifier("j");
+		assertNotEquals(eTag, service.getRawDataETag(otherParameters, descriptions));
+
+		descriptions.put("b", new TimeSeriesDescription().setUniqueId("b").setLastModified(Instant.parse("2018-03-03T00:00:00Z")));
+		assertNotEquals(eTag, service.getRawDataETag(parameters, descriptions));
+
+		descriptions.put("b", new TimeSeriesDescription().setUniqueId("b"));
+		assertNull(service.getRawDataETag(parameters, descriptions));
+	}
+
+	@Test
+	public void getReportETagTest() {
+		DvHydrographRequestParameters parameters = buildRequestParameters();
+		Map<String, TimeSeriesDescription> descriptions = new HashMap<>();
+		descriptions.put("a", new TimeSeriesDescription().setUniqueId("a").setLastModified(Instant.parse("2018-03-01T00:00:00Z")));
+		String eTag = service.getReportETag(parameters, descriptions, "dvhydrograph", "user");
+
+		assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+		assertEquals(eTag, service.getReportETag(parameters, descriptions, "dvhydrograph", "user"));
+		assertNotEquals(eTag, service.getRawDataETag(parameters, descriptions));
+		assertNotEquals(eTag, service.getReportETag(parameters, descriptions, "fiveyeargwsum", "user"));
+		assertNotEquals(eTag, service.getReportETag(parameters, descriptions, "dvhydrograph", "other"));
+
+		descriptions.put("a", new TimeSeriesDescription().setUniqueId("a"));
+		assertNull(service.getReportETag(parameters, descriptions, "dvhydrograph", "user"));
+	}
+
 	@Test
 	public void getWaterdataUrlNullTest() {
 		assertNull(service.getWaterdataUrl(null));
@@ -585,6 +755,14 @@ public class ReportBuilderServiceTest {
 
 	// --------------------------------------------------------------------------------------------------
 
+	protected TimeSeriesCorrectedData buildTimeSeriesCorrectedData(Map<String, TimeSeriesDescription> timeSeriesDescriptions,
+			String timeSeriesIdentifier, DvHydrographRequestParameters requestParameters,
+			Map<String, ParameterMetadata> parameterMetadata) {
+		return Futures.join(service.buildTimeSeriesCorrectedDataAsync(new TimeSeriesFetchPlan(), timeSeriesDescriptions,
+				timeSeriesIdentifier, requestParameters, CompletableFuture.completedFuture(parameterMetadata), "DV Hydrograph",
+				ReportMetrics.NO_SLOT));
+	}
+
 	protected DvHydrographRequestParameters buildRequestParameters() {
 		DvHydrographRequestParameters requestParameters = new DvHydrographRequestParameters();
 		requestParameters.setPrimaryTimeseriesIdentifier("a");
@@ -0,0 +1,92 @@
+package gov.usgs.aqcu.builder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import gov.usgs.aqcu.model.ReportJob;
+
+public class ReportJobServiceTest {
+
+	private Cache<String, ReportJob> store;
+	private ReportJobService service;
+
+	@Before
+	public void setup() {
+		store = Caffeine.newBuilder().build();
+		service = new ReportJobService(store, Runnable::run);
+	}
+
+	@Test
+	public void submitTest() {
+		ReportJob job = service.submit("dvhydro", "user", "text/html", () -> "xxx".getBytes());
+		assertEquals(ReportJob.Status.COMPLETE, job.getStatus());
+		assertArrayEquals("xxx".getBytes(), job.getResult());
+		assertEquals("text/html", job.getContentType());
+		assertTrue(job.getCompletion().isDone());
+		assertSame(job, service.get(job.getId(), "user"));
+	}
+
+	@Test
+	public void submitFailedTest() {
+		ReportJob job = service.submit("dvhydro", "user", "text/html", () -> {
+			throw new RuntimeException("JavaToR unavailable");
+		});
+		assertEquals(ReportJob.Status.FAILED, job.getStatus());
+		assertEquals("Report could not be built, see the service log for job " + job.getId(), job.getError());
+		assertNull(job.getResult());
+		assertTrue(job.getCompletion().isDone());
+	}
+
+	@Test
+	public void submitFailedWithReasonTest() {
+		ReportJob job = service.submit("dvhydro", "user", "text/html", () -> {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No time series description found for a");
+		});
+		assertEquals(ReportJob.Status.FAILED, job.getStatus());
+		assertEquals("No time series description found for a", job.getError());
+	}
+
+	@Test
+	public void submitFailedWithErrorTest() {
+		ReportJob job = service.submit("dvhydro", "user", "text/html", () -> {
+			throw new StackOverflowError();
+		});
+		assertEquals(ReportJob.Status.FAILED, job.getStatus());
+		assertTrue(job.getCompletion().isDone());
+	}
+
+	@Test
+	public void submitQueueFullTest() {
+		service = new ReportJobService(store, x -> {
+			throw new RejectedExecutionException();
+		});
+		try {
+			service.submit("dvhydro", "user", "text/html", () -> "xxx".getBytes());
+			fail("Expected ResponseStatusException");
+		} catch (ResponseStatusException e) {
+			assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatus());
+		}
+		assertEquals(0, store.estimatedSize());
+	}
+
+	@Test
+	public void getOtherUserTest() {
+		ReportJob job = service.submit("dvhydro", "user", "text/html", () -> "xxx".getBytes());
+		assertNull(service.get(job.getId(), "other"));
+		assertNull(service.get("missing", "user"));
+	}
+}
@@ -0,0 +1,79 @@
+package gov.usgs.aqcu.builder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ReportMetricsTest {
+
+	private MeterRegistry meterRegistry;
+	private ReportMetrics reportMetrics;
+
+	@Before
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		reportMetrics = new ReportMetrics(meterRegistry);
+	}
+
+	@Test
+	public void recordTest() {
+		assertEquals("abc", reportMetrics.record("DV Hydrograph", ReportMetrics.FETCH, "primary", () -> "abc"));
+		try {
+			reportMetrics.record("DV Hydrograph", ReportMetrics.FETCH, "primary", () -> {
+				throw new RuntimeException("Aquarius unavailable");
+			});
+			fail("Expected RuntimeException");
+		} catch (RuntimeException e) {
+			assertEquals("Aquarius unavailable", e.getMessage());
+		}
+		reportMetrics.record(null, ReportMetrics.RENDER, ReportMetrics.NO_SLOT, () -> null);
+
+		assertEquals(2, meterRegistry.get(ReportMetrics.STAGE_TIMER)
+				.tags("report", "DV Hydrograph", "stage", ReportMetrics.FETCH, "slot", "primary").timer().count());
+		assertEquals(1, meterRegistry.get(ReportMetrics.STAGE_TIMER)
+				.tags("report", ReportMetrics.UNKNOWN_REPORT, "stage", ReportMetrics.RENDER, "slot", ReportMetrics.NO_SLOT).timer().count());
+	}
+
+	@Test
+	public void recordWriteTest() throws Exception {
+		assertEquals(Long.valueOf(3), reportMetrics.recordWrite("DV Hydrograph", ReportMetrics.SERIALIZATION,
+				ReportMetrics.NO_SLOT, () -> 3L));
+		try {
+			reportMetrics.recordWrite("DV Hydrograph", ReportMetrics.SERIALIZATION, ReportMetrics.NO_SLOT, () -> {
+				throw new IOException("Client disconnected");
+			});
+			fail("Expected IOException");
+		} catch (IOException e) {
+			assertEquals("Client disconnected", e.getMessage());
+		}
+
+		assertEquals(2, meterRegistry.get(ReportMetrics.STAGE_TIMER)
+				.tags("report", "DV Hydrograph", "stage", ReportMetrics.SERIALIZATION, "slot", ReportMetrics.NO_SLOT).timer().count());
+	}
+
+	@Test
+	public void recordSummariesTest() {
+		reportMetrics.recordPoints("DV Hydrograph", "primary", 365);
+		reportMetrics.recordPoints("DV Hydrograph", "primary", 35040);
+		reportMetrics.recordPayloadSize("DV Hydrograph", ReportMetrics.HTML_PAYLOAD, 1024);
+
+		assertEquals(2, meterRegistry.get(ReportMetrics.POINTS_SUMMARY).tags("slot", "primary").summary().count());
+		assertEquals(35405, meterRegistry.get(ReportMetrics.POINTS_SUMMARY).tags("slot", "primary").summary().totalAmount(), 0);
+		assertEquals(1024, meterRegistry.get(ReportMetrics.PAYLOAD_SUMMARY).tags("payload", ReportMetrics.HTML_PAYLOAD).summary().totalAmount(), 0);
+	}
+
+	@Test
+	public void utf8LengthTest() {
+		String value = "{\"a\":\"ft\u00b3/s \u2013 \ud83c\udf0a\"}";
+		assertEquals(value.getBytes(StandardCharsets.UTF_8).length, ReportMetrics.utf8Length(value));
+		assertEquals(0, ReportMetrics.utf8Length(""));
+	}
+}
@@ -0,0 +1,132 @@
+package gov.usgs.aqcu.builder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import gov.usgs.aqcu.client.JavaToRClient;
+import gov.usgs.aqcu.model.RenderedReport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(SpringRunner.class)
+public class ReportRenderServiceTest {
+
+	@MockBean
+	private JavaToRClient javaToRClient;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private MeterRegistry meterRegistry;
+	private ReportMetrics reportMetrics;
+	private ReportRenderService service;
+
+	@Before
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		reportMetrics = new ReportMetrics(meterRegistry);
+		service = new ReportRenderService(javaToRClient, reportMetrics, Caffeine.newBuilder().build(), "", 0);
+		given(javaToRClient.render(anyString(), anyString(), anyString())).willReturn("xxx".getBytes(), "yyy".getBytes());
+	}
+
+	@Test
+	public void renderCachedTest() {
+		RenderedReport first = service.render("DV Hydrograph", "user", "dvhydrograph", "{}", null);
+		RenderedReport second = service.render("DV Hydrograph", "user", "dvhydrograph", "{}", null);
+		assertArrayEquals("xxx".getBytes(), first.getHtml());
+		assertArrayEquals("xxx".getBytes(), second.getHtml());
+		assertEquals(first.getETag(), second.getETag());
+		verify(javaToRClient, times(1)).render("user", "dvhydrograph", "{}");
+		assertEquals(1, meterRegistry.get(ReportMetrics.STAGE_TIMER).tags("report", "DV Hydrograph", "stage", ReportMetrics.RENDER).timer().count());
+	}
+
+	@Test
+	public void renderDifferentReportTest() {
+		RenderedReport first = service.render("DV Hydrograph", "user", "dvhydrograph", "{}", null);
+		RenderedReport second = service.render("DV Hydrograph", "user", "fiveyeargwsum", "{}", null);
+		RenderedReport third = service.render("DV Hydrograph", "user", "dvhydrograph", "{\"a\":1}", null);
+		assertNotEquals(first.getETag(), second.getETag());
+		assertNotEquals(first.getETag(), third.getETag());
+		verify(javaToRClient, times(3)).render(anyString(), anyString(), anyString());
+	}
+
+	@Test
+	public void renderDifferentUserTest() throws Exception {
+		File directory = folder.newFolder("rendered");
+		service = new ReportRenderService(javaToRClient, reportMetrics, Caffeine.newBuilder().build(), directory.getPath(), 1000);
+		RenderedReport first = service.render("DV Hydrograph", "user", "dvhydrograph", "{}", null);
+		RenderedReport second = service.render("DV Hydrograph", "other", "dvhydrograph", "{}", null);
+		assertArrayEquals("xxx".getBytes(), first.getHtml());
+		assertArrayEquals("yyy".getBytes(), second.getHtml());
+		assertNotEquals(first.getETag(), second.getETag());
+		assertFalse(service.render("DV Hydrograph", "other", "dvhydrograph", "{}", first.getETag()).isNotModified());
+		verify(javaToRClient).render("user", "dvhydrograph", "{}");
+		verify(javaToRClient).render("other", "dvhydrograph", "{}");
+
+		// Neither tier hands one user's rendering to the other.
+		service = new ReportRenderService(javaToRClient, reportMetrics, Caffeine.newBuilder().build(), directory.getPath(), 1000);
+		assertArrayEquals("xxx".getBytes(), service.render("DV Hydrograph", "user", "dvhydrograph", "{}", null).getHtml());
+		assertArrayEquals("yyy".getBytes(), service.render("DV Hydrograph", "other", "dvhydrograph", "{}", null).getHtml());
+	}
+
+	@Test
+	public void renderNotModifiedTest() {
+		String eTag = service.getKey("user", "dvhydrograph", "{}");
+		RenderedReport report = service.render("DV Hydrograph", "user", "dvhydrograph", "{}", "W/\"other\", \"" + eTag + "\"");
+		assertTrue(report.isNotModified());
+		assertNull(report.getHtml());
+		assertEquals("\"" + eTag + "\"", report.getETag());
+		verify(javaToRClient, never()).render(anyString(), anyString(), anyString());
+
+		assertFalse(service.render("DV Hydrograph", "user", "dvhydrograph", "{}", "\"other\"").isNotModified());
+	}
+
+	@Test
+	public void renderDiskTest() throws Exception {
+		File directory = folder.newFolder("rendered");
+		service = new ReportRenderService(javaToRClient, reportMetrics, Caffeine.newBuilder().build(), directory.getPath(), 1000);
+		assertArrayEquals("xxx".getBytes(), service.render("DV Hydrograph", "user", "dvhydrograph", "{}", null).getHtml());
+		assertEquals(1, directory.listFiles().length);
+
+		// A new instance, as after a restart, reads the report back from disk.
+		service = new ReportRenderService(javaToRClient, reportMetrics, Caffeine.newBuilder().build(), directory.getPath(), 1000);
+		assertArrayEquals("xxx".getBytes(), service.render("DV Hydrograph", "user", "dvhydrograph", "{}", null).getHtml());
+		verify(javaToRClient, times(1)).render(anyString(), anyString(), anyString());
+	}
+
+	@Test
+	public void trimDiskTest() throws Exception {
+		File directory = folder.newFolder("rendered");
+		service = new ReportRenderService(javaToRClient, reportMetrics, Caffeine.newBuilder().build(), directory.getPath(), 4);
+		service.render("DV Hydrograph", "user", "dvhydrograph", "{}", null);
+		File first = directory.listFiles()[0];
+		Files.setLastModifiedTime(first.toPath(), FileTime.fromMillis(0));
+		service.render("DV Hydrograph", "user", "dvhydrograph", "{\"a\":1}", null);
+		File[] files = directory.listFiles();
+		assertEquals(1, files.length);
+		assertArrayEquals("yyy".getBytes(), Files.readAllBytes(files[0].toPath()));
+	}
+}
@@ -0,0 +1,73 @@
+package gov.usgs.aqcu.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import gov.usgs.aqcu.model.ReportJob;
+
+public class ReportJobStoreConfigTest {
+
+	private AtomicLong ticker;
+	private Cache<String, ReportJob> store;
+
+	@Before
+	public void setup() {
+		ticker = new AtomicLong();
+		store = Caffeine.newBuilder()
+				.maximumWeight(10)
+				.weigher((String id, ReportJob job) -> job.getWeight())
+				.expireAfter(new ReportJobStoreConfig.CompletionExpiry(TimeUnit.MINUTES.toNanos(30)))
+				.ticker(ticker::get)
+				.executor(Runnable::run)
+				.build();
+	}
+
+	@Test
+	public void unfinishedJobDoesNotExpireTest() {
+		ReportJob job = new ReportJob("a", "dvhydro", "user");
+		store.put(job.getId(), job);
+		ticker.addAndGet(TimeUnit.DAYS.toNanos(1));
+		assertSame(job, store.getIfPresent("a"));
+
+		job.start();
+		store.asMap().replace(job.getId(), job);
+		ticker.addAndGet(TimeUnit.DAYS.toNanos(1));
+		assertSame(job, store.getIfPresent("a"));
+	}
+
+	@Test
+	public void finishedJobExpiresAfterCompletionTest() {
+		ReportJob job = new ReportJob("a", "dvhydro", "user");
+		store.put(job.getId(), job);
+		ticker.addAndGet(TimeUnit.DAYS.toNanos(1));
+		job.fail("Report could not be built");
+		store.asMap().replace(job.getId(), job);
+
+		ticker.addAndGet(TimeUnit.MINUTES.toNanos(29));
+		assertSame(job, store.getIfPresent("a"));
+		ticker.addAndGet(TimeUnit.MINUTES.toNanos(2));
+		assertNull(store.getIfPresent("a"));
+	}
+
+	@Test
+	public void unfinishedJobIsNotEvictedTest() {
+		ReportJob queued = new ReportJob("a", "dvhydro", "user");
+		store.put(queued.getId(), queued);
+		ReportJob complete = new ReportJob("b", "dvhydro", "user");
+		complete.complete(new byte[20], "text/html");
+		store.put(complete.getId(), complete);
+		store.cleanUp();
+		assertSame(queued, store.getIfPresent("a"));
+		assertEquals(0, queued.getWeight());
+	}
+}
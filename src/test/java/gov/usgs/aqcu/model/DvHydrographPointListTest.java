@@ -0,0 +1,147 @@
+package gov.usgs.aqcu.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import gov.usgs.aqcu.util.AqcuGsonBuilderFactory;
+
+public class DvHydrographPointListTest {
+	private Gson gson = AqcuGsonBuilderFactory.getConfiguredGsonBuilder().serializeNulls().create();
+
+	@Test
+	public void dailyJsonTest() {
+		List<DvHydrographPoint> expected = new ArrayList<>();
+		DvHydrographPointList actual = new DvHydrographPointList(true, 1);
+		addPoint(expected, actual, LocalDate.parse("2017-10-01"), new BigDecimal("12.30"));
+		addPoint(expected, actual, LocalDate.parse("2017-10-02"), new BigDecimal("-0.001"));
+		addPoint(expected, actual, LocalDate.parse("2017-10-03"), null);
+		addPoint(expected, actual, LocalDate.parse("2017-10-04"), new BigDecimal("1E+3"));
+		addPoint(expected, actual, LocalDate.parse("2017-10-05"), new BigDecimal("123456789012345678901234567890.5"));
+
+		assertEquals(5, actual.size());
+		assertEquals(gson.toJson(expected), gson.toJson(actual));
+		assertEquals(gson.toJson(correctedData(expected)), gson.toJson(correctedData(actual)));
+	}
+
+	@Test
+	public void instantJsonTest() {
+		List<DvHydrographPoint> expected = new ArrayList<>();
+		DvHydrographPointList actual = new DvHydrographPointList(false);
+		addPoint(expected, actual, Instant.parse("1889-10-01T05:00:00Z"), new BigDecimal("1"));
+		addPoint(expected, actual, Instant.parse("2017-10-01T05:15:00.1234567Z"), new BigDecimal("0.00"));
+		for (int i = 0; i < 100; i++) {
+			addPoint(expected, actual, Instant.parse("2018-10-01T05:00:00Z").plusSeconds(900 * i), BigDecimal.valueOf(i, 2));
+		}
+
+		assertEquals(102, actual.size());
+		assertEquals(gson.toJson(expected), gson.toJson(actual));
+		assertEquals(gson.toJson(correctedData(expected)), gson.toJson(correctedData(actual)));
+		assertEquals(Instant.parse("2017-10-01T05:15:00.1234567Z"), actual.get(1).getTime());
+	}
+
+	@Test
+	public void readTest() {
+		DvHydrographPointList points = new DvHydrographPointList(true);
+		points.add(LocalDate.parse("2017-10-01"), new BigDecimal("12.30"));
+		points.add(LocalDate.parse("2017-10-02"), null);
+
+		TimeSeriesCorrectedData actual = gson.fromJson(gson.toJson(correctedData(points)), TimeSeriesCorrectedData.class);
+		assertTrue(((DvHydrographPointList) actual.getPoints()).isDaily());
+		assertEquals(gson.toJson(points), gson.toJson(actual.getPoints()));
+	}
+
+	@Test
+	public void readInstantTest() {
+		DvHydrographPointList points = new DvHydrographPointList(false);
+		points.add(Instant.parse("2017-10-01T05:00:00Z"), new BigDecimal("12.30"));
+		points.add(Instant.parse("2017-10-01T05:15:00Z"), null);
+
+		TimeSeriesCorrectedData actual = gson.fromJson(gson.toJson(correctedData(points)), TimeSeriesCorrectedData.class);
+		assertFalse(((DvHydrographPointList) actual.getPoints()).isDaily());
+		assertEquals(gson.toJson(points), gson.toJson(actual.getPoints()));
+	}
+
+	@Test(expected = DateTimeParseException.class)
+	public void readMixedTimesTest() {
+		gson.fromJson("{\"points\":[{\"time\":\"2017-10-01\",\"value\":1},{\"time\":\"2017-10-02T05:00:00Z\",\"value\":2}]}",
+				TimeSeriesCorrectedData.class);
+	}
+
+	@Test
+	public void readNullTimeTest() {
+		List<DvHydrographPoint> points = new ArrayList<>();
+		points.add(new DvHydrographPoint().setTime(LocalDate.parse("2017-10-01")).setValue(BigDecimal.ONE));
+		points.add(new DvHydrographPoint().setValue(BigDecimal.TEN));
+		String json = gson.toJson(correctedData(points));
+		assertTrue(json, json.contains("\"time\":null"));
+		try {
+			gson.fromJson(json, TimeSeriesCorrectedData.class);
+			fail("Expected JsonParseException");
+		} catch (JsonParseException e) {
+			assertEquals("Point 1 has no time", e.getMessage());
+		}
+		try {
+			gson.fromJson("{\"points\":[{\"value\":1}]}", TimeSeriesCorrectedData.class);
+			fail("Expected JsonParseException");
+		} catch (JsonParseException e) {
+			assertEquals("Point 0 has no time", e.getMessage());
+		}
+	}
+
+	@Test
+	public void readListTest() {
+		List<DvHydrographPoint> points = new ArrayList<>();
+		points.add(new DvHydrographPoint().setTime(Instant.parse("2017-10-01T05:00:00Z")).setValue(BigDecimal.ONE));
+		points.add(new DvHydrographPoint().setTime(Instant.parse("2017-10-01T05:15:00Z")).setValue(null));
+
+		TimeSeriesCorrectedData actual = gson.fromJson(gson.toJson(correctedData(points)), TimeSeriesCorrectedData.class);
+		assertEquals(gson.toJson(points), gson.toJson(actual.getPoints()));
+	}
+
+	@Test
+	public void setTest() {
+		DvHydrographPointList points = new DvHydrographPointList(true);
+		points.add(LocalDate.parse("2017-10-01"), new BigDecimal("123456789012345678901234567890.5"));
+		points.add(LocalDate.parse("2017-10-02"), BigDecimal.ONE);
+
+		DvHydrographPoint previous = points.set(0, new DvHydrographPoint().setTime(LocalDate.parse("2017-09-30")).setValue(new BigDecimal("2.5")));
+		assertEquals(new BigDecimal("123456789012345678901234567890.5"), previous.getValue());
+		assertEquals(LocalDate.parse("2017-09-30"), points.getTime(0));
+		assertEquals(new BigDecimal("2.5"), points.getValue(0));
+		points.set(1, new DvHydrographPoint().setTime(LocalDate.parse("2017-10-02")).setValue(null));
+		assertNull(points.getValue(1));
+		assertEquals(2, points.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void mismatchedTimeTest() {
+		new DvHydrographPointList(true).add(Instant.parse("2017-10-01T05:00:00Z"), BigDecimal.ONE);
+	}
+
+	private TimeSeriesCorrectedData correctedData(List<DvHydrographPoint> points) {
+		TimeSeriesCorrectedData correctedData = new TimeSeriesCorrectedData();
+		correctedData.setPoints(points);
+		return correctedData;
+	}
+
+	private void addPoint(List<DvHydrographPoint> expected, DvHydrographPointList actual,
+			java.time.temporal.Temporal time, BigDecimal value) {
+		expected.add(new DvHydrographPoint().setTime(time).setValue(value));
+		actual.add(new DvHydrographPoint().setTime(time).setValue(value));
+	}
+}
@@ -0,0 +1,48 @@
+package gov.usgs.aqcu.parameter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+public class DvHydrographRequestParametersTest {
+
+	@Test
+	public void getRequestKeyTest() {
+		DvHydrographRequestParameters dates = new DvHydrographRequestParameters();
+		dates.setPrimaryTimeseriesIdentifier("a");
+		dates.setFirstStatDerivedIdentifier("b");
+		dates.setStartDate(LocalDate.of(2017, 10, 1));
+		dates.setEndDate(LocalDate.of(2018, 9, 30));
+
+		DvHydrographRequestParameters waterYear = new DvHydrographRequestParameters();
+		waterYear.setFirstStatDerivedIdentifier("b");
+		waterYear.setComparisonTimeseriesIdentifier("");
+		waterYear.setWaterYear(2018);
+		waterYear.setPrimaryTimeseriesIdentifier("a");
+
+		assertEquals(dates.getRequestKey(), waterYear.getRequestKey());
+		assertEquals("DvHydrographRequestParameters{excludeDiscrete=false, excludeMinMax=false, excludeZeroNegative=false, "
+				+ "firstStatDerivedIdentifier=b, period=2017-10-01/2018-09-30, primaryTimeseriesIdentifier=a}", dates.getRequestKey());
+	}
+
+	@Test
+	public void getRequestKeyDiffersTest() {
+		DvHydrographRequestParameters parameters = new DvHydrographRequestParameters();
+		parameters.setPrimaryTimeseriesIdentifier("a");
+		parameters.setFirstStatDerivedIdentifier("b");
+		parameters.setWaterYear(2018);
+		String key = parameters.getRequestKey();
+
+		parameters.setExcludeMinMax(true);
+		assertNotEquals(key, parameters.getRequestKey());
+
+		FiveYearRequestParameters fiveYear = new FiveYearRequestParameters();
+		fiveYear.setPrimaryTimeseriesIdentifier("a");
+		fiveYear.setFirstStatDerivedIdentifier("b");
+		fiveYear.setWaterYear(2018);
+		assertNotEquals(key, fiveYear.getRequestKey());
+	}
+}
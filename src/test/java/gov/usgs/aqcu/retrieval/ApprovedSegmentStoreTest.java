@@ -0,0 +1,150 @@
+package gov.usgs.aqcu.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Approval;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import gov.usgs.aqcu.parameter.DvHydrographRequestParameters;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class ApprovedSegmentStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Cache<TimeSeriesDataKey, TimeSeriesDataServiceResponse> cache;
+	private MeterRegistry meterRegistry;
+	private ApprovedSegmentStore store;
+	private TimeSeriesDataKey key;
+	private Instant start = Instant.parse("2017-10-01T05:00:00Z");
+	private Instant end = Instant.parse("2018-10-01T05:00:00Z");
+
+	@Before
+	public void setup() {
+		cache = Caffeine.newBuilder().build();
+		meterRegistry = new SimpleMeterRegistry();
+		store = new ApprovedSegmentStore(cache, folder.getRoot().toString(), 1048576, 1200, meterRegistry);
+		DvHydrographRequestParameters parameters = new DvHydrographRequestParameters();
+		parameters.setStartDate(LocalDate.parse("2017-10-01"));
+		parameters.setEndDate(LocalDate.parse("2018-09-30"));
+		key = TimeSeriesDataKey.of("a", parameters, ZoneOffset.of("-5"), true);
+	}
+
+	@Test
+	public void putIfApprovedTest() {
+		TimeSeriesDataServiceResponse response = response(approval(1200, start, end));
+		assertTrue(store.putIfApproved(key, response));
+		assertSame(response, store.get(key));
+		assertEquals(1, meterRegistry.get("approved.segment.store.segments").gauge().value(), 0);
+		store.close();
+
+		Cache<TimeSeriesDataKey, TimeSeriesDataServiceResponse> restartedCache = Caffeine.newBuilder().build();
+		ApprovedSegmentStore restarted = new ApprovedSegmentStore(restartedCache, folder.getRoot().toString(), 1048576, 1200,
+				new SimpleMeterRegistry());
+		TimeSeriesDataServiceResponse read = restarted.get(key);
+		assertNotNull(read);
+		assertEquals(0, restartedCache.estimatedSize());
+		assertEquals("a", read.getUniqueId());
+		assertEquals(start, read.getPoints().get(0).getTimestamp().getDateTimeOffset());
+		assertEquals(Double.valueOf(1.5D), read.getPoints().get(0).getValue().getNumeric());
+		assertEquals(end, read.getApprovals().get(0).getEndTime());
+	}
+
+	@Test
+	public void decodePerRequestTest() {
+		assertTrue(store.putIfApproved(key, response(approval(1200, start, end))));
+		store.close();
+
+		MeterRegistry restartedRegistry = new SimpleMeterRegistry();
+		ApprovedSegmentStore restarted = new ApprovedSegmentStore(Caffeine.newBuilder().build(), folder.getRoot().toString(),
+				1048576, 1200, restartedRegistry);
+		TimeSeriesDataServiceResponse first = restarted.get(key);
+		TimeSeriesDataServiceResponse second = restarted.get(key);
+		// Every read of a mapped segment decodes its points into a new list.
+		assertNotSame(first.getPoints(), second.getPoints());
+		assertNotSame(first.getPoints().get(0), second.getPoints().get(0));
+		assertEquals(2, restartedRegistry.get("approved.segment.store.decode").timer().count());
+		assertEquals(2, restartedRegistry.get("approved.segment.store.decoded.points").summary().count());
+		assertEquals(2 * first.getPoints().size(),
+				restartedRegistry.get("approved.segment.store.decoded.points").summary().totalAmount(), 0);
+	}
+
+	@Test
+	public void putIfApprovedNotApprovedTest() {
+		assertFalse(store.putIfApproved(key, response()));
+		assertFalse(store.putIfApproved(key, response(approval(900, start, end))));
+		assertFalse(store.putIfApproved(key, response(approval(1200, start.plusSeconds(1), end))));
+		assertFalse(store.putIfApproved(key, response(approval(1200, start, end.minusSeconds(1)))));
+		Instant middle = Instant.parse("2018-04-01T05:00:00Z");
+		assertFalse(store.putIfApproved(key, response(approval(1200, start, middle), approval(900, middle, end))));
+		assertTrue(store.putIfApproved(key, response(approval(1200, middle, end), approval(1200, start, middle))));
+	}
+
+	@Test
+	public void putIfApprovedNotSegmentTest() {
+		DvHydrographRequestParameters parameters = new DvHydrographRequestParameters();
+		parameters.setStartDate(LocalDate.parse("2017-10-01"));
+		parameters.setEndDate(LocalDate.parse("2018-03-31"));
+		TimeSeriesDataKey partial = TimeSeriesDataKey.of("a", parameters, ZoneOffset.of("-5"), true);
+		assertFalse(store.putIfApproved(partial, response(approval(1200, start, end))));
+		assertNull(store.get(partial));
+	}
+
+	@Test
+	public void invalidateTest() {
+		store.putIfApproved(key, response(approval(1200, start, end)));
+		store.invalidate("b");
+		assertNotNull(store.get(key));
+		store.invalidate("a");
+		assertNull(store.get(key));
+		assertEquals(0, cache.estimatedSize());
+	}
+
+	@Test
+	public void removeTest() {
+		store.putIfApproved(key, response(approval(1200, start, end)));
+		store.remove(key);
+		assertNull(store.get(key));
+		assertEquals(0, cache.estimatedSize());
+		assertEquals(0, meterRegistry.get("approved.segment.store.segments").gauge().value(), 0);
+	}
+
+	private TimeSeriesDataServiceResponse response(Approval... approvals) {
+		TimeSeriesPoint point = new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset().setDateTimeOffset(start))
+				.setValue(new DoubleWithDisplay().setNumeric(1.5D).setDisplay("1.5"));
+		return new TimeSeriesDataServiceResponse().setUniqueId("a").setPoints(new ArrayList<>(Arrays.asList(point)))
+				.setApprovals(new ArrayList<>(Arrays.asList(approvals)));
+	}
+
+	private Approval approval(int level, Instant startTime, Instant endTime) {
+		Approval approval = new Approval().setApprovalLevel(level).setLevelDescription(level == 1200 ? "Approved" : "Analyzed");
+		approval.setStartTime(startTime);
+		approval.setEndTime(endTime);
+		return approval;
+	}
+}
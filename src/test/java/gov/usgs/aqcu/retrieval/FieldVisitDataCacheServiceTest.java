@@ -0,0 +1,77 @@
+package gov.usgs.aqcu.retrieval;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.FieldVisitDataServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.FieldVisitDescription;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(SpringRunner.class)
+public class FieldVisitDataCacheServiceTest {
+
+	@MockBean
+	private FieldVisitDataService fieldVisitDataService;
+
+	private FieldVisitDataCacheService service;
+	private FieldVisitDataServiceResponse responseA = new FieldVisitDataServiceResponse();
+	private FieldVisitDataServiceResponse responseB = new FieldVisitDataServiceResponse();
+	private Instant lastModified = Instant.parse("2018-03-01T00:00:00Z");
+
+	@Before
+	public void setup() {
+		service = new FieldVisitDataCacheService(fieldVisitDataService, new InFlightRequestRegistry(new SimpleMeterRegistry()),
+				Caffeine.newBuilder().build());
+		given(fieldVisitDataService.get("a")).willReturn(responseA, responseB);
+	}
+
+	@Test
+	public void getCachedTest() {
+		assertSame(responseA, service.get(description("a", "loc", lastModified)));
+		assertSame(responseA, service.get(description("a", "loc", lastModified)));
+		verify(fieldVisitDataService, times(1)).get("a");
+	}
+
+	@Test
+	public void getModifiedTest() {
+		assertSame(responseA, service.get(description("a", "loc", lastModified)));
+		assertSame(responseB, service.get(description("a", "loc", lastModified.plusSeconds(1))));
+		verify(fieldVisitDataService, times(2)).get("a");
+	}
+
+	@Test
+	public void getNoLastModifiedTest() {
+		assertSame(responseA, service.get(description("a", "loc", null)));
+		assertSame(responseB, service.get(description("a", "loc", null)));
+		verify(fieldVisitDataService, times(2)).get("a");
+	}
+
+	@Test
+	public void invalidateLocationTest() {
+		given(fieldVisitDataService.get("b")).willReturn(responseB);
+		service.get(description("a", "loc", lastModified));
+		service.get(description("b", "other", lastModified));
+		service.invalidateLocation("loc");
+		assertSame(responseB, service.get(description("a", "loc", lastModified)));
+		assertSame(responseB, service.get(description("b", "other", lastModified)));
+		verify(fieldVisitDataService, times(2)).get("a");
+		verify(fieldVisitDataService, times(1)).get("b");
+	}
+
+	private FieldVisitDescription description(String identifier, String locationIdentifier, Instant lastModified) {
+		return new FieldVisitDescription().setIdentifier(identifier).setLocationIdentifier(locationIdentifier)
+				.setLastModified(lastModified);
+	}
+}
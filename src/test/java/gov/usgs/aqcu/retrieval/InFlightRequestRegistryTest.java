@@ -0,0 +1,120 @@
+package gov.usgs.aqcu.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class InFlightRequestRegistryTest {
+
+	private MeterRegistry meterRegistry;
+	private InFlightRequestRegistry registry;
+	private ExecutorService executor;
+
+	@Before
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		registry = new InFlightRequestRegistry(meterRegistry);
+		executor = Executors.newFixedThreadPool(2);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void getCoalescedTest() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicInteger calls = new AtomicInteger();
+		Object response = new Object();
+
+		CompletableFuture<Object> leader = CompletableFuture.supplyAsync(() -> registry.get("timeSeriesData", "a", () -> {
+			calls.incrementAndGet();
+			started.countDown();
+			await(release);
+			return response;
+		}), executor);
+		started.await(5, TimeUnit.SECONDS);
+		CompletableFuture<Object> follower = CompletableFuture.supplyAsync(() -> registry.get("timeSeriesData", "a", () -> {
+			calls.incrementAndGet();
+			return new Object();
+		}), executor);
+		while (meterRegistry.find(InFlightRequestRegistry.COALESCED_COUNTER).counter() == null) {
+			Thread.sleep(5);
+		}
+		assertEquals(1, meterRegistry.get("retrieval.inflight").gauge().value(), 0);
+		release.countDown();
+
+		assertSame(response, leader.get(5, TimeUnit.SECONDS));
+		assertSame(response, follower.get(5, TimeUnit.SECONDS));
+		assertEquals(1, calls.get());
+		assertEquals(1, meterRegistry.get(InFlightRequestRegistry.UPSTREAM_COUNTER).tag("retrieval", "timeSeriesData").counter().count(), 0);
+		assertEquals(1, meterRegistry.get(InFlightRequestRegistry.COALESCED_COUNTER).tag("retrieval", "timeSeriesData").counter().count(), 0);
+		assertEquals(0, meterRegistry.get("retrieval.inflight").gauge().value(), 0);
+	}
+
+	@Test
+	public void getNotCoalescedTest() {
+		assertEquals("a", registry.get("timeSeriesData", "a", () -> "a"));
+		assertEquals("b", registry.get("timeSeriesData", "a", () -> "b"));
+		assertEquals("c", registry.get("fieldVisitData", "a", () -> "c"));
+		assertEquals(2, meterRegistry.get(InFlightRequestRegistry.UPSTREAM_COUNTER).tag("retrieval", "timeSeriesData").counter().count(), 0);
+		assertEquals(1, meterRegistry.get(InFlightRequestRegistry.UPSTREAM_COUNTER).tag("retrieval", "fieldVisitData").counter().count(), 0);
+	}
+
+	@Test
+	public void getExceptionTest() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		RuntimeException failure = new RuntimeException("Aquarius unavailable");
+
+		CompletableFuture<Object> leader = CompletableFuture.supplyAsync(() -> registry.get("timeSeriesData", "a", () -> {
+			started.countDown();
+			await(release);
+			throw failure;
+		}), executor);
+		started.await(5, TimeUnit.SECONDS);
+		CompletableFuture<Object> follower = CompletableFuture.supplyAsync(() -> registry.get("timeSeriesData", "a", Object::new), executor);
+		while (meterRegistry.find(InFlightRequestRegistry.COALESCED_COUNTER).counter() == null) {
+			Thread.sleep(5);
+		}
+		release.countDown();
+
+		assertFailure(failure, leader);
+		assertFailure(failure, follower);
+		assertEquals("b", registry.get("timeSeriesData", "a", () -> "b"));
+	}
+
+	private void assertFailure(RuntimeException expected, CompletableFuture<Object> future) throws Exception {
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			fail("Expected ExecutionException");
+		} catch (ExecutionException e) {
+			assertSame(expected, e.getCause());
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package gov.usgs.aqcu.retrieval;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class InvalidationGenerationsTest {
+
+	@Test
+	public void invalidateTest() {
+		InvalidationGenerations generations = new InvalidationGenerations();
+		long a = generations.get("a");
+		long b = generations.get("b");
+		generations.invalidate("a");
+		assertFalse(generations.isCurrent("a", a));
+		assertTrue(generations.isCurrent("b", b));
+
+		long current = generations.get("a");
+		assertTrue(generations.isCurrent("a", current));
+		generations.invalidateAll();
+		assertFalse(generations.isCurrent("a", current));
+		assertFalse(generations.isCurrent("b", b));
+		assertFalse(generations.isCurrent("c", 0));
+	}
+}
@@ -0,0 +1,50 @@
+package gov.usgs.aqcu.retrieval;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.LocationDescription;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+@RunWith(SpringRunner.class)
+public class LocationDescriptionCacheServiceTest {
+
+	@MockBean
+	private LocationDescriptionListService locationDescriptionListService;
+
+	private LocationDescriptionCacheService service;
+	private LocationDescription location = new LocationDescription().setIdentifier("01014000");
+
+	@Before
+	public void setup() {
+		service = new LocationDescriptionCacheService(locationDescriptionListService, Caffeine.newBuilder().build());
+		given(locationDescriptionListService.getByLocationIdentifier("01014000")).willReturn(location);
+	}
+
+	@Test
+	public void getByLocationIdentifierTest() {
+		assertSame(location, service.getByLocationIdentifier("01014000"));
+		assertSame(location, service.getByLocationIdentifier("01014000"));
+		verify(locationDescriptionListService, times(1)).getByLocationIdentifier("01014000");
+
+		service.invalidateAll();
+		assertSame(location, service.getByLocationIdentifier("01014000"));
+		verify(locationDescriptionListService, times(2)).getByLocationIdentifier("01014000");
+	}
+
+	@Test
+	public void getByLocationIdentifierMissingTest() {
+		assertNull(service.getByLocationIdentifier("xxx"));
+		assertNull(service.getByLocationIdentifier("xxx"));
+		verify(locationDescriptionListService, times(2)).getByLocationIdentifier("xxx");
+	}
+}
@@ -0,0 +1,174 @@
+package gov.usgs.aqcu.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import gov.usgs.aqcu.parameter.DvHydrographRequestParameters;
+
+public class MappedSegmentStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path directory;
+	private long segmentBytes;
+
+	@Before
+	public void setup() {
+		directory = folder.getRoot().toPath();
+		segmentBytes = SegmentFile.encode(response("a", 10)).limit();
+	}
+
+	@Test
+	public void putGetTest() {
+		MappedSegmentStore store = new MappedSegmentStore(directory, 1L << 20);
+		assertNull(store.get(key("a", 2017)));
+		store.put(key("a", 2017), response("a", 10));
+		TimeSeriesDataServiceResponse read = store.get(key("a", 2017));
+		assertEquals(10, read.getPoints().size());
+		assertEquals(Instant.parse("2016-10-01T05:00:09Z"), read.getPoints().get(9).getTimestamp().getDateTimeOffset());
+		assertEquals(Double.valueOf(9D), read.getPoints().get(9).getValue().getNumeric());
+		assertNull(store.get(key("a", 2018)));
+		assertEquals(1, store.getSegments());
+		assertEquals(segmentBytes, store.getTotalBytes());
+	}
+
+	@Test
+	public void restartTest() throws Exception {
+		MappedSegmentStore store = new MappedSegmentStore(directory, 1L << 20);
+		store.put(key("a", 2017), response("a", 10));
+		store.put(key("b", 2017), response("b", 10));
+		store.close();
+		Files.write(directory.resolve("orphan.seg"), new byte[] {1, 2, 3});
+
+		MappedSegmentStore restarted = new MappedSegmentStore(directory, 1L << 20);
+		assertEquals(2, restarted.getSegments());
+		assertEquals("b", restarted.get(key("b", 2017)).getUniqueId());
+		assertFalse(Files.exists(directory.resolve("orphan.seg")));
+	}
+
+	@Test
+	public void corruptSegmentTest() throws Exception {
+		MappedSegmentStore store = new MappedSegmentStore(directory, 1L << 20);
+		store.put(key("a", 2017), response("a", 10));
+		store.close();
+		Files.write(directory.resolve(MappedSegmentStore.getName(key("a", 2017)) + ".seg"), new byte[] {1, 2, 3});
+
+		MappedSegmentStore restarted = new MappedSegmentStore(directory, 1L << 20);
+		assertNull(restarted.get(key("a", 2017)));
+		assertEquals(0, restarted.getSegments());
+	}
+
+	@Test
+	public void removeReplacedSegmentTest() {
+		MappedSegmentStore store = new MappedSegmentStore(directory, 1L << 20);
+		store.put(key("a", 2017), response("a", 10));
+		String name = MappedSegmentStore.getName(key("a", 2017));
+		MappedByteBuffer replaced = store.map(name);
+		store.put(key("a", 2017), response("a", 5));
+
+		store.remove(name, replaced);
+		assertEquals(1, store.getSegments());
+		assertEquals(5, store.get(key("a", 2017)).getPoints().size());
+
+		store.remove(name, store.map(name));
+		assertEquals(0, store.getSegments());
+		assertNull(store.map(name));
+		assertNull(store.get(key("a", 2017)));
+	}
+
+	@Test
+	public void changesSinceTokenTest() {
+		MappedSegmentStore store = new MappedSegmentStore(directory, 1L << 20);
+		assertNull(store.getChangesSinceToken());
+		Instant token = Instant.parse("2018-03-01T00:00:00Z");
+		store.setChangesSinceToken(token);
+		store.put(key("a", 2017), response("a", 10));
+		store.invalidateAll();
+		store.close();
+
+		MappedSegmentStore restarted = new MappedSegmentStore(directory, 1L << 20);
+		assertEquals(token, restarted.getChangesSinceToken());
+	}
+
+	@Test
+	public void evictTest() throws Exception {
+		MappedSegmentStore store = new MappedSegmentStore(directory, 2 * segmentBytes);
+		store.put(key("a", 2016), response("a", 10));
+		Thread.sleep(5);
+		store.put(key("a", 2017), response("a", 10));
+		Thread.sleep(5);
+		assertNotNull(store.get(key("a", 2016)));
+		Thread.sleep(5);
+		store.put(key("a", 2018), response("a", 10));
+
+		assertEquals(2, store.getSegments());
+		assertTrue(store.getTotalBytes() <= 2 * segmentBytes);
+		assertNotNull(store.get(key("a", 2016)));
+		assertNull(store.get(key("a", 2017)));
+		assertNotNull(store.get(key("a", 2018)));
+	}
+
+	@Test
+	public void invalidateTest() {
+		MappedSegmentStore store = new MappedSegmentStore(directory, 1L << 20);
+		store.put(key("a", 2016), response("a", 10));
+		store.put(key("a", 2017), response("a", 10));
+		store.put(key("b", 2017), response("b", 10));
+
+		store.invalidate("a", Instant.parse("2016-12-01T00:00:00Z"));
+		assertNotNull(store.get(key("a", 2016)));
+		assertNull(store.get(key("a", 2017)));
+		assertEquals(2, new MappedSegmentStore(directory, 1L << 20).getSegments());
+
+		store.invalidate("a");
+		assertNull(store.get(key("a", 2016)));
+		assertNull(store.get(key("a", 2017)));
+		assertNotNull(store.get(key("b", 2017)));
+		assertEquals(1, store.getSegments());
+
+		store.invalidateAll();
+		assertEquals(0, store.getSegments());
+		assertEquals(0, store.getTotalBytes());
+		assertEquals(0, new MappedSegmentStore(directory, 1L << 20).getSegments());
+	}
+
+	private TimeSeriesDataKey key(String identifier, int waterYear) {
+		DvHydrographRequestParameters parameters = new DvHydrographRequestParameters();
+		parameters.setStartDate(LocalDate.of(waterYear - 1, 10, 1));
+		parameters.setEndDate(LocalDate.of(waterYear, 9, 30));
+		return TimeSeriesDataKey.of(identifier, parameters, ZoneOffset.of("-5"), true);
+	}
+
+	private TimeSeriesDataServiceResponse response(String identifier, int count) {
+		List<TimeSeriesPoint> points = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			points.add(new TimeSeriesPoint()
+					.setTimestamp(new StatisticalDateTimeOffset().setDateTimeOffset(Instant.parse("2016-10-01T05:00:00Z").plusSeconds(i)))
+					.setValue(new DoubleWithDisplay().setNumeric((double) i).setDisplay(String.valueOf(i))));
+		}
+		return new TimeSeriesDataServiceResponse().setUniqueId(identifier).setPoints(new ArrayList<>(points));
+	}
+}
@@ -0,0 +1,115 @@
+package gov.usgs.aqcu.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import gov.usgs.aqcu.model.nwis.ParameterRecord;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(SpringRunner.class)
+public class NwisParameterIndexServiceTest {
+
+	@MockBean
+	private NwisRaService nwisRaService;
+
+	private MeterRegistry meterRegistry;
+	private NwisParameterIndexService service;
+
+	@Before
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		service = new NwisParameterIndexService(nwisRaService, meterRegistry);
+		given(nwisRaService.getAqParameterNames()).willReturn(Arrays.asList(
+				record("nwisTemp", "Temperature", null),
+				record("nwisName", "aqname", null),
+				record("otherName", "aqname", null),
+				record("noAlias", null, null)));
+		given(nwisRaService.getAqParameterUnits()).willReturn(Arrays.asList(
+				record("otherName", "unit", "other"),
+				record("nwisName", "unit", "pCode"),
+				record("nwisName", "unit", "dupCode"),
+				record("nwisName", "ft", "ftCode")));
+	}
+
+	@Test
+	public void getPcodeTest() {
+		assertEquals("pCode", service.getPcode("aqname", "unit"));
+		assertEquals("ftCode", service.getPcode("aqname", "ft"));
+		assertNull(service.getPcode("aqname", "cfs"));
+		assertNull(service.getPcode("Temperature", "unit"));
+		verify(nwisRaService, times(1)).getAqParameterNames();
+		verify(nwisRaService, times(1)).getAqParameterUnits();
+	}
+
+	@Test
+	public void getPcodeNoNameMatchTest() {
+		assertNull(service.getPcode("xxx", "unit"));
+		assertNull(service.getPcode(null, "unit"));
+		verify(nwisRaService, times(1)).getAqParameterNames();
+		verify(nwisRaService, never()).getAqParameterUnits();
+	}
+
+	@Test
+	public void refreshTest() {
+		service.refresh();
+		verify(nwisRaService, never()).getAqParameterNames();
+		verify(nwisRaService, never()).getAqParameterUnits();
+
+		assertEquals("pCode", service.getPcode("aqname", "unit"));
+		given(nwisRaService.getAqParameterUnits()).willReturn(Arrays.asList(record("nwisName", "unit", "newCode")));
+		service.refresh();
+		assertEquals("newCode", service.getPcode("aqname", "unit"));
+		verify(nwisRaService, times(2)).getAqParameterNames();
+		verify(nwisRaService, times(2)).getAqParameterUnits();
+	}
+
+	@Test
+	public void refreshFailureKeepsIndexTest() {
+		assertEquals("pCode", service.getPcode("aqname", "unit"));
+		given(nwisRaService.getAqParameterUnits()).willThrow(new RuntimeException("NWIS-RA unavailable"));
+		service.refresh();
+		assertEquals("pCode", service.getPcode("aqname", "unit"));
+	}
+
+	@Test
+	public void metricsTest() {
+		assertEquals(0, meterRegistry.get("nwis.parameter.index.size").tag("index", "names").gauge().value(), 0);
+		assertTrue(Double.isNaN(meterRegistry.get("nwis.parameter.index.age").tag("index", "names").gauge().value()));
+
+		service.getPcode("aqname", "unit");
+		assertEquals(2, meterRegistry.get("nwis.parameter.index.size").tag("index", "names").gauge().value(), 0);
+		assertEquals(3, meterRegistry.get("nwis.parameter.index.size").tag("index", "units").gauge().value(), 0);
+		assertEquals(0, meterRegistry.get("nwis.parameter.index.age").tag("index", "units").gauge().value(), 1);
+	}
+
+	@Test
+	public void metricsAfterGarbageCollectionTest() {
+		service.getPcode("aqname", "unit");
+		// Gauge state is held weakly, so the gauges must still read the indexes once unreferenced objects are gone.
+		System.gc();
+		assertEquals(2, meterRegistry.get("nwis.parameter.index.size").tag("index", "names").gauge().value(), 0);
+		assertEquals(0, meterRegistry.get("nwis.parameter.index.age").tag("index", "units").gauge().value(), 1);
+	}
+
+	private ParameterRecord record(String name, String alias, String code) {
+		ParameterRecord record = new ParameterRecord();
+		record.setName(name);
+		record.setAlias(alias);
+		record.setCode(code);
+		return record;
+	}
+}
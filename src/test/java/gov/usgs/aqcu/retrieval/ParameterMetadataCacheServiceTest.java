@@ -0,0 +1,97 @@
+package gov.usgs.aqcu.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.ParameterMetadata;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(SpringRunner.class)
+public class ParameterMetadataCacheServiceTest {
+
+	@MockBean
+	private ParameterListService parameterListService;
+
+	private MeterRegistry meterRegistry;
+	private ParameterMetadataCacheService service;
+
+	@Before
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		service = new ParameterMetadataCacheService(parameterListService, meterRegistry);
+		given(parameterListService.getParameterMetadata()).willReturn(metadata("abc", "def"));
+	}
+
+	@Test
+	public void getParameterMetadataTest() {
+		assertEquals(2, service.getParameterMetadata().size());
+		assertTrue(service.getParameterMetadata().containsKey("abc"));
+		verify(parameterListService, times(1)).getParameterMetadata();
+		assertEquals(2, meterRegistry.get("parameter.metadata.size").gauge().value(), 0);
+	}
+
+	@Test
+	public void refreshTest() {
+		service.refresh();
+		verify(parameterListService, never()).getParameterMetadata();
+		assertNull(service.getLoaded());
+
+		assertEquals(2, service.getParameterMetadata().size());
+		given(parameterListService.getParameterMetadata()).willReturn(metadata("ghi"));
+		service.refresh();
+		assertEquals(1, service.getParameterMetadata().size());
+		assertTrue(service.getParameterMetadata().containsKey("ghi"));
+		verify(parameterListService, times(2)).getParameterMetadata();
+	}
+
+	@Test
+	public void refreshFailureTest() {
+		assertEquals(2, service.getParameterMetadata().size());
+		given(parameterListService.getParameterMetadata()).willThrow(new RuntimeException("Aquarius unavailable"));
+		service.refresh();
+		assertEquals(2, service.getParameterMetadata().size());
+		assertNotNull(service.getLoaded());
+	}
+
+	@Test
+	public void forceRefreshTest() {
+		assertNotNull(service.forceRefresh());
+		assertEquals(2, service.getParameterMetadata().size());
+		verify(parameterListService, times(1)).getParameterMetadata();
+
+		given(parameterListService.getParameterMetadata()).willThrow(new RuntimeException("Aquarius unavailable"));
+		try {
+			service.forceRefresh();
+			fail("Expected RuntimeException");
+		} catch (RuntimeException e) {
+			assertEquals("Aquarius unavailable", e.getMessage());
+		}
+		assertEquals(2, service.getParameterMetadata().size());
+	}
+
+	protected Map<String, ParameterMetadata> metadata(String... identifiers) {
+		Map<String, ParameterMetadata> metadata = new HashMap<>();
+		for (String identifier : identifiers) {
+			metadata.put(identifier, new ParameterMetadata().setIdentifier(identifier));
+		}
+		return metadata;
+	}
+}
@@ -0,0 +1,95 @@
+package gov.usgs.aqcu.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.QualifierMetadata;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+@RunWith(SpringRunner.class)
+public class QualifierMetadataCacheServiceTest {
+
+	@MockBean
+	private QualifierLookupService qualifierLookupService;
+
+	private QualifierMetadataCacheService service;
+	private QualifierMetadata estimated = new QualifierMetadata().setIdentifier("ESTIMATED");
+	private QualifierMetadata ice = new QualifierMetadata().setIdentifier("ICE");
+
+	@Before
+	public void setup() {
+		service = new QualifierMetadataCacheService(qualifierLookupService, Caffeine.newBuilder().build());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getByQualifierListTest() {
+		given(qualifierLookupService.getByQualifierList(anyList())).willReturn(metadata(estimated), metadata(ice));
+
+		Map<String, QualifierMetadata> first = service.getByQualifierList(qualifiers("ESTIMATED", "ESTIMATED"));
+		assertEquals(1, first.size());
+		assertSame(estimated, first.get("ESTIMATED"));
+
+		Map<String, QualifierMetadata> second = service.getByQualifierList(qualifiers("ESTIMATED", "ICE"));
+		assertEquals(2, second.size());
+		assertSame(estimated, second.get("ESTIMATED"));
+		assertSame(ice, second.get("ICE"));
+
+		ArgumentCaptor<List<Qualifier>> requested = ArgumentCaptor.forClass(List.class);
+		verify(qualifierLookupService, times(2)).getByQualifierList(requested.capture());
+		assertEquals(1, requested.getAllValues().get(0).size());
+		assertEquals("ICE", requested.getAllValues().get(1).get(0).getIdentifier());
+		assertEquals(1, requested.getAllValues().get(1).size());
+	}
+
+	@Test
+	public void getByQualifierListCachedTest() {
+		given(qualifierLookupService.getByQualifierList(anyList())).willReturn(metadata(estimated, ice));
+		service.getByQualifierList(qualifiers("ESTIMATED", "ICE"));
+		Map<String, QualifierMetadata> cached = service.getByQualifierList(qualifiers("ICE"));
+		assertEquals(1, cached.size());
+		assertSame(ice, cached.get("ICE"));
+		verify(qualifierLookupService, times(1)).getByQualifierList(anyList());
+	}
+
+	@Test
+	public void getByQualifierListEmptyTest() {
+		given(qualifierLookupService.getByQualifierList(Collections.emptyList())).willReturn(new HashMap<>());
+		assertEquals(0, service.getByQualifierList(Collections.emptyList()).size());
+		service.getByQualifierList(null);
+		verify(qualifierLookupService, times(1)).getByQualifierList(Collections.emptyList());
+		verify(qualifierLookupService, never()).getByQualifierList(qualifiers("ESTIMATED"));
+	}
+
+	protected List<Qualifier> qualifiers(String... identifiers) {
+		return Arrays.stream(identifiers).map(x -> new Qualifier().setIdentifier(x)).collect(Collectors.toList());
+	}
+
+	protected Map<String, QualifierMetadata> metadata(QualifierMetadata... qualifierMetadata) {
+		Map<String, QualifierMetadata> metadata = new HashMap<>();
+		for (QualifierMetadata qualifier : qualifierMetadata) {
+			metadata.put(qualifier.getIdentifier(), qualifier);
+		}
+		return metadata;
+	}
+}
@@ -0,0 +1,96 @@
+package gov.usgs.aqcu.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+public class SegmentFileTest {
+
+	private Instant time = Instant.parse("2018-01-01T05:00:00.123Z");
+
+	@Test
+	public void encodeDecodeTest() throws Exception {
+		TimeSeriesDataServiceResponse response = new TimeSeriesDataServiceResponse().setUniqueId("a").setUnit("ft^3/s")
+				.setPoints(new ArrayList<>(Arrays.asList(
+						point(time, 1.5D, "1.5", true),
+						point(time.plusSeconds(86400), null, "EQP", null),
+						point(time.plusSeconds(172800), 2D, null, false))));
+		ByteBuffer encoded = SegmentFile.encode(response);
+		assertEquals(3, encoded.getInt(8));
+		assertEquals("1.5EQP".length(), encoded.getInt(12));
+
+		TimeSeriesDataServiceResponse decoded = SegmentFile.decode(encoded);
+		assertEquals(0, encoded.position());
+		assertEquals("a", decoded.getUniqueId());
+		assertEquals("ft^3/s", decoded.getUnit());
+		assertEquals(3, decoded.getPoints().size());
+
+		TimeSeriesPoint first = decoded.getPoints().get(0);
+		assertEquals(time, first.getTimestamp().getDateTimeOffset());
+		assertTrue(first.getTimestamp().getRepresentsEndOfTimePeriod());
+		assertEquals(Double.valueOf(1.5D), first.getValue().getNumeric());
+		assertEquals("1.5", first.getValue().getDisplay());
+
+		TimeSeriesPoint second = decoded.getPoints().get(1);
+		assertNull(second.getTimestamp().getRepresentsEndOfTimePeriod());
+		assertNull(second.getValue().getNumeric());
+		assertEquals("EQP", second.getValue().getDisplay());
+
+		TimeSeriesPoint third = decoded.getPoints().get(2);
+		assertFalse(third.getTimestamp().getRepresentsEndOfTimePeriod());
+		assertEquals(Double.valueOf(2D), third.getValue().getNumeric());
+		assertNull(third.getValue().getDisplay());
+	}
+
+	@Test
+	public void encodeDecodeNullPointsTest() throws Exception {
+		TimeSeriesDataServiceResponse decoded = SegmentFile.decode(SegmentFile.encode(new TimeSeriesDataServiceResponse().setUniqueId("a")));
+		assertEquals("a", decoded.getUniqueId());
+		assertNull(decoded.getPoints());
+	}
+
+	@Test
+	public void withoutPointsTest() {
+		ArrayList<TimeSeriesPoint> points = new ArrayList<>(Arrays.asList(point(time, 1.5D, "1.5", true)));
+		TimeSeriesDataServiceResponse response = new TimeSeriesDataServiceResponse().setUniqueId("a").setParameter("Discharge")
+				.setLabel("Mean").setLocationIdentifier("01014000").setUnit("ft^3/s").setNumPoints(1L)
+				.setNotes(new ArrayList<>()).setPoints(points);
+
+		TimeSeriesDataServiceResponse copy = SegmentFile.withoutPoints(response);
+		assertNull(copy.getPoints());
+		assertSame(points, response.getPoints());
+		assertEquals("a", copy.getUniqueId());
+		assertEquals("Discharge", copy.getParameter());
+		assertEquals("Mean", copy.getLabel());
+		assertEquals("01014000", copy.getLocationIdentifier());
+		assertEquals("ft^3/s", copy.getUnit());
+		assertEquals(Long.valueOf(1L), copy.getNumPoints());
+		assertTrue(copy.getNotes().isEmpty());
+	}
+
+	@Test(expected = IOException.class)
+	public void decodeNotSegmentTest() throws Exception {
+		SegmentFile.decode(ByteBuffer.wrap(new byte[SegmentFile.HEADER_BYTES]));
+	}
+
+	private TimeSeriesPoint point(Instant instant, Double numeric, String display, Boolean endOfPeriod) {
+		return new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset().setDateTimeOffset(instant).setRepresentsEndOfTimePeriod(endOfPeriod))
+				.setValue(new DoubleWithDisplay().setNumeric(numeric).setDisplay(display));
+	}
+}
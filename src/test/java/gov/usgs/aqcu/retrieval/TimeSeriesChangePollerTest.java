@@ -0,0 +1,124 @@
+package gov.usgs.aqcu.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesUniqueIdListServiceRequest;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesUniqueIdListServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesUniqueIds;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.servicestack.client.IReturn;
+
+@RunWith(SpringRunner.class)
+public class TimeSeriesChangePollerTest {
+
+	@MockBean
+	private AquariusRetrievalService aquariusService;
+	@MockBean
+	private TimeSeriesDataCacheService timeSeriesDataCacheService;
+	@MockBean
+	private TimeSeriesDescriptionService timeSeriesDescriptionService;
+	@MockBean
+	private ApprovedSegmentStore approvedSegmentStore;
+
+	private MeterRegistry meterRegistry;
+	private TimeSeriesChangePoller poller;
+	private Instant nextToken = Instant.parse("2018-03-01T00:00:00Z");
+	private Instant firstPointChanged = Instant.parse("2018-02-01T00:00:00Z");
+
+	@Before
+	public void setup() {
+		meterRegistry = new SimpleMeterRegistry();
+		poller = new TimeSeriesChangePoller(aquariusService, timeSeriesDataCacheService, timeSeriesDescriptionService,
+				approvedSegmentStore, meterRegistry);
+	}
+
+	@Test
+	public void startWithoutStoredTokenTest() {
+		Instant started = poller.getChangesSinceToken();
+		assertNotNull(started);
+		verify(approvedSegmentStore).invalidateAll();
+		verify(approvedSegmentStore).setChangesSinceToken(started);
+	}
+
+	@Test
+	public void startWithStoredTokenTest() {
+		ApprovedSegmentStore stored = mock(ApprovedSegmentStore.class);
+		given(stored.getChangesSinceToken()).willReturn(nextToken);
+		TimeSeriesChangePoller resumed = new TimeSeriesChangePoller(aquariusService, timeSeriesDataCacheService,
+				timeSeriesDescriptionService, stored, new SimpleMeterRegistry());
+		assertEquals(nextToken, resumed.getChangesSinceToken());
+		verify(stored, never()).invalidateAll();
+		verify(stored, never()).setChangesSinceToken(any(Instant.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void pollTest() throws Exception {
+		Instant started = poller.getChangesSinceToken();
+		given(aquariusService.executePublishApiRequest(any(IReturn.class))).willReturn(new TimeSeriesUniqueIdListServiceResponse()
+				.setNextToken(nextToken)
+				.setTimeSeriesUniqueIds(new ArrayList<>(Arrays.asList(
+						new TimeSeriesUniqueIds().setUniqueId("a").setFirstPointChanged(firstPointChanged),
+						new TimeSeriesUniqueIds().setUniqueId("b").setHasAttributeChange(true)))));
+
+		poller.poll();
+		verify(aquariusService).executePublishApiRequest(argThat((TimeSeriesUniqueIdListServiceRequest x) ->
+				x != null && started.equals(x.getChangesSinceToken())));
+		verify(timeSeriesDataCacheService).invalidate("a", firstPointChanged);
+		verify(timeSeriesDataCacheService).invalidate("b", null);
+		verify(timeSeriesDescriptionService).invalidate("a");
+		verify(timeSeriesDescriptionService).invalidate("b");
+		verify(timeSeriesDataCacheService, never()).invalidateAll();
+		assertEquals(nextToken, poller.getChangesSinceToken());
+		verify(approvedSegmentStore).setChangesSinceToken(nextToken);
+		assertEquals(2, meterRegistry.get("timeseries.changes").counter().count(), 0);
+		assertEquals(0, meterRegistry.get("timeseries.changes.age").gauge().value(), 1);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void pollTokenExpiredTest() throws Exception {
+		given(aquariusService.executePublishApiRequest(any(IReturn.class))).willReturn(new TimeSeriesUniqueIdListServiceResponse()
+				.setTokenExpired(true).setNextToken(nextToken));
+
+		poller.poll();
+		verify(timeSeriesDescriptionService).invalidateAll();
+		verify(timeSeriesDataCacheService).invalidateAll();
+		verify(timeSeriesDataCacheService, never()).invalidate(anyString(), any(Instant.class));
+		assertEquals(nextToken, poller.getChangesSinceToken());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void pollFailureTest() throws Exception {
+		Instant started = poller.getChangesSinceToken();
+		given(aquariusService.executePublishApiRequest(any(IReturn.class))).willThrow(new RuntimeException("Aquarius unavailable"));
+
+		poller.poll();
+		verify(timeSeriesDataCacheService, never()).invalidateAll();
+		assertEquals(started, poller.getChangesSinceToken());
+		verify(approvedSegmentStore, times(1)).setChangesSinceToken(any(Instant.class));
+		assertEquals(Double.NaN, meterRegistry.get("timeseries.changes.age").gauge().value(), 0);
+	}
+}
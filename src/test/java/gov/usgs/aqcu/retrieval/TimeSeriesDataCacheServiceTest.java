@@ -0,0 +1,223 @@
+package gov.usgs.aqcu.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Approval;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import gov.usgs.aqcu.parameter.DvHydrographRequestParameters;
+import gov.usgs.aqcu.parameter.FiveYearRequestParameters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@RunWith(SpringRunner.class)
+public class TimeSeriesDataCacheServiceTest {
+
+	@MockBean
+	private TimeSeriesDataService timeSeriesDataService;
+
+	private Cache<TimeSeriesDataKey, TimeSeriesDataCacheEntry> cache;
+	private Cache<TimeSeriesDataKey, TimeSeriesDataServiceResponse> approvedCache;
+	private TimeSeriesDataCacheService service;
+	private DvHydrographRequestParameters parameters;
+	private TimeSeriesDataServiceResponse responseA = new TimeSeriesDataServiceResponse().setUniqueId("a");
+	private TimeSeriesDataServiceResponse responseB = new TimeSeriesDataServiceResponse().setUniqueId("b");
+	private Instant lastModified = Instant.parse("2018-03-01T00:00:00Z");
+
+	@Before
+	public void setup() {
+		cache = Caffeine.newBuilder().build();
+		approvedCache = Caffeine.newBuilder().build();
+		service = new TimeSeriesDataCacheService(timeSeriesDataService, new ApprovedSegmentStore(approvedCache, "", 0, 1200, new SimpleMeterRegistry()),
+				new InFlightRequestRegistry(new SimpleMeterRegistry()), cache, Runnable::run);
+		parameters = new DvHydrographRequestParameters();
+		parameters.setStartDate(LocalDate.parse("2017-10-01"));
+		parameters.setEndDate(LocalDate.parse("2018-09-30"));
+		given(timeSeriesDataService.get("a", parameters, ZoneOffset.UTC, true, false, true, null))
+				.willReturn(responseA, responseB);
+	}
+
+	@Test
+	public void getCachedTest() {
+		assertSame(responseA, service.get("a", lastModified, parameters, ZoneOffset.UTC, true));
+		assertSame(responseA, service.get("a", lastModified, parameters, ZoneOffset.UTC, true));
+		verify(timeSeriesDataService, times(1)).get("a", parameters, ZoneOffset.UTC, true, false, true, null);
+		assertEquals(1, cache.estimatedSize());
+	}
+
+	@Test
+	public void getModifiedTest() {
+		assertSame(responseA, service.get("a", lastModified, parameters, ZoneOffset.UTC, true));
+		assertSame(responseB, service.get("a", lastModified.plusSeconds(1), parameters, ZoneOffset.UTC, true));
+		verify(timeSeriesDataService, times(2)).get("a", parameters, ZoneOffset.UTC, true, false, true, null);
+		assertEquals(1, cache.estimatedSize());
+	}
+
+	@Test
+	public void getNoLastModifiedTest() {
+		assertSame(responseA, service.get("a", null, parameters, ZoneOffset.UTC, true));
+		assertSame(responseB, service.get("a", null, parameters, ZoneOffset.UTC, true));
+		assertEquals(0, cache.estimatedSize());
+	}
+
+	@Test
+	public void invalidateTest() {
+		service.get("a", lastModified, parameters, ZoneOffset.UTC, true);
+		service.invalidate("a");
+		assertSame(responseB, service.get("a", lastModified, parameters, ZoneOffset.UTC, true));
+	}
+
+	@Test
+	public void invalidateDuringRetrievalTest() {
+		Approval approval = new Approval().setApprovalLevel(1200);
+		approval.setStartTime(Instant.parse("2017-10-01T00:00:00Z"));
+		approval.setEndTime(Instant.parse("2018-10-01T00:00:00Z"));
+		TimeSeriesDataServiceResponse approved = getWaterYearResponse(2018).setApprovals(new ArrayList<>(Arrays.asList(approval)));
+		given(timeSeriesDataService.get("a", parameters, ZoneOffset.UTC, true, false, true, null))
+				.willAnswer(x -> {
+					// The series changes and the poller invalidates it while the old data is on its way back.
+					service.invalidate("a", Instant.parse("2018-01-01T00:00:00Z"));
+					return approved;
+				}).willReturn(responseB);
+
+		assertSame(approved, service.get("a", lastModified, parameters, ZoneOffset.UTC, true));
+		assertEquals(0, approvedCache.estimatedSize());
+		assertEquals(0, cache.estimatedSize());
+		assertSame(responseB, service.get("a", lastModified, parameters, ZoneOffset.UTC, true));
+		assertEquals(1, cache.estimatedSize());
+	}
+
+	@Test
+	public void invalidateAllDuringRetrievalTest() {
+		given(timeSeriesDataService.get("a", parameters, ZoneOffset.UTC, true, false, true, null))
+				.willAnswer(x -> {
+					service.invalidateAll();
+					return responseA;
+				}).willReturn(responseB);
+
+		assertSame(responseA, service.get("a", lastModified, parameters, ZoneOffset.UTC, true));
+		assertEquals(0, cache.estimatedSize());
+		assertSame(responseB, service.get("a", lastModified, parameters, ZoneOffset.UTC, true));
+		assertSame(responseB, service.get("a", lastModified, parameters, ZoneOffset.UTC, true));
+	}
+
+	@Test
+	public void getWaterYearSegmentsTest() {
+		given(timeSeriesDataService.get(anyString(), any(DvHydrographRequestParameters.class), eq(ZoneOffset.UTC),
+				eq(true), eq(false), eq(true), eq(null)))
+				.willAnswer(x -> getWaterYearResponse(((DvHydrographRequestParameters) x.getArguments()[1]).getEndDate().getYear()));
+		FiveYearRequestParameters fiveYear = new FiveYearRequestParameters();
+		fiveYear.setWaterYear(2018);
+		DvHydrographRequestParameters oneYear = new DvHydrographRequestParameters();
+		oneYear.setWaterYear(2018);
+
+		TimeSeriesDataServiceResponse fiveYearResponse = service.get("a", lastModified, fiveYear, ZoneOffset.UTC, true);
+		assertEquals(5, fiveYearResponse.getPoints().size());
+		assertEquals(Instant.parse("2013-10-01T00:00:00Z"), fiveYearResponse.getPoints().get(0).getTimestamp().getDateTimeOffset());
+		TimeSeriesDataServiceResponse oneYearResponse = service.get("a", lastModified, oneYear, ZoneOffset.UTC, true);
+		assertEquals(1, oneYearResponse.getPoints().size());
+		assertEquals(Instant.parse("2017-10-01T00:00:00Z"), oneYearResponse.getPoints().get(0).getTimestamp().getDateTimeOffset());
+
+		verify(timeSeriesDataService, times(5)).get(anyString(), any(DvHydrographRequestParameters.class), eq(ZoneOffset.UTC),
+				eq(true), eq(false), eq(true), eq(null));
+		assertEquals(5, cache.estimatedSize());
+	}
+
+	@Test
+	public void getApprovedSegmentsTest() {
+		given(timeSeriesDataService.get(anyString(), any(DvHydrographRequestParameters.class), eq(ZoneOffset.UTC),
+				eq(true), eq(false), eq(true), eq(null)))
+				.willAnswer(x -> {
+					int waterYear = ((DvHydrographRequestParameters) x.getArguments()[1]).getEndDate().getYear();
+					TimeSeriesDataServiceResponse response = getWaterYearResponse(waterYear);
+					Approval approval = new Approval().setApprovalLevel(waterYear < 2018 ? 1200 : 900);
+					approval.setStartTime(Instant.parse((waterYear - 1) + "-10-01T00:00:00Z"));
+					approval.setEndTime(Instant.parse(waterYear + "-10-01T00:00:00Z"));
+					return response.setApprovals(new ArrayList<>(Arrays.asList(approval)));
+				});
+		FiveYearRequestParameters fiveYear = new FiveYearRequestParameters();
+		fiveYear.setWaterYear(2018);
+
+		assertEquals(5, service.get("a", lastModified, fiveYear, ZoneOffset.UTC, true).getPoints().size());
+		assertEquals(4, approvedCache.estimatedSize());
+		assertEquals(1, cache.estimatedSize());
+
+		assertEquals(5, service.get("a", lastModified.plusSeconds(1), fiveYear, ZoneOffset.UTC, true).getPoints().size());
+		verify(timeSeriesDataService, times(6)).get(anyString(), any(DvHydrographRequestParameters.class), eq(ZoneOffset.UTC),
+				eq(true), eq(false), eq(true), eq(null));
+
+		service.invalidate("a", Instant.parse("2016-03-01T00:00:00Z"));
+		assertEquals(2, approvedCache.estimatedSize());
+		assertEquals(0, cache.estimatedSize());
+		service.invalidate("b", null);
+		assertEquals(2, approvedCache.estimatedSize());
+		service.invalidate("a");
+		assertEquals(0, approvedCache.estimatedSize());
+	}
+
+	@Test
+	public void getWaterYearSegmentsConcurrentTest() throws Exception {
+		CyclicBarrier allRetrieving = new CyclicBarrier(5);
+		Set<String> threads = ConcurrentHashMap.newKeySet();
+		given(timeSeriesDataService.get(anyString(), any(DvHydrographRequestParameters.class), eq(ZoneOffset.UTC),
+				eq(true), eq(false), eq(true), eq(null)))
+				.willAnswer(x -> {
+					threads.add(Thread.currentThread().getName());
+					allRetrieving.await(10, TimeUnit.SECONDS);
+					return getWaterYearResponse(((DvHydrographRequestParameters) x.getArguments()[1]).getEndDate().getYear());
+				});
+		ExecutorService executor = Executors.newFixedThreadPool(5);
+		try {
+			service = new TimeSeriesDataCacheService(timeSeriesDataService,
+					new ApprovedSegmentStore(approvedCache, "", 0, 1200, new SimpleMeterRegistry()),
+					new InFlightRequestRegistry(new SimpleMeterRegistry()), cache, executor);
+			FiveYearRequestParameters fiveYear = new FiveYearRequestParameters();
+			fiveYear.setWaterYear(2018);
+
+			TimeSeriesDataServiceResponse actual = service.get("a", lastModified, fiveYear, ZoneOffset.UTC, true);
+			assertEquals(5, actual.getPoints().size());
+			assertEquals(Instant.parse("2017-10-01T00:00:00Z"), actual.getPoints().get(4).getTimestamp().getDateTimeOffset());
+			assertEquals(5, threads.size());
+			assertFalse(threads.contains(Thread.currentThread().getName()));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private TimeSeriesDataServiceResponse getWaterYearResponse(int waterYear) {
+		TimeSeriesPoint point = new TimeSeriesPoint()
+				.setTimestamp(new StatisticalDateTimeOffset().setDateTimeOffset(Instant.parse((waterYear - 1) + "-10-01T00:00:00Z")))
+				.setValue(new DoubleWithDisplay().setNumeric(1.0D).setDisplay("1"));
+		return new TimeSeriesDataServiceResponse().setUniqueId("a").setPoints(new ArrayList<>(Arrays.asList(point)));
+	}
+}
@@ -0,0 +1,107 @@
+package gov.usgs.aqcu.retrieval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.DoubleWithDisplay;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.Qualifier;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalDateTimeOffset;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.StatisticalTimeRange;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDataServiceResponse;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesPoint;
+
+import gov.usgs.aqcu.parameter.DvHydrographRequestParameters;
+import gov.usgs.aqcu.parameter.FiveYearRequestParameters;
+
+public class TimeSeriesDataSegmentsTest {
+	private static final ZoneOffset ZONE = ZoneOffset.of("-5");
+
+	@Test
+	public void getWaterYearSegmentsFiveYearTest() {
+		FiveYearRequestParameters params = new FiveYearRequestParameters();
+		params.setWaterYear(2018);
+		List<DvHydrographRequestParameters> segments = TimeSeriesDataSegments.getWaterYearSegments(TimeSeriesDataKey.of("a", params, ZONE, true));
+		assertEquals(5, segments.size());
+		assertEquals(LocalDate.of(2013, 10, 1), segments.get(0).getStartDate());
+		assertEquals(LocalDate.of(2014, 9, 30), segments.get(0).getEndDate());
+		assertEquals(LocalDate.of(2017, 10, 1), segments.get(4).getStartDate());
+		assertEquals(LocalDate.of(2018, 9, 30), segments.get(4).getEndDate());
+	}
+
+	@Test
+	public void getWaterYearSegmentsUnalignedTest() {
+		DvHydrographRequestParameters params = new DvHydrographRequestParameters();
+		params.setStartDate(LocalDate.of(2017, 10, 1));
+		params.setEndDate(LocalDate.of(2018, 6, 30));
+		assertTrue(TimeSeriesDataSegments.getWaterYearSegments(TimeSeriesDataKey.of("a", params, ZONE, true)).isEmpty());
+		params = new DvHydrographRequestParameters();
+		params.setStartDate(LocalDate.of(2017, 11, 1));
+		params.setEndDate(LocalDate.of(2018, 9, 30));
+		assertTrue(TimeSeriesDataSegments.getWaterYearSegments(TimeSeriesDataKey.of("a", params, ZONE, true)).isEmpty());
+		assertTrue(TimeSeriesDataSegments.getWaterYearSegments(TimeSeriesDataKey.of("a", null, ZONE, true)).isEmpty());
+	}
+
+	@Test
+	public void spliceTest() {
+		TimeSeriesDataServiceResponse first = new TimeSeriesDataServiceResponse().setUniqueId("a").setUnit("ft^3/s")
+				.setPoints(new ArrayList<>(Arrays.asList(point("2017-09-29T00:00:00Z"), point("2017-09-30T00:00:00Z"), point("2017-10-01T00:00:00Z"))))
+				.setQualifiers(new ArrayList<>(Arrays.asList(estimated())))
+				.setTimeRange(new StatisticalTimeRange().setStartTime(offset("2016-10-01T00:00:00Z")).setEndTime(offset("2017-10-01T00:00:00Z")));
+		TimeSeriesDataServiceResponse second = new TimeSeriesDataServiceResponse().setUniqueId("a").setUnit("ft^3/s")
+				.setPoints(new ArrayList<>(Arrays.asList(point("2017-10-01T00:00:00Z"), point("2017-10-02T00:00:00Z"))))
+				.setQualifiers(new ArrayList<>(Arrays.asList(estimated())))
+				.setTimeRange(new StatisticalTimeRange().setStartTime(offset("2017-10-01T00:00:00Z")).setEndTime(offset("2018-10-01T00:00:00Z")));
+
+		TimeSeriesDataServiceResponse actual = TimeSeriesDataSegments.splice(Arrays.asList(first, second));
+		assertEquals("a", actual.getUniqueId());
+		assertEquals("ft^3/s", actual.getUnit());
+		assertEquals(4, actual.getPoints().size());
+		assertEquals(Long.valueOf(4), actual.getNumPoints());
+		assertEquals(Instant.parse("2017-10-02T00:00:00Z"), actual.getPoints().get(3).getTimestamp().getDateTimeOffset());
+		assertEquals(1, actual.getQualifiers().size());
+		assertEquals(null, actual.getApprovals());
+		assertEquals(Instant.parse("2016-10-01T00:00:00Z"), actual.getTimeRange().getStartTime().getDateTimeOffset());
+		assertEquals(Instant.parse("2018-10-01T00:00:00Z"), actual.getTimeRange().getEndTime().getDateTimeOffset());
+	}
+
+	@Test
+	public void spliceDistinctPeriodsTest() {
+		Qualifier otherUser = estimated().setUser("other");
+		Qualifier otherEnd = estimated();
+		otherEnd.setEndTime(Instant.parse("2017-12-01T00:00:00Z"));
+		TimeSeriesDataServiceResponse first = new TimeSeriesDataServiceResponse().setUniqueId("a")
+				.setQualifiers(new ArrayList<>(Arrays.asList(estimated(), otherUser)));
+		TimeSeriesDataServiceResponse second = new TimeSeriesDataServiceResponse().setUniqueId("a")
+				.setQualifiers(new ArrayList<>(Arrays.asList(estimated(), estimated().setUser("other"), otherEnd)));
+
+		List<Qualifier> actual = TimeSeriesDataSegments.splice(Arrays.asList(first, second)).getQualifiers();
+		assertEquals(3, actual.size());
+		assertEquals("other", actual.get(1).getUser());
+		assertEquals(Instant.parse("2017-12-01T00:00:00Z"), actual.get(2).getEndTime());
+	}
+
+	private Qualifier estimated() {
+		Qualifier qualifier = new Qualifier().setIdentifier("ESTIMATED");
+		qualifier.setStartTime(Instant.parse("2017-09-01T00:00:00Z"));
+		qualifier.setEndTime(Instant.parse("2017-11-01T00:00:00Z"));
+		return qualifier;
+	}
+
+	private TimeSeriesPoint point(String timestamp) {
+		return new TimeSeriesPoint().setTimestamp(offset(timestamp))
+				.setValue(new DoubleWithDisplay().setNumeric(1.0D).setDisplay("1"));
+	}
+
+	private StatisticalDateTimeOffset offset(String timestamp) {
+		return new StatisticalDateTimeOffset().setDateTimeOffset(Instant.parse(timestamp));
+	}
+}
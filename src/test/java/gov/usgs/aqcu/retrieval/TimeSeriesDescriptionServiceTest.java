@@ -3,10 +3,14 @@ package gov.usgs.aqcu.retrieval;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -21,9 +25,13 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescription;
+import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescriptionListByUniqueIdServiceRequest;
 import com.aquaticinformatics.aquarius.sdk.timeseries.servicemodels.Publish.TimeSeriesDescriptionListByUniqueIdServiceResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 import gov.usgs.aqcu.parameter.DvHydrographRequestParameters;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import net.servicestack.client.IReturn;
 
 @RunWith(SpringRunner.class)
@@ -32,6 +40,7 @@ public class TimeSeriesDescriptionServiceTest {
 	@MockBean
 	private AquariusRetrievalService aquariusService;
 
+	private Cache<String, TimeSeriesDescription> cache;
 	private TimeSeriesDescriptionService service;
 	private DvHydrographRequestParameters parameters;
 
@@ -42,7 +51,8 @@ public class TimeSeriesDescriptionServiceTest {
 	@Before
 	@SuppressWarnings("unchecked")
 	public void setup() throws Exception {
-		service = new TimeSeriesDescriptionService(aquariusService);
+		cache = Caffeine.newBuilder().build();
+		service = new TimeSeriesDescriptionService(aquariusService, new InFlightRequestRegistry(new SimpleMeterRegistry()), cache);
 		parameters = new DvHydrographRequestParameters();
 		given(aquariusService.executePublishApiRequest(any(IReturn.class))).willReturn(new TimeSeriesDescriptionListByUniqueIdServiceResponse()
 				.setTimeSeriesDescriptions(new ArrayList<TimeSeriesDescription>(Arrays.asList(timeSeriesDescriptionA, timeSeriesDescriptionB, timeSeriesDescriptionC))));
@@ -141,6 +151,69 @@ public class TimeSeriesDescriptionServiceTest {
 		assertThat(descriptionList, IsMapContaining.hasEntry("c", timeSeriesDescriptionC));
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getTimeSeriesDescriptions_cachedTest() throws Exception {
+		parameters.setPrimaryTimeseriesIdentifier("a");
+		parameters.setFirstStatDerivedIdentifier("b");
+		parameters.setSecondStatDerivedIdentifier("c");
+		service.getTimeSeriesDescriptions(parameters);
+		assertEquals(3, cache.estimatedSize());
+
+		DvHydrographRequestParameters cachedParameters = new DvHydrographRequestParameters();
+		cachedParameters.setPrimaryTimeseriesIdentifier("c");
+		cachedParameters.setFirstStatDerivedIdentifier("a");
+		Map<String, TimeSeriesDescription> descriptionList = service.getTimeSeriesDescriptions(cachedParameters);
+		assertEquals(2, descriptionList.size());
+		assertThat(descriptionList, IsMapContaining.hasEntry("c", timeSeriesDescriptionC));
+		verify(aquariusService, times(1)).executePublishApiRequest(any(IReturn.class));
+
+		service.invalidate("b");
+		given(aquariusService.executePublishApiRequest(any(IReturn.class))).willReturn(new TimeSeriesDescriptionListByUniqueIdServiceResponse()
+				.setTimeSeriesDescriptions(new ArrayList<TimeSeriesDescription>(Arrays.asList(timeSeriesDescriptionB))));
+		descriptionList = service.getTimeSeriesDescriptions(parameters);
+		assertEquals(3, descriptionList.size());
+		verify(aquariusService).executePublishApiRequest(argThat((TimeSeriesDescriptionListByUniqueIdServiceRequest x) ->
+				x != null && Arrays.asList("b").equals(x.getTimeSeriesUniqueIds())));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getTimeSeriesDescriptions_invalidatedDuringRetrievalTest() throws Exception {
+		given(aquariusService.executePublishApiRequest(any(IReturn.class))).willAnswer(x -> {
+			// The poller reports b changed while its old description is on its way back.
+			service.invalidate("b");
+			return new TimeSeriesDescriptionListByUniqueIdServiceResponse()
+					.setTimeSeriesDescriptions(new ArrayList<TimeSeriesDescription>(Arrays.asList(timeSeriesDescriptionA, timeSeriesDescriptionB)));
+		});
+		parameters.setPrimaryTimeseriesIdentifier("a");
+		parameters.setFirstStatDerivedIdentifier("b");
+		Map<String, TimeSeriesDescription> descriptionList = service.getTimeSeriesDescriptions(parameters);
+		assertEquals(2, descriptionList.size());
+		assertEquals(timeSeriesDescriptionA, cache.getIfPresent("a"));
+		assertNull(cache.getIfPresent("b"));
+
+		service.invalidateAll();
+		assertNull(cache.getIfPresent("a"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void getTimeSeriesDescriptions_missingTest() throws Exception {
+		cache.put("a", timeSeriesDescriptionA);
+		given(aquariusService.executePublishApiRequest(any(IReturn.class))).willReturn(new TimeSeriesDescriptionListByUniqueIdServiceResponse()
+				.setTimeSeriesDescriptions(new ArrayList<TimeSeriesDescription>()));
+		parameters.setPrimaryTimeseriesIdentifier("a");
+		parameters.setFirstStatDerivedIdentifier("b");
+		try {
+			service.getTimeSeriesDescriptions(parameters);
+			fail("Expected an exception and didn't get it.");
+		} catch (RuntimeException e) {
+			assertEquals("Failed to fetch descriptions for all requested Time Series Identifiers: \nRequested: 2\nGot: 1",
+					e.getCause().getMessage());
+		}
+	}
+
 	protected List<TimeSeriesDescription> buildDescriptionList() {
 		List<TimeSeriesDescription> descriptionList = new ArrayList<>();
 		descriptionList.add(timeSeriesDescriptionA);
@@ -0,0 +1,40 @@
+package gov.usgs.aqcu.serializer;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+
+import gov.usgs.aqcu.model.DvHydrographPointList;
+import gov.usgs.aqcu.model.DvHydrographReport;
+import gov.usgs.aqcu.model.DvHydrographReportMetadata;
+import gov.usgs.aqcu.model.TimeSeriesCorrectedData;
+import gov.usgs.aqcu.util.AqcuGsonBuilderFactory;
+
+public class ReportJsonWriterTest {
+	private Gson gson = AqcuGsonBuilderFactory.getConfiguredGsonBuilder().serializeNulls().create();
+
+	@Test
+	public void writeTest() throws Exception {
+		DvHydrographReport report = new DvHydrographReport();
+		DvHydrographReportMetadata metadata = new DvHydrographReportMetadata();
+		metadata.setStationName("R\u00edo <Grande> & \"Bravo\" \u00b0F");
+		report.setReportMetadata(metadata);
+		TimeSeriesCorrectedData series = new TimeSeriesCorrectedData();
+		DvHydrographPointList points = new DvHydrographPointList(true);
+		points.add(LocalDate.parse("2017-10-01"), new BigDecimal("12.30"));
+		series.setPoints(points);
+		report.setFirstStatDerived(series);
+
+		ByteArrayOutputStream actual = new ByteArrayOutputStream();
+		ReportJsonWriter.write(gson, report, DvHydrographReport.class, actual);
+
+		assertArrayEquals(gson.toJson(report).getBytes(StandardCharsets.UTF_8), actual.toByteArray());
+	}
+}